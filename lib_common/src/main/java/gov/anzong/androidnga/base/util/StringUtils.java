@@ -3,8 +3,8 @@ package gov.anzong.androidnga.base.util;
 import com.google.common.base.Strings;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import okhttp3.RequestBody;
@@ -15,7 +15,10 @@ import okio.Buffer;
  */
 public class StringUtils {
 
-    private static Map<String, Pattern> sPatternMap = new HashMap<>();
+    /**
+     * 编译好的正则, 多个线程同时解析时共用
+     */
+    private static final Map<String, Pattern> sPatternMap = new ConcurrentHashMap<>();
 
     public static String replaceAll(String content, String regex, String replacement) {
         return getPattern(regex).matcher(content).replaceAll(replacement);
@@ -24,8 +27,7 @@ public class StringUtils {
     public static Pattern getPattern(String regex) {
         Pattern pattern = sPatternMap.get(regex);
         if (pattern == null) {
-            pattern = Pattern.compile(regex);
-            sPatternMap.put(regex, pattern);
+            pattern = sPatternMap.computeIfAbsent(regex, Pattern::compile);
         }
         return pattern;
     }
@@ -42,6 +42,12 @@ public class PreferenceKey {
 
     public static final String HARDWARE_ACCELERATED = "hardware_accelerated";
 
+    public static final String BBCODE_TOKENIZER = "bbcode_tokenizer";
+
+    public static final String ARTICLE_PAGE_RENDER = "article_page_render";
+
+    public static final String ARTICLE_NATIVE_RENDER = "article_native_render";
+
     public static final String BOOKMARK_BOARD = "bookmark_board";
 
     public static final String CHECK_IN_LAST_TIME = "check_in_last_time";
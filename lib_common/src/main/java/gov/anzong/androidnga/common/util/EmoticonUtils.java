@@ -1,5 +1,8 @@
 package gov.anzong.androidnga.common.util;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Created by Justwen on 2018/6/8.
  */
@@ -17,6 +20,10 @@ public class EmoticonUtils {
 
     final static String PRR_EMOTION_URL = "https://img4.nga.178.com/ngabbs/post/smile/";
 
+    private static final String SMILE_PATH = "/ngabbs/post/smile/";
+
+    private static Map<String, String> sSmileAssetPaths;
+
     public static String[][][] EMOTICON_URL = {
             {
             },
@@ -291,4 +298,30 @@ public class EmoticonUtils {
         String name = EMOTICON_URL[category][position][2];
         return EMOTICON_URL[category][position][0] + "/" + name;
     }
+
+    /**
+     * 论坛表情图片地址对应的内置表情, 与 assets 中的文件名相同
+     *
+     * @return assets 中的路径, 不是内置的表情返回 null
+     */
+    public static synchronized String getAssetPathBySmileUrl(String url) {
+        int index = url.indexOf(SMILE_PATH);
+        if (index < 0) {
+            return null;
+        }
+        if (sSmileAssetPaths == null) {
+            sSmileAssetPaths = new HashMap<>();
+            for (String[][] categoryEmoticons : EMOTICON_URL) {
+                for (String[] emoticon : categoryEmoticons) {
+                    sSmileAssetPaths.put(emoticon[2], emoticon[0] + "/" + emoticon[2]);
+                }
+            }
+        }
+        String fileName = url.substring(index + SMILE_PATH.length());
+        int queryIndex = fileName.indexOf('?');
+        if (queryIndex >= 0) {
+            fileName = fileName.substring(0, queryIndex);
+        }
+        return sSmileAssetPaths.get(fileName);
+    }
 }
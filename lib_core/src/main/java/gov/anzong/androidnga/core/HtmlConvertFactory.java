@@ -1,45 +1,164 @@
 package gov.anzong.androidnga.core;
 
-import android.text.TextUtils;
-
+import java.util.Collections;
 import java.util.List;
 
-import gov.anzong.androidnga.common.util.FileUtils;
 import gov.anzong.androidnga.core.corebuild.HtmlBuilder;
+import gov.anzong.androidnga.core.corebuild.SignatureCache;
+import gov.anzong.androidnga.core.data.DecodeResult;
 import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.DiceRoller;
 import gov.anzong.androidnga.core.decode.ForumDecoder;
+import gov.anzong.androidnga.core.decode.ForumDiceDecoder;
+import gov.anzong.androidnga.core.util.AssetUtils;
+import gov.anzong.androidnga.core.util.StringUtils;
 
 public class HtmlConvertFactory {
 
-    private volatile static String sHtmlTemplate;
+    /**
+     * 复用的 StringBuilder 超过这个长度后不再保留, 避免长期占用内存
+     */
+    private static final int MAX_REUSE_CAPACITY = 256 * 1024;
+
+    /**
+     * 模板以两个 %s 为界拆成三段: 样式文件之前, 样式文件和正文之间, 正文之后
+     */
+    private static final String[] sHtmlTemplate;
+
+    private static final ThreadLocal<StringBuilder> sBuilder = new ThreadLocal<>();
 
     static {
-        sHtmlTemplate = FileUtils.readAssetToString("html/html_template.html");
+        String template = AssetUtils.readToString("html/html_template.html");
+        int first = template.indexOf("%s");
+        int second = template.indexOf("%s", first + 2);
+        sHtmlTemplate = new String[]{template.substring(0, first), template.substring(first + 2, second), template.substring(second + 2)};
+    }
+
+    private static StringBuilder obtainBuilder(int capacity) {
+        StringBuilder builder = sBuilder.get();
+        if (builder == null) {
+            builder = new StringBuilder(capacity);
+            sBuilder.set(builder);
+        } else {
+            builder.setLength(0);
+            builder.ensureCapacity(capacity);
+        }
+        return builder;
+    }
+
+    private static void recycleBuilder(StringBuilder builder) {
+        if (builder.capacity() > MAX_REUSE_CAPACITY) {
+            sBuilder.remove();
+        } else {
+            builder.setLength(0);
+        }
+    }
+
+    /**
+     * 取出 {@link #convert} 结果中 body 的内容, 用于把多条回复拼在同一个网页中
+     *
+     * @return 不是由模板生成的 html 时返回 null
+     */
+    public static String getBody(String html) {
+        if (html == null || !html.startsWith(sHtmlTemplate[0]) || !html.endsWith(sHtmlTemplate[2])) {
+            return null;
+        }
+        int start = html.indexOf(sHtmlTemplate[1], sHtmlTemplate[0].length());
+        int end = html.length() - sHtmlTemplate[2].length();
+        if (start < 0 || start + sHtmlTemplate[1].length() > end) {
+            return null;
+        }
+        return html.substring(start + sHtmlTemplate[1].length(), end);
+    }
+
+    /**
+     * 只有样式没有正文的网页, 用于提前加载模板
+     */
+    public static String getEmptyHtml(boolean darkMode) {
+        return sHtmlTemplate[0] + (darkMode ? "style_dark.css" : "style_light.css") + sHtmlTemplate[1] + sHtmlTemplate[2];
+    }
+
+    /**
+     * 用回复的模板包装已经解析好的 html, 私信, 签名和头像等不经过 {@link #convert} 的网页也能使用模板中的样式和脚本
+     *
+     * @param bodyStyle 覆盖模板的 body 样式, 例如网页的背景色, 为空时不覆盖
+     */
+    public static String wrap(String body, boolean darkMode, String bodyStyle) {
+        StringBuilder builder = new StringBuilder(sHtmlTemplate[0].length() + sHtmlTemplate[1].length() + sHtmlTemplate[2].length()
+                + (body != null ? body.length() : 0) + 64);
+        builder.append(sHtmlTemplate[0])
+                .append(darkMode ? "style_dark.css" : "style_light.css");
+        int bodyIndex = sHtmlTemplate[1].indexOf("<body");
+        if (!StringUtils.isEmpty(bodyStyle) && bodyIndex >= 0) {
+            // 放在模板的样式文件之后才能覆盖
+            builder.append(sHtmlTemplate[1], 0, bodyIndex)
+                    .append("<style>body {").append(bodyStyle).append("}</style>\n")
+                    .append(sHtmlTemplate[1], bodyIndex, sHtmlTemplate[1].length());
+        } else {
+            builder.append(sHtmlTemplate[1]);
+        }
+        if (body != null) {
+            builder.append(body);
+        }
+        return builder.append(sHtmlTemplate[2]).toString();
     }
 
     public static String convert(HtmlData htmlData, List<String> images) {
+        return convertResult(htmlData, images).getHtml();
+    }
+
+    /**
+     * 返回完整的 html 和正文的解析情况, 屏蔽和隐藏的回复不会解析正文
+     */
+    public static DecodeResult convertResult(HtmlData htmlData, List<String> images) {
 
-        StringBuilder builder = new StringBuilder();
+        String rawData = htmlData.getRawData();
+        // 转换后的 html 通常是原文的两倍左右
+        int capacity = sHtmlTemplate[0].length() + sHtmlTemplate[1].length() + sHtmlTemplate[2].length()
+                + (rawData != null ? rawData.length() * 2 : 0) + 256;
+        StringBuilder builder = obtainBuilder(capacity);
 
+        builder.append(sHtmlTemplate[0])
+                .append(htmlData.isDarkMode() ? "style_dark.css" : "style_light.css")
+                .append(sHtmlTemplate[1]);
+
+        // 骰子结果按在页面中出现的顺序依次计算, 每次转换都从头开始
+        DiceRoller diceRoller = htmlData.getDiceRoller();
+        if (diceRoller != null) {
+            diceRoller.reset();
+        }
+
+        DecodeResult result = null;
+        long signatureHits = SignatureCache.getThreadHitCount();
+        long diceNanos = ForumDecoder.getThreadDiceNanos();
         if (htmlData.isInBackList()) {
             builder.append("<h5>[屏蔽]</h5>");
-        } else if (TextUtils.isEmpty(htmlData.getAlertInfo()) && TextUtils.isEmpty(htmlData.getRawData())) {
+        } else if (StringUtils.isEmpty(htmlData.getAlertInfo()) && StringUtils.isEmpty(rawData)) {
             builder.append("<h5>[隐藏]</h5>");
         } else {
-            if (!TextUtils.isEmpty(htmlData.getSubject())) {
-                builder.append(String.format("<div class='title'>%s</div><br>", htmlData.getSubject()));
+            if (!StringUtils.isEmpty(htmlData.getSubject())) {
+                builder.append("<div class='title'>").append(ForumDiceDecoder.roll(htmlData.getSubject(), diceRoller)).append("</div><br>");
+            }
+            result = ForumDecoder.decodeResult(rawData, htmlData);
+            if (images != null) {
+                images.addAll(result.getImageUrls());
             }
-            String ngaHtml = ForumDecoder.decode(htmlData.getRawData(), htmlData, images);
-            if (TextUtils.isEmpty(ngaHtml)) {
-                ngaHtml = htmlData.getAlertInfo();
+            String ngaHtml = result.getHtml();
+            if (StringUtils.isEmpty(ngaHtml)) {
+                ngaHtml = ForumDiceDecoder.roll(htmlData.getAlertInfo(), diceRoller);
             }
             builder.append(ngaHtml);
             HtmlBuilder.build(builder, htmlData, images);
         }
 
-        String html = builder.toString();
-        String style = htmlData.isDarkMode() ? "style_dark.css" : "style_light.css";
-        return String.format(sHtmlTemplate, style, html);
+        String html = builder.append(sHtmlTemplate[2]).toString();
+        recycleBuilder(builder);
+        if (result == null) {
+            return new DecodeResult(html, images != null ? images : Collections.emptyList(), false, 0);
+        }
+        return new DecodeResult(html, images != null ? images : Collections.emptyList(), result.isTokenizerUsed(),
+                result.getDecodeNanos(), result.isTimedOut(), (int) (SignatureCache.getThreadHitCount() - signatureHits),
+                ForumDecoder.getThreadDiceNanos() - diceNanos);
     }
 
 
@@ -0,0 +1,36 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * [album=标题]&lt;br/&gt;./a.jpg&lt;br/&gt;./b.jpg[/album]
+ */
+public class AlbumNode extends TagNode {
+
+    private final String mTitle;
+
+    private final List<String> mUrls;
+
+    AlbumNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children, String title, List<String> urls) {
+        super(openToken, closeToken, children);
+        mTitle = title;
+        mUrls = Collections.unmodifiableList(urls);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_ALBUM;
+    }
+
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * 以换行分隔的图片地址, 使用 [img] 的相册为空, 图片在子节点中
+     */
+    public List<String> getUrls() {
+        return mUrls;
+    }
+}
@@ -0,0 +1,219 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 一条帖子内容解析后的结果, 创建后不可修改, 可以在多个线程中共享
+ * <p>
+ * 原文中的 &amp;amp; 会先还原成 &amp;, 词法单元和节点的位置都基于还原后的 {@link #getSource()}
+ */
+public class BBCodeDocument {
+
+    private static final String ESCAPED_AMP = "&amp;";
+
+    private static final Pattern PATTERN_REPLY_TO = Pattern.compile("\\[b\\]Reply to \\[pid=\\d+,\\d+,\\d+\\]Reply\\[/pid\\] Post by .+?\\[/b\\]");
+
+    private final String mRawText;
+
+    private final String mSource;
+
+    /**
+     * 还原 &amp;amp; 的位置, 用于换算回原文中的位置
+     */
+    private final int[] mAmpOffsets;
+
+    private final List<BBCodeToken> mTokens;
+
+    private final Set<String> mTagNames;
+
+    private volatile TagNode mRoot;
+
+    private BBCodeDocument(String rawText, String source, int[] ampOffsets, List<BBCodeToken> tokens) {
+        mRawText = rawText;
+        mSource = source;
+        mAmpOffsets = ampOffsets;
+        mTokens = Collections.unmodifiableList(tokens);
+        Set<String> tagNames = new HashSet<>();
+        for (BBCodeToken token : tokens) {
+            if (token.isTag()) {
+                tagNames.add(token.getName());
+            }
+        }
+        mTagNames = Collections.unmodifiableSet(tagNames);
+    }
+
+    public static BBCodeDocument parse(String rawText) {
+        if (rawText == null) {
+            rawText = "";
+        }
+        int[] ampOffsets = new int[0];
+        int count = 0;
+        String source = rawText;
+        int index = indexOfEscapedAmp(rawText, 0);
+        if (index >= 0) {
+            StringBuilder builder = new StringBuilder(rawText.length());
+            int from = 0;
+            while (index >= 0) {
+                builder.append(rawText, from, index).append('&');
+                if (count == ampOffsets.length) {
+                    ampOffsets = Arrays.copyOf(ampOffsets, Math.max(8, count * 2));
+                }
+                ampOffsets[count++] = builder.length();
+                from = index + ESCAPED_AMP.length();
+                index = indexOfEscapedAmp(rawText, from);
+            }
+            source = builder.append(rawText, from, rawText.length()).toString();
+        }
+        return new BBCodeDocument(rawText, source, Arrays.copyOf(ampOffsets, count), BBCodeLexer.tokenize(source));
+    }
+
+    private static int indexOfEscapedAmp(String text, int from) {
+        int index = text.indexOf('&', from);
+        while (index >= 0) {
+            if (text.regionMatches(true, index, ESCAPED_AMP, 0, ESCAPED_AMP.length())) {
+                return index;
+            }
+            index = text.indexOf('&', index + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * 解析前的原文
+     */
+    public String getRawText() {
+        return mRawText;
+    }
+
+    public String getSource() {
+        return mSource;
+    }
+
+    public List<BBCodeToken> getTokens() {
+        return mTokens;
+    }
+
+    /**
+     * 出现过的标签名, 小写
+     */
+    public boolean containsTag(String name) {
+        return mTagNames.contains(name);
+    }
+
+    /**
+     * 根节点, 第一次访问时创建
+     */
+    public TagNode getRoot() {
+        TagNode root = mRoot;
+        if (root == null) {
+            synchronized (this) {
+                root = mRoot;
+                if (root == null) {
+                    root = new BBCodeParser(mSource, mTokens).parse();
+                    mRoot = root;
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * 非递归的深度优先遍历, 避免嵌套过深时栈溢出
+     */
+    public void walk(BBCodeVisitor visitor) {
+        List<BBCodeNode> nodes = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        TagNode root = getRoot();
+        if (!visitor.visit(root)) {
+            visitor.leave(root);
+            return;
+        }
+        nodes.add(root);
+        indexes.add(0);
+        while (!nodes.isEmpty()) {
+            int last = nodes.size() - 1;
+            BBCodeNode node = nodes.get(last);
+            int index = indexes.get(last);
+            List<BBCodeNode> children = node.getChildren();
+            if (index >= children.size()) {
+                nodes.remove(last);
+                indexes.remove(last);
+                visitor.leave(node);
+                continue;
+            }
+            indexes.set(last, index + 1);
+            BBCodeNode child = children.get(index);
+            if (visitor.visit(child) && !child.getChildren().isEmpty()) {
+                nodes.add(child);
+                indexes.add(0);
+            } else {
+                visitor.leave(child);
+            }
+        }
+    }
+
+    /**
+     * 按出现顺序返回所有图片地址, 包括相册中的图片
+     */
+    public List<String> getImageUrls() {
+        List<String> urls = new ArrayList<>();
+        walk(node -> {
+            if (node.getType() == BBCodeNode.TYPE_IMAGE) {
+                String url = ((ImageNode) node).getImageUrl();
+                if (url != null) {
+                    urls.add(url);
+                }
+            } else if (node.getType() == BBCodeNode.TYPE_ALBUM) {
+                for (String url : ((AlbumNode) node).getUrls()) {
+                    url = ImageNode.toImageUrl(url);
+                    if (url != null) {
+                        urls.add(url);
+                    }
+                }
+            }
+            return true;
+        });
+        return urls;
+    }
+
+    /**
+     * 引用回复时使用的原文: 去掉其中的引用和 "Reply to" 回复头
+     */
+    public String getQuoteText() {
+        StringBuilder builder = new StringBuilder(mRawText.length());
+        int[] from = {0};
+        walk(node -> {
+            if (node.getType() == BBCodeNode.TYPE_QUOTE || isReplyHeader(node)) {
+                builder.append(mRawText, toRawOffset(from[0]), toRawOffset(node.getStart()));
+                from[0] = node.getEnd();
+                return false;
+            }
+            return true;
+        });
+        return builder.append(mRawText, toRawOffset(from[0]), mRawText.length()).toString();
+    }
+
+    /**
+     * [b]Reply to [pid=...]Reply[/pid] Post by ...[/b] 形式的回复头
+     */
+    public boolean isReplyHeader(BBCodeNode node) {
+        return node instanceof TagNode && ((TagNode) node).isClosed() && ((TagNode) node).getName().equals("b")
+                && PATTERN_REPLY_TO.matcher(mSource).region(node.getStart(), node.getEnd()).matches();
+    }
+
+    /**
+     * {@link #getSource()} 中的位置换算回原文中的位置
+     */
+    public int toRawOffset(int offset) {
+        int index = Arrays.binarySearch(mAmpOffsets, offset);
+        int count = index >= 0 ? index + 1 : -index - 1;
+        // 还原后的 & 位于 mAmpOffsets[i] - 1, 其后的位置在原文中多出 4 个字符
+        return offset + count * (ESCAPED_AMP.length() - 1);
+    }
+}
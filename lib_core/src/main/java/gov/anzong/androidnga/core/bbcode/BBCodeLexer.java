@@ -0,0 +1,111 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把帖子原文一次性切分成文本和标签, 不做任何替换
+ * <p>
+ * 标签为 '[' 到下一个 ']' 之间的内容, 中间遇到 '[' 或换行则前面的 '[' 按普通文本处理
+ */
+public class BBCodeLexer {
+
+    private BBCodeLexer() {
+    }
+
+    public static List<BBCodeToken> tokenize(String source) {
+        List<BBCodeToken> tokens = new ArrayList<>();
+        int length = source.length();
+        int textStart = 0;
+        int textLine = 0;
+        int line = 0;
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '[') {
+                int end = findTagEnd(source, i);
+                if (end > 0) {
+                    if (textStart < i) {
+                        tokens.add(new BBCodeToken(BBCodeToken.TYPE_TEXT, textStart, i, textLine));
+                    }
+                    tokens.add(createTag(source, i, end + 1, line));
+                    i = end + 1;
+                    textStart = i;
+                    textLine = line;
+                    continue;
+                }
+            } else if (isLineTerminator(c)) {
+                line++;
+            }
+            i++;
+        }
+        if (textStart < length) {
+            tokens.add(new BBCodeToken(BBCodeToken.TYPE_TEXT, textStart, length, textLine));
+        }
+        return tokens;
+    }
+
+    private static int findTagEnd(String source, int start) {
+        int length = source.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == ']') {
+                return i;
+            } else if (c == '[' || isLineTerminator(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static BBCodeToken createTag(String source, int start, int end, int line) {
+        int nameStart = start + 1;
+        boolean closing = source.charAt(nameStart) == '/';
+        if (closing) {
+            nameStart++;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < end - 1 && isAsciiLetter(source.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart && nameEnd < end - 1) {
+            char c = source.charAt(nameEnd);
+            if (c == '*' || c == '@') {
+                nameEnd++;
+            }
+        }
+        String name = toLowerCase(source, nameStart, nameEnd);
+        return new BBCodeToken(BBCodeToken.TYPE_TAG, start, end, nameEnd, line, closing, name);
+    }
+
+    private static String toLowerCase(String source, int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            chars[i - start] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return new String(chars);
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 与 java.util.regex 中 '.' 不匹配的字符保持一致
+     */
+    public static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 与 java.util.regex 中 '\s' 保持一致
+     */
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+}
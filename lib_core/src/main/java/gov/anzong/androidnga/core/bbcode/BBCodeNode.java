@@ -0,0 +1,63 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 帖子内容树的节点, 创建后不可修改, 只记录在 {@link BBCodeDocument#getSource()} 中的位置
+ */
+public abstract class BBCodeNode {
+
+    public static final int TYPE_TEXT = 0;
+
+    public static final int TYPE_TAG = 1;
+
+    public static final int TYPE_QUOTE = 2;
+
+    public static final int TYPE_IMAGE = 3;
+
+    public static final int TYPE_LINK = 4;
+
+    public static final int TYPE_TABLE = 5;
+
+    public static final int TYPE_DICE = 6;
+
+    public static final int TYPE_COLLAPSE = 7;
+
+    public static final int TYPE_EMOTICON = 8;
+
+    public static final int TYPE_ALBUM = 9;
+
+    private final int mStart;
+
+    private final int mEnd;
+
+    BBCodeNode(int start, int end) {
+        mStart = start;
+        mEnd = end;
+    }
+
+    public abstract int getType();
+
+    /**
+     * 在原文中的起始位置, 包含开标签
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * 在原文中的结束位置(不包含), 包含闭标签
+     */
+    public int getEnd() {
+        return mEnd;
+    }
+
+    public List<BBCodeNode> getChildren() {
+        return Collections.emptyList();
+    }
+
+    public String getText(String source) {
+        return source.substring(mStart, mEnd);
+    }
+}
@@ -0,0 +1,172 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把词法单元组装成树: 闭标签匹配最近的同名开标签, 中间未闭合的开标签及其内容提升到上一层, 多余的闭标签作为叶子
+ */
+class BBCodeParser {
+
+    private static final String BREAK = "<br/>";
+
+    private final String mSource;
+
+    private final List<BBCodeToken> mTokens;
+
+    private final List<Frame> mStack = new ArrayList<>();
+
+    private final Map<String, Integer> mOpenCount = new HashMap<>();
+
+    private static class Frame {
+
+        final BBCodeToken token;
+
+        final List<BBCodeNode> children = new ArrayList<>();
+
+        Frame(BBCodeToken token) {
+            this.token = token;
+        }
+    }
+
+    BBCodeParser(String source, List<BBCodeToken> tokens) {
+        mSource = source;
+        mTokens = tokens;
+    }
+
+    TagNode parse() {
+        mStack.add(new Frame(null));
+        for (BBCodeToken token : mTokens) {
+            if (token.isText()) {
+                top().children.add(new TextNode(token.getStart(), token.getEnd()));
+            } else if (token.isClosing()) {
+                close(token);
+            } else if (isLeaf(token)) {
+                top().children.add(createLeaf(token));
+            } else {
+                mStack.add(new Frame(token));
+                mOpenCount.merge(token.getName(), 1, Integer::sum);
+            }
+        }
+        while (mStack.size() > 1) {
+            unwind();
+        }
+        BBCodeToken root = new BBCodeToken(BBCodeToken.TYPE_TEXT, 0, 0, 0);
+        BBCodeToken end = new BBCodeToken(BBCodeToken.TYPE_TEXT, mSource.length(), mSource.length(), 0);
+        return new TagNode(root, end, top().children);
+    }
+
+    private Frame top() {
+        return mStack.get(mStack.size() - 1);
+    }
+
+    private void close(BBCodeToken token) {
+        Integer count = mOpenCount.get(token.getName());
+        if (count == null || count == 0) {
+            top().children.add(new TagNode(token, null, Collections.emptyList()));
+            return;
+        }
+        while (!top().token.getName().equals(token.getName())) {
+            unwind();
+        }
+        Frame frame = mStack.remove(mStack.size() - 1);
+        mOpenCount.put(token.getName(), count - 1);
+        top().children.add(createNode(frame.token, token, frame.children));
+    }
+
+    /**
+     * 未闭合的开标签作为叶子, 其内容归还给上一层
+     */
+    private void unwind() {
+        Frame frame = mStack.remove(mStack.size() - 1);
+        mOpenCount.merge(frame.token.getName(), -1, Integer::sum);
+        List<BBCodeNode> children = top().children;
+        children.add(new TagNode(frame.token, null, Collections.emptyList()));
+        children.addAll(frame.children);
+    }
+
+    private boolean isLeaf(BBCodeToken token) {
+        switch (token.getName()) {
+            case "":
+            case "s":
+            case "*":
+            case "@":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private BBCodeNode createLeaf(BBCodeToken token) {
+        if (token.getName().equals("s") && token.hasAttr() && mSource.charAt(token.getAttrStart()) == ':') {
+            int start = token.getAttrStart() + 1;
+            int end = token.getAttrEnd();
+            int colon = mSource.indexOf(':', start);
+            if (colon < 0 || colon >= end) {
+                return new EmoticonNode(token, "", mSource.substring(start, end));
+            }
+            return new EmoticonNode(token, mSource.substring(start, colon), mSource.substring(colon + 1, end));
+        }
+        return new TagNode(token, null, Collections.emptyList());
+    }
+
+    private BBCodeNode createNode(BBCodeToken open, BBCodeToken close, List<BBCodeNode> children) {
+        switch (open.getName()) {
+            case "quote":
+                return new QuoteNode(open, close, children);
+            case "table":
+                return new TableNode(open, close, children);
+            case "img":
+                return new ImageNode(open, close, children, content(open, close).trim());
+            case "url":
+                return new LinkNode(open, close, children, hasValue(open) ? value(open) : content(open, close).trim());
+            case "dice":
+                return new DiceNode(open, close, children, content(open, close));
+            case "collapse":
+                return new CollapseNode(open, close, children, hasValue(open) ? value(open) : null);
+            case "album":
+                return new AlbumNode(open, close, children, hasValue(open) ? value(open) : "", albumUrls(open, close));
+            default:
+                return new TagNode(open, close, children);
+        }
+    }
+
+    private String content(BBCodeToken open, BBCodeToken close) {
+        return mSource.substring(open.getEnd(), close.getStart());
+    }
+
+    private boolean hasValue(BBCodeToken token) {
+        return token.hasAttr() && mSource.charAt(token.getAttrStart()) == '=';
+    }
+
+    private String value(BBCodeToken token) {
+        return mSource.substring(token.getAttrStart() + 1, token.getAttrEnd());
+    }
+
+    /**
+     * 与 ForumAlbumDecoder 一致, 以换行开头的相册内容按换行分隔成图片
+     */
+    private List<String> albumUrls(BBCodeToken open, BBCodeToken close) {
+        String content = content(open, close);
+        if (!content.startsWith(BREAK)) {
+            return Collections.emptyList();
+        }
+        List<String> urls = new ArrayList<>();
+        int start = BREAK.length();
+        while (start <= content.length()) {
+            int end = content.indexOf(BREAK, start);
+            if (end < 0) {
+                end = content.length();
+            }
+            String url = content.substring(start, end).trim();
+            if (!url.isEmpty()) {
+                urls.add(url);
+            }
+            start = end + BREAK.length();
+        }
+        return urls;
+    }
+}
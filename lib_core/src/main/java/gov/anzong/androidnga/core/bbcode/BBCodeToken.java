@@ -0,0 +1,136 @@
+package gov.anzong.androidnga.core.bbcode;
+
+/**
+ * 词法单元, 只记录在原文中的位置, 不复制文本
+ */
+public class BBCodeToken {
+
+    public static final int TYPE_TEXT = 0;
+
+    public static final int TYPE_TAG = 1;
+
+    private final int mType;
+
+    private final int mStart;
+
+    private final int mEnd;
+
+    private final int mNameEnd;
+
+    private final int mLine;
+
+    private final boolean mClosing;
+
+    private final String mName;
+
+    BBCodeToken(int type, int start, int end, int line) {
+        this(type, start, end, end, line, false, "");
+    }
+
+    BBCodeToken(int type, int start, int end, int nameEnd, int line, boolean closing, String name) {
+        mType = type;
+        mStart = start;
+        mEnd = end;
+        mNameEnd = nameEnd;
+        mLine = line;
+        mClosing = closing;
+        mName = name;
+    }
+
+    public int getType() {
+        return mType;
+    }
+
+    public boolean isText() {
+        return mType == TYPE_TEXT;
+    }
+
+    public boolean isTag() {
+        return mType == TYPE_TAG;
+    }
+
+    /**
+     * 在原文中的起始位置, 标签包含 '['
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * 在原文中的结束位置(不包含), 标签包含 ']'
+     */
+    public int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * 之前出现过的换行符个数, 用于模拟正则中 '.' 不能跨行的语义
+     */
+    public int getLine() {
+        return mLine;
+    }
+
+    public boolean isClosing() {
+        return mClosing;
+    }
+
+    /**
+     * 小写的标签名, 文本为空串
+     */
+    public String getName() {
+        return mName;
+    }
+
+    public boolean isOpen(String name) {
+        return mType == TYPE_TAG && !mClosing && mName.equals(name);
+    }
+
+    public boolean isClose(String name) {
+        return mType == TYPE_TAG && mClosing && mName.equals(name);
+    }
+
+    /**
+     * 属性部分在原文中的起始位置, 即标签名之后的第一个字符
+     */
+    public int getAttrStart() {
+        return mNameEnd;
+    }
+
+    /**
+     * 属性部分在原文中的结束位置, 即 ']' 所在位置
+     */
+    public int getAttrEnd() {
+        return mType == TYPE_TAG ? mEnd - 1 : mEnd;
+    }
+
+    public boolean hasAttr() {
+        return getAttrEnd() > mNameEnd;
+    }
+
+    public String getAttr(String source) {
+        return source.substring(mNameEnd, getAttrEnd());
+    }
+
+    public int length() {
+        return mEnd - mStart;
+    }
+
+    /**
+     * 整个单元是否与 literal 完全一致
+     */
+    public boolean matches(String source, String literal, boolean ignoreCase) {
+        return literal.length() == mEnd - mStart && source.regionMatches(ignoreCase, mStart, literal, 0, literal.length());
+    }
+
+    public boolean matches(String source, String literal) {
+        return matches(source, literal, false);
+    }
+
+    /**
+     * 属性部分是否与 literal 完全一致
+     */
+    public boolean attrMatches(String source, String literal, boolean ignoreCase) {
+        int attrEnd = getAttrEnd();
+        return literal.length() == attrEnd - mNameEnd && source.regionMatches(ignoreCase, mNameEnd, literal, 0, literal.length());
+    }
+}
@@ -0,0 +1,15 @@
+package gov.anzong.androidnga.core.bbcode;
+
+/**
+ * 深度优先遍历 {@link BBCodeDocument}
+ */
+public interface BBCodeVisitor {
+
+    /**
+     * @return 是否继续遍历子节点
+     */
+    boolean visit(BBCodeNode node);
+
+    default void leave(BBCodeNode node) {
+    }
+}
@@ -0,0 +1,25 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [collapse=标题]...[/collapse], 没有标题时 {@link #getTitle()} 为 null
+ */
+public class CollapseNode extends TagNode {
+
+    private final String mTitle;
+
+    CollapseNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children, String title) {
+        super(openToken, closeToken, children);
+        mTitle = title;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_COLLAPSE;
+    }
+
+    public String getTitle() {
+        return mTitle;
+    }
+}
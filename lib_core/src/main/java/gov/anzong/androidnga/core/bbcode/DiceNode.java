@@ -0,0 +1,25 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [dice]2d6+1[/dice]
+ */
+public class DiceNode extends TagNode {
+
+    private final String mExpression;
+
+    DiceNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children, String expression) {
+        super(openToken, closeToken, children);
+        mExpression = expression;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_DICE;
+    }
+
+    public String getExpression() {
+        return mExpression;
+    }
+}
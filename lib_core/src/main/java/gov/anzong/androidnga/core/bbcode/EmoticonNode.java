@@ -0,0 +1,32 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.Collections;
+
+/**
+ * [s:ac:blink] 或旧版的 [s:12], 旧版表情的分类为空串
+ */
+public class EmoticonNode extends TagNode {
+
+    private final String mCategory;
+
+    private final String mName;
+
+    EmoticonNode(BBCodeToken token, String category, String name) {
+        super(token, null, Collections.emptyList());
+        mCategory = category;
+        mName = name;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_EMOTICON;
+    }
+
+    public String getCategory() {
+        return mCategory;
+    }
+
+    public String getEmoticonName() {
+        return mName;
+    }
+}
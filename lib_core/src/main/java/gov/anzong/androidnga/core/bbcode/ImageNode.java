@@ -0,0 +1,68 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [img]./mon_xxx.jpg[/img] 或 [img]http://...[/img]
+ */
+public class ImageNode extends TagNode {
+
+    public static final String NGA_ATTACHMENT_HOST = "img.nga.178.com";
+
+    private static final String[] THUMB_SUFFIXES = {".thumb_s.jpg", ".medium.jpg", ".thumb.jpg", ".thumb_ss.jpg"};
+
+    private final String mUrl;
+
+    ImageNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children, String url) {
+        super(openToken, closeToken, children);
+        mUrl = url;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_IMAGE;
+    }
+
+    /**
+     * 标签内的原始地址
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * 补全附件域名并去掉缩略图后缀后的地址, 无法识别时为 null
+     */
+    public String getImageUrl() {
+        return toImageUrl(mUrl);
+    }
+
+    public static String toImageUrl(String url) {
+        if (url == null || url.isEmpty() || url.indexOf('|') >= 0) {
+            return null;
+        }
+        if (url.startsWith("./")) {
+            url = "http://" + NGA_ATTACHMENT_HOST + "/attachments" + url.substring(1);
+        } else if (!url.regionMatches(true, 0, "http", 0, 4) || url.length() == 4) {
+            return null;
+        }
+        return stripThumbSuffix(url);
+    }
+
+    /**
+     * xxx.jpg.medium.jpg -> xxx.jpg
+     */
+    public static String stripThumbSuffix(String url) {
+        for (String suffix : THUMB_SUFFIXES) {
+            if (url.endsWith(suffix)) {
+                String origin = url.substring(0, url.length() - suffix.length());
+                int dot = origin.length() - 4;
+                if (dot > 4 && origin.charAt(dot) == '.' && (origin.endsWith("png") || origin.endsWith("jpg") || origin.endsWith("gif"))) {
+                    return origin;
+                }
+                return url;
+            }
+        }
+        return url;
+    }
+}
@@ -0,0 +1,25 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [url]http://...[/url] 或 [url=http://...]...[/url]
+ */
+public class LinkNode extends TagNode {
+
+    private final String mHref;
+
+    LinkNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children, String href) {
+        super(openToken, closeToken, children);
+        mHref = href;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_LINK;
+    }
+
+    public String getHref() {
+        return mHref;
+    }
+}
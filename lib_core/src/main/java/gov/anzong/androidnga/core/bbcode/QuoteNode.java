@@ -0,0 +1,18 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [quote]...[/quote]
+ */
+public class QuoteNode extends TagNode {
+
+    QuoteNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children) {
+        super(openToken, closeToken, children);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_QUOTE;
+    }
+}
@@ -0,0 +1,183 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * 判断帖子内容是否只包含简单节点, 这样的内容不需要 WebView, 可以直接用 TextView 显示
+ * <p>
+ * 简单节点: 文本, [b] [i] [u] [del], [quote], 只有文字的 [url], 表情, [@用户名], [uid] 和回复中的 [pid=...]Reply[/pid];
+ * 图片, 表格, 折叠, 骰子, 相册, 颜色字号等样式以及没有闭合的标签都不是简单节点
+ */
+public class SimpleContentChecker {
+
+    private static final String BREAK = "<br/>";
+
+    private static final String BREAK_SHORT = "<br>";
+
+    private static final String REPLY = "Reply";
+
+    private SimpleContentChecker() {
+    }
+
+    public static boolean isSimple(BBCodeDocument document) {
+        if (document == null) {
+            return false;
+        }
+        String source = document.getSource();
+        boolean[] simple = {true};
+        document.walk(node -> {
+            if (!simple[0]) {
+                return false;
+            }
+            if (node == document.getRoot()) {
+                return true;
+            }
+            simple[0] = isSimpleNode(source, node);
+            return simple[0];
+        });
+        return simple[0];
+    }
+
+    private static boolean isSimpleNode(String source, BBCodeNode node) {
+        switch (node.getType()) {
+            case BBCodeNode.TYPE_TEXT:
+                return isSimpleText(source, node.getStart(), node.getEnd());
+            case BBCodeNode.TYPE_QUOTE:
+                return true;
+            case BBCodeNode.TYPE_EMOTICON:
+                // 旧版的 [s:12] 是网络图片
+                return !((EmoticonNode) node).getCategory().isEmpty();
+            case BBCodeNode.TYPE_LINK:
+                return isSimpleLink(source, (LinkNode) node);
+            case BBCodeNode.TYPE_TAG:
+                return isSimpleTag(source, (TagNode) node);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isSimpleTag(String source, TagNode node) {
+        String name = node.getName();
+        if (!node.isClosed()) {
+            // 不是标签的方括号按原文显示
+            if (name.isEmpty()) {
+                return true;
+            }
+            return name.equals("@") && isMention(node);
+        }
+        switch (name) {
+            case "b":
+            case "i":
+            case "u":
+            case "del":
+                return true;
+            case "uid":
+                return isTextOnly(source, node) && isDigits(source, node.getOpenToken(), true);
+            case "pid":
+                return isReplyLink(source, node);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 与 ForumBasicDecoder 中的 [@(.{2,20}?)] 一致
+     */
+    private static boolean isMention(TagNode node) {
+        BBCodeToken token = node.getOpenToken();
+        int length = token.getAttrEnd() - token.getAttrStart();
+        return !token.isClosing() && length >= 2 && length <= 20;
+    }
+
+    private static boolean isSimpleLink(String source, LinkNode node) {
+        String href = node.getHref();
+        if (href.isEmpty() || href.indexOf('|') >= 0 || href.indexOf('[') >= 0 || href.indexOf(']') >= 0) {
+            return false;
+        }
+        return isTextOnly(source, node) && (node.getOpenToken().hasAttr() || node.getChildren().size() == 1);
+    }
+
+    /**
+     * [pid=1,2,3]Reply[/pid]
+     */
+    private static boolean isReplyLink(String source, TagNode node) {
+        BBCodeToken token = node.getOpenToken();
+        if (!token.hasAttr() || source.charAt(token.getAttrStart()) != '=') {
+            return false;
+        }
+        String value = source.substring(token.getAttrStart() + 1, token.getAttrEnd());
+        return getReplyPid(value) != null && REPLY.equals(node.getContent(source));
+    }
+
+    /**
+     * @param value [pid=...] 中 = 之后的部分, 格式为 pid,tid,page
+     * @return pid 和 tid, 格式不对时返回 null
+     */
+    public static String[] getReplyPid(String value) {
+        String[] values = value.split(",", -1);
+        if (values.length != 3 || values[0].isEmpty() || values[1].isEmpty() || values[2].isEmpty()) {
+            return null;
+        }
+        return new String[]{values[0], values[1]};
+    }
+
+    private static boolean isDigits(String source, BBCodeToken token, boolean allowNegative) {
+        int start = token.getAttrStart();
+        int end = token.getAttrEnd();
+        if (start < end && source.charAt(start) == '=') {
+            start++;
+        }
+        if (allowNegative && start < end && source.charAt(start) == '-') {
+            start++;
+        }
+        if (end - start > 50) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 只有一段不跨行的文字
+     */
+    private static boolean isTextOnly(String source, TagNode node) {
+        List<BBCodeNode> children = node.getChildren();
+        if (children.isEmpty()) {
+            return false;
+        }
+        for (BBCodeNode child : children) {
+            if (child.getType() != BBCodeNode.TYPE_TEXT) {
+                return false;
+            }
+            for (int i = child.getStart(); i < child.getEnd(); i++) {
+                if (BBCodeLexer.isLineTerminator(source.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 原文中的 html 只有换行
+     */
+    private static boolean isSimpleText(String source, int start, int end) {
+        int index = source.indexOf('<', start);
+        while (index >= 0 && index < end) {
+            if (source.startsWith(BREAK, index)) {
+                index += BREAK.length();
+            } else if (source.startsWith(BREAK_SHORT, index)) {
+                index += BREAK_SHORT.length();
+            } else {
+                return false;
+            }
+            index = source.indexOf('<', index);
+        }
+        return true;
+    }
+}
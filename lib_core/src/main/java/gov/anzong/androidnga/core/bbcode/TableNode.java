@@ -0,0 +1,18 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.List;
+
+/**
+ * [table]...[/table]
+ */
+public class TableNode extends TagNode {
+
+    TableNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children) {
+        super(openToken, closeToken, children);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_TABLE;
+    }
+}
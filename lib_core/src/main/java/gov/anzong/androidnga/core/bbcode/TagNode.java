@@ -0,0 +1,64 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 标签节点, 没有找到闭标签时 {@link #getCloseToken()} 为 null 且没有子节点
+ */
+public class TagNode extends BBCodeNode {
+
+    private final BBCodeToken mOpenToken;
+
+    private final BBCodeToken mCloseToken;
+
+    private final List<BBCodeNode> mChildren;
+
+    TagNode(BBCodeToken openToken, BBCodeToken closeToken, List<BBCodeNode> children) {
+        super(openToken.getStart(), closeToken != null ? closeToken.getEnd() : openToken.getEnd());
+        mOpenToken = openToken;
+        mCloseToken = closeToken;
+        mChildren = children.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_TAG;
+    }
+
+    public String getName() {
+        return mOpenToken.getName();
+    }
+
+    public BBCodeToken getOpenToken() {
+        return mOpenToken;
+    }
+
+    public BBCodeToken getCloseToken() {
+        return mCloseToken;
+    }
+
+    public boolean isClosed() {
+        return mCloseToken != null;
+    }
+
+    @Override
+    public List<BBCodeNode> getChildren() {
+        return mChildren;
+    }
+
+    /**
+     * 开闭标签之间的内容
+     */
+    public int getContentStart() {
+        return mOpenToken.getEnd();
+    }
+
+    public int getContentEnd() {
+        return mCloseToken != null ? mCloseToken.getStart() : mOpenToken.getEnd();
+    }
+
+    public String getContent(String source) {
+        return source.substring(getContentStart(), getContentEnd());
+    }
+}
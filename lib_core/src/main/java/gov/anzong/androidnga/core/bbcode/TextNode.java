@@ -0,0 +1,16 @@
+package gov.anzong.androidnga.core.bbcode;
+
+/**
+ * 普通文本, 包括没有配对的标签以外的所有内容
+ */
+public class TextNode extends BBCodeNode {
+
+    TextNode(int start, int end) {
+        super(start, end);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_TEXT;
+    }
+}
@@ -44,9 +44,10 @@ public class HtmlAttachmentBuilder implements IHtmlBuild {
             attachUrlThumb = attachUrlThumb + ".thumb.jpg";
         }
         ret.append("<tr><td>")
-                .append(String.format("<button id='show%s' type='button' onclick='displayImg(%s,\"%s\")'>点击显示附件</button>", indexStr, indexStr, attachUrlThumb))
-                .append(String.format("<a href=%s>", attachUrl))
-                .append(String.format("<img style='max-width:100%%'; id='img%s'/>", indexStr))
+                .append("<button id='show").append(indexStr).append("' type='button' onclick='displayImg(")
+                .append(indexStr).append(",\"").append(attachUrlThumb).append("\")'>点击显示附件</button>")
+                .append("<a href=").append(attachUrl).append(">")
+                .append("<img style='max-width:100%'; id='img").append(indexStr).append("'/>")
                 .append("</a></td></tr>");
         if (!imageUrls.contains(attachUrl)) {
             imageUrls.add(attachUrl);
@@ -56,11 +57,10 @@ public class HtmlAttachmentBuilder implements IHtmlBuild {
     }
 
     @Override
-    public CharSequence build(HtmlData htmlData, List<String> images) {
+    public void build(StringBuilder ret, HtmlData htmlData, List<String> images) {
         if (htmlData.getAttachmentList() == null || htmlData.getAttachmentList().isEmpty()) {
-            return "";
+            return;
         }
-        StringBuilder ret = new StringBuilder();
         ret.append("<br/><br/>附件<hr/><br/>");
         if (htmlData.isDarkMode()) {
             ret.append("<table style='border:1px solid #b9986e;padding:10px;color:#6b2d25;font-size:10'>");
@@ -68,30 +68,23 @@ public class HtmlAttachmentBuilder implements IHtmlBuild {
             ret.append("<table style='border:1px solid #b9986e;padding:10px;color:#6b2d25;font-size:10'>");
         }
         ret.append("<tbody>");
-        int attachmentCount = 0;
         int imageAttachmentCount = 0;
 
         for (AttachmentData attach : htmlData.getAttachmentList()) {
             String attachUrl = attach.getAttachUrl();
             if (attachUrl.contains("mp3")) {
-                ret = buildAudioAttachment(ret, attach);
+                buildAudioAttachment(ret, attach);
             } else if (attachUrl.contains("mp4")) {
-                ret = buildVideoAttachment(ret,attach);
+                buildVideoAttachment(ret, attach);
             } else {
                 imageAttachmentCount++;
                 buildImageAttachment(ret, attach, imageAttachmentCount, images);
             }
-            attachmentCount++;
         }
 
         if (imageAttachmentCount > 0) {
             ret.append("<script> function displayImg(a,b){ document.getElementById('img'+a).src=b; document.getElementById('show' + a).style.display='none'; } </script>");
         }
         ret.append("</tbody></table>");
-        if (attachmentCount == 0) {
-            return "";
-        } else {
-            return ret;
-        }
     }
 }
@@ -21,7 +21,7 @@ public class HtmlBuilder {
 
     public static void build(StringBuilder builder, HtmlData htmlData,  List<String> images) {
         for (IHtmlBuild build : sHtmlBuilders) {
-            builder.append(build.build(htmlData, images));
+            build.build(builder, htmlData, images);
         }
     }
 
@@ -1,51 +1,55 @@
 package gov.anzong.androidnga.core.corebuild;
 
-import android.text.TextUtils;
+import java.util.List;
 
-import gov.anzong.androidnga.common.util.FileUtils;
 import gov.anzong.androidnga.core.data.CommentData;
 import gov.anzong.androidnga.core.data.HtmlData;
 import gov.anzong.androidnga.core.decode.ForumDecoder;
+import gov.anzong.androidnga.core.util.AssetUtils;
+import gov.anzong.androidnga.core.util.StringUtils;
 
 /**
  * Created by Justwen on 2018/8/28.
  */
 public class HtmlCommentBuilder implements IHtmlBuild {
 
-    private volatile static String sFormattedHtml;
+    private volatile static String[] sTemplate;
 
-
-    private static String getFormattedHtml() {
-        if (sFormattedHtml == null) {
-            sFormattedHtml = FileUtils.readAssetToString("html/html_comment_template.html");
+    /**
+     * 模板以 %s 为界拆成首尾两段
+     */
+    private static String[] getTemplate() {
+        if (sTemplate == null) {
+            String template = AssetUtils.readToString("html/html_comment_template.html");
+            int index = template.indexOf("%s");
+            sTemplate = new String[]{template.substring(0, index), template.substring(index + 2)};
         }
-        return sFormattedHtml;
+        return sTemplate;
     }
 
     @Override
-    public CharSequence build(HtmlData htmlData) {
+    public void build(StringBuilder out, HtmlData htmlData, List<String> images) {
 
         if (htmlData.getCommentList() == null || htmlData.getCommentList().isEmpty()) {
-            return "";
+            return;
         }
-        StringBuilder ret = new StringBuilder();
+        String[] template = getTemplate();
+        out.append(template[0]);
         for (CommentData comment : htmlData.getCommentList()) {
             String author = comment.getAuthor();
             String avatarUrl = comment.getAvatarUrl(); //FunctionUtils.parseAvatarUrl(comment.getJs_escap_avatar());
-            if (TextUtils.isEmpty(avatarUrl)) {
+            if (StringUtils.isEmpty(avatarUrl)) {
                 avatarUrl = "file:///android_asset/default_avatar.png";
             }
             String content = comment.getContent();
             int end = content.indexOf("[/b]");
-            String time = '(' + comment.getPostTime() + ')';
             content = content.substring(end + 4);
             content = ForumDecoder.decode(content, htmlData, null);
-            ret.append(String.format("<tr><td width='10%%'> <img class='circle' src='%s' />  <span style='font-weight:bold'>%s %s</span>%s</td></tr>",
-                    avatarUrl, author, time, content));
-
+            out.append("<tr><td width='10%'> <img class='circle' src='").append(avatarUrl)
+                    .append("' />  <span style='font-weight:bold'>").append(author)
+                    .append(" (").append(comment.getPostTime()).append(")</span>")
+                    .append(content).append("</td></tr>");
         }
-
-        String htmlText = getFormattedHtml();
-        return String.format(htmlText, ret.toString());
+        out.append(template[1]);
     }
 }
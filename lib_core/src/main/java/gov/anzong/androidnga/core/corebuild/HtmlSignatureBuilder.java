@@ -1,9 +1,9 @@
 package gov.anzong.androidnga.core.corebuild;
 
-import android.text.TextUtils;
+import java.util.List;
 
 import gov.anzong.androidnga.core.data.HtmlData;
-import gov.anzong.androidnga.core.decode.ForumDecoder;
+import gov.anzong.androidnga.core.util.StringUtils;
 
 /**
  *
@@ -12,14 +12,12 @@ import gov.anzong.androidnga.core.decode.ForumDecoder;
  */
 public class HtmlSignatureBuilder implements IHtmlBuild {
 
-    private static final String HTML_VOTE = "<br/></br>签名<hr/><br/>%s";
+    private static final String HTML_SIGNATURE_HEAD = "<br/></br>签名<hr/><br/>";
 
     @Override
-    public CharSequence build(HtmlData htmlData) {
-        if (TextUtils.isEmpty(htmlData.getSignature())) {
-            return "";
-        } else {
-            return String.format(HTML_VOTE, ForumDecoder.decode(htmlData.getSignature(), htmlData));
+    public void build(StringBuilder out, HtmlData htmlData, List<String> images) {
+        if (!StringUtils.isEmpty(htmlData.getSignature())) {
+            out.append(HTML_SIGNATURE_HEAD).append(SignatureCache.getInstance().decode(htmlData));
         }
     }
 }
@@ -1,8 +1,15 @@
 package gov.anzong.androidnga.core.corebuild;
 
+import java.util.List;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+
 /**
  * Created by Justwen on 2018/8/28.
  */
 public class HtmlTailBuilder implements IHtmlBuild {
 
+    @Override
+    public void build(StringBuilder out, HtmlData htmlData, List<String> images) {
+    }
 }
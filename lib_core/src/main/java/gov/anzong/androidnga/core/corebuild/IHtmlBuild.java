@@ -6,11 +6,8 @@ import gov.anzong.androidnga.core.data.HtmlData;
 
 public interface IHtmlBuild {
 
-    default CharSequence build(HtmlData htmlData) {
-        return "";
-    }
-
-    default CharSequence build(HtmlData htmlData, List<String> images) {
-        return build(htmlData);
-    }
+    /**
+     * 直接写入 out, 不生成中间字符串
+     */
+    void build(StringBuilder out, HtmlData htmlData, List<String> images);
 }
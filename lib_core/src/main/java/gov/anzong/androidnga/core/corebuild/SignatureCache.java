@@ -0,0 +1,163 @@
+package gov.anzong.androidnga.core.corebuild;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.anzong.androidnga.core.data.DecodeResult;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.data.VoteData;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+import gov.anzong.androidnga.core.util.StringUtils;
+
+/**
+ * 解析后的签名 html, 同一个作者的签名在一页中通常出现多次, 只解析一次
+ * <p>
+ * key 由作者 id, 签名的 hash 和影响解析结果的设置组成, 命中时还要比较签名原文; 按字符数 LRU 淘汰
+ */
+public class SignatureCache {
+
+    /**
+     * 按字符数计算, 约 512KB
+     */
+    private static final int MAX_CHARS = 256 * 1024;
+
+    private static final String TAG_DICE = "[dice]";
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private int mChars;
+
+    private final AtomicLong mHits = new AtomicLong();
+
+    private final AtomicLong mMisses = new AtomicLong();
+
+    private final AtomicLong mBypasses = new AtomicLong();
+
+    /**
+     * 当前线程累计命中次数, 用来统计一次转换中节省的解析
+     */
+    private static final ThreadLocal<long[]> sThreadHits = new ThreadLocal<>();
+
+    private static class Entry {
+
+        private final String signature;
+
+        private final String html;
+
+        Entry(String signature, String html) {
+            this.signature = signature;
+            this.html = html;
+        }
+    }
+
+    private static class SingletonHolder {
+
+        private static SignatureCache sInstance = new SignatureCache();
+    }
+
+    public static SignatureCache getInstance() {
+        return SingletonHolder.sInstance;
+    }
+
+    private SignatureCache() {
+    }
+
+    /**
+     * 返回解析后的签名, 结果和 {@link ForumDecoder#decode(String, HtmlData)} 相同
+     */
+    public String decode(HtmlData htmlData) {
+        String signature = htmlData.getSignature();
+        if (StringUtils.isEmpty(signature)) {
+            return signature;
+        }
+        // 骰子要按顺序消耗随机数, 评分模板的结果和所在的回复有关, 这两种情况每次都解析
+        VoteData voteData = htmlData.getVoteData();
+        if (voteData != null && voteData.getScoreOption() != null
+                || htmlData.getDiceRoller() != null && signature.contains(TAG_DICE)) {
+            mBypasses.incrementAndGet();
+            return ForumDecoder.decode(signature, htmlData);
+        }
+        String key = buildKey(htmlData);
+        Entry entry;
+        synchronized (mEntries) {
+            entry = mEntries.get(key);
+        }
+        if (entry != null && entry.signature.equals(signature)) {
+            mHits.incrementAndGet();
+            long[] threadHits = sThreadHits.get();
+            if (threadHits == null) {
+                threadHits = new long[1];
+                sThreadHits.set(threadHits);
+            }
+            threadHits[0]++;
+            return entry.html;
+        }
+        mMisses.incrementAndGet();
+        DecodeResult result = ForumDecoder.decodeResult(signature, htmlData);
+        if (!result.isTimedOut()) {
+            put(key, new Entry(signature, result.getHtml()));
+        }
+        return result.getHtml();
+    }
+
+    private static String buildKey(HtmlData htmlData) {
+        return htmlData.getAuthorId() + "_" + htmlData.getSignature().hashCode()
+                + "_" + htmlData.isDarkMode()
+                + "_" + htmlData.isShowImage()
+                + "_" + ForumDecoder.isTokenizerEnabled()
+                + "_" + htmlData.getNGAHost();
+    }
+
+    private void put(String key, Entry entry) {
+        int size = entry.html.length();
+        if (size > MAX_CHARS) {
+            return;
+        }
+        synchronized (mEntries) {
+            Entry previous = mEntries.put(key, entry);
+            if (previous != null) {
+                mChars -= previous.html.length();
+            }
+            mChars += size;
+            Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+            while (mChars > MAX_CHARS && iterator.hasNext()) {
+                mChars -= iterator.next().getValue().html.length();
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (mEntries) {
+            mEntries.clear();
+            mChars = 0;
+        }
+    }
+
+    /**
+     * 当前线程累计命中的次数, 转换前后相减得到这次转换节省的解析次数
+     */
+    public static long getThreadHitCount() {
+        long[] threadHits = sThreadHits.get();
+        return threadHits == null ? 0 : threadHits[0];
+    }
+
+    /**
+     * 节省的解析次数
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    public String getStats() {
+        int size;
+        synchronized (mEntries) {
+            size = mEntries.size();
+        }
+        return String.format(Locale.getDefault(), "saved %d, decoded %d, bypass %d, size %d",
+                mHits.get(), mMisses.get(), mBypasses.get(), size);
+    }
+}
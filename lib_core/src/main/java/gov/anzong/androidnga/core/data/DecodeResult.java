@@ -0,0 +1,90 @@
+package gov.anzong.androidnga.core.data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次解析的结果, 创建后不可修改
+ */
+public class DecodeResult {
+
+    private final String mHtml;
+
+    private final List<String> mImageUrls;
+
+    private final boolean mTokenizerUsed;
+
+    private final long mDecodeNanos;
+
+    private final boolean mTimedOut;
+
+    private final int mSignatureHits;
+
+    private final long mDiceNanos;
+
+    public DecodeResult(String html, List<String> imageUrls, boolean tokenizerUsed, long decodeNanos) {
+        this(html, imageUrls, tokenizerUsed, decodeNanos, false);
+    }
+
+    public DecodeResult(String html, List<String> imageUrls, boolean tokenizerUsed, long decodeNanos, boolean timedOut) {
+        this(html, imageUrls, tokenizerUsed, decodeNanos, timedOut, 0);
+    }
+
+    public DecodeResult(String html, List<String> imageUrls, boolean tokenizerUsed, long decodeNanos, boolean timedOut, int signatureHits) {
+        this(html, imageUrls, tokenizerUsed, decodeNanos, timedOut, signatureHits, 0);
+    }
+
+    public DecodeResult(String html, List<String> imageUrls, boolean tokenizerUsed, long decodeNanos, boolean timedOut, int signatureHits,
+                        long diceNanos) {
+        mHtml = html;
+        mImageUrls = Collections.unmodifiableList(imageUrls);
+        mTokenizerUsed = tokenizerUsed;
+        mDecodeNanos = decodeNanos;
+        mTimedOut = timedOut;
+        mSignatureHits = signatureHits;
+        mDiceNanos = diceNanos;
+    }
+
+    public String getHtml() {
+        return mHtml;
+    }
+
+    /**
+     * 按出现顺序排列的图片地址
+     */
+    public List<String> getImageUrls() {
+        return mImageUrls;
+    }
+
+    /**
+     * 是否使用了 {@link gov.anzong.androidnga.core.decode.ForumTokenDecoder}
+     */
+    public boolean isTokenizerUsed() {
+        return mTokenizerUsed;
+    }
+
+    public long getDecodeNanos() {
+        return mDecodeNanos;
+    }
+
+    /**
+     * 解析超时, html 是没有解析的原文
+     */
+    public boolean isTimedOut() {
+        return mTimedOut;
+    }
+
+    /**
+     * 签名命中 {@link gov.anzong.androidnga.core.corebuild.SignatureCache} 而省去的解析次数
+     */
+    public int getSignatureHits() {
+        return mSignatureHits;
+    }
+
+    /**
+     * 其中 {@link gov.anzong.androidnga.core.decode.ForumDiceDecoder} 的耗时, 包含在 {@link #getDecodeNanos()} 中
+     */
+    public long getDiceNanos() {
+        return mDiceNanos;
+    }
+}
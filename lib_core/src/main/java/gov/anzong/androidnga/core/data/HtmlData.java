@@ -2,6 +2,9 @@ package gov.anzong.androidnga.core.data;
 
 import java.util.List;
 
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.decode.DiceRoller;
+
 public class HtmlData implements Cloneable {
 
     private boolean mInBackList;
@@ -24,6 +27,8 @@ public class HtmlData implements Cloneable {
 
     private String mVote;
 
+    private VoteData mVoteData;
+
     private String mSignature;
 
     private String mNGAHost;
@@ -32,6 +37,12 @@ public class HtmlData implements Cloneable {
 
     private List<AttachmentData> mAttachmentList;
 
+    private BBCodeDocument mDocument;
+
+    private DiceRoller mDiceRoller;
+
+    private int mAuthorId;
+
     public HtmlData(String rawData) {
         mRawData = rawData;
     }
@@ -111,6 +122,22 @@ public class HtmlData implements Cloneable {
 
     public void setVote(String vote) {
         mVote = vote;
+        mVoteData = null;
+    }
+
+    /**
+     * 没有通过 {@link #setVoteData} 设置时从 {@link #getVote()} 解析, 没有投票时为 null
+     */
+    public VoteData getVoteData() {
+        if (mVoteData == null && mVote != null && !mVote.isEmpty()) {
+            mVoteData = VoteData.parse(mVote);
+        }
+        return mVoteData;
+    }
+
+    public void setVoteData(VoteData voteData) {
+        mVoteData = voteData;
+        mVote = voteData != null ? voteData.getRawData() : null;
     }
 
     public String getSignature() {
@@ -145,6 +172,39 @@ public class HtmlData implements Cloneable {
         mNGAHost = NGAHost;
     }
 
+    /**
+     * 已经解析好的 mRawData, 可以为空
+     */
+    public BBCodeDocument getDocument() {
+        return mDocument;
+    }
+
+    public void setDocument(BBCodeDocument document) {
+        mDocument = document;
+    }
+
+    /**
+     * 为空时不掷骰子
+     */
+    public DiceRoller getDiceRoller() {
+        return mDiceRoller;
+    }
+
+    public void setDiceRoller(DiceRoller diceRoller) {
+        mDiceRoller = diceRoller;
+    }
+
+    /**
+     * 回复作者的 id, 用于缓存签名, 没有时为 0
+     */
+    public int getAuthorId() {
+        return mAuthorId;
+    }
+
+    public void setAuthorId(int authorId) {
+        mAuthorId = authorId;
+    }
+
     public static HtmlData create(String rawData, String host) {
         HtmlData htmlData = new HtmlData(rawData);
         htmlData.setNGAHost(host);
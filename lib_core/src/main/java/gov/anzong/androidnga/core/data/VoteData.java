@@ -0,0 +1,184 @@
+package gov.anzong.androidnga.core.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回复中的投票数据, 由 "type~2~max~10~0~选项~_0~12,95" 这样 ~ 分隔的键值对解析得到, 创建后不可修改
+ * <p>
+ * 数字 key 是选项, 值是选项内容; "_" + 选项 id 的值是 "人数,总分"
+ */
+public class VoteData {
+
+    /**
+     * 普通投票, 没有 type 时也按投票处理
+     */
+    public static final int TYPE_VOTE = 1;
+
+    /**
+     * 评分, 显示平均分和评分人数
+     */
+    public static final int TYPE_SCORE = 2;
+
+    /**
+     * 只显示选项内容作为总分
+     */
+    public static final int TYPE_TOTAL = 3;
+
+    public static final int TYPE_UNKNOWN = 0;
+
+    private final String mRawData;
+
+    private final int mType;
+
+    private final List<Option> mOptions;
+
+    public static class Option {
+
+        private final String mId;
+
+        private final String mContent;
+
+        private final String mUserCount;
+
+        private final String mAverageScore;
+
+        Option(String id, String content, String userCount, String averageScore) {
+            mId = id;
+            mContent = content;
+            mUserCount = userCount;
+            mAverageScore = averageScore;
+        }
+
+        public String getId() {
+            return mId;
+        }
+
+        public String getContent() {
+            return mContent;
+        }
+
+        public String getUserCount() {
+            return mUserCount;
+        }
+
+        /**
+         * 满分按 10 分换算后的平均分, 只有评分有
+         */
+        public String getAverageScore() {
+            return mAverageScore;
+        }
+    }
+
+    private VoteData(String rawData, int type, List<Option> options) {
+        mRawData = rawData;
+        mType = type;
+        mOptions = Collections.unmodifiableList(options);
+    }
+
+    /**
+     * @return rawData 为空时返回 null
+     */
+    @Nullable
+    public static VoteData parse(String rawData) {
+        if (rawData == null || rawData.isEmpty()) {
+            return null;
+        }
+        String[] values = rawData.split("~");
+        Map<String, String> map = new HashMap<>();
+        List<String> optionIds = new ArrayList<>();
+        for (int i = 0; i + 1 < values.length; i += 2) {
+            if (map.put(values[i], values[i + 1]) == null && isDigits(values[i])) {
+                optionIds.add(values[i]);
+            }
+        }
+        // 按选项 id 的数值排序, 和网页版的显示顺序一致
+        Collections.sort(optionIds, (lhs, rhs) -> lhs.length() != rhs.length()
+                ? Integer.compare(lhs.length(), rhs.length()) : lhs.compareTo(rhs));
+
+        int type = parseType(map.get("type"));
+        List<Option> options = new ArrayList<>(optionIds.size());
+        for (String id : optionIds) {
+            String[] result = split(map.get("_" + id));
+            String averageScore = type == TYPE_SCORE ? computeAverageScore(result, map.get("max")) : null;
+            options.add(new Option(id, map.get(id), result[0], averageScore));
+        }
+        return new VoteData(rawData, type, options);
+    }
+
+    private static int parseType(String type) {
+        if (type == null || type.equals("1")) {
+            return TYPE_VOTE;
+        } else if (type.equals("2")) {
+            return TYPE_SCORE;
+        } else if (type.equals("3")) {
+            return TYPE_TOTAL;
+        } else {
+            return TYPE_UNKNOWN;
+        }
+    }
+
+    private static boolean isDigits(String str) {
+        if (str.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 人数和总分, 没有时都是 "0"
+     */
+    private static String[] split(String result) {
+        String[] values = result != null ? result.split(",") : new String[0];
+        return new String[]{values.length > 0 ? values[0] : "0", values.length > 1 ? values[1] : "0"};
+    }
+
+    private static String computeAverageScore(String[] result, String max) {
+        try {
+            float getScore = Float.parseFloat(result[1]) * 1000;
+            float totalScore = Float.parseFloat(result[0]) * Float.parseFloat(max);
+            return String.valueOf(Math.round(getScore / totalScore) / 100f);
+        } catch (NumberFormatException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    public String getRawData() {
+        return mRawData;
+    }
+
+    public int getType() {
+        return mType;
+    }
+
+    public List<Option> getOptions() {
+        return mOptions;
+    }
+
+    /**
+     * 正文中的 $votedata_voteavgvalue 和 $votedata_usernum 取第一个有平均分的选项
+     */
+    @Nullable
+    public Option getScoreOption() {
+        if (mType != TYPE_SCORE) {
+            return null;
+        }
+        for (Option option : mOptions) {
+            if (option.getAverageScore() != null) {
+                return option;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package gov.anzong.androidnga.core.decode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 当前线程正在解析的回复的截止时间
+ * <p>
+ * 正则回溯时会反复调用 charAt, 所以把内容包装成 {@link DeadlineCharSequence} 交给 Matcher, 超时后在 charAt 中抛出
+ * {@link DecodeTimeoutException} 打断匹配
+ */
+final class DecodeDeadline {
+
+    /**
+     * 每调用这么多次 charAt 检查一次时间
+     */
+    private static final int CHECK_INTERVAL = 4096;
+
+    private static final ThreadLocal<long[]> sDeadline = new ThreadLocal<>();
+
+    private DecodeDeadline() {
+    }
+
+    /**
+     * @param timeoutMillis 小于等于 0 时不限时
+     */
+    static void start(long timeoutMillis) {
+        if (timeoutMillis > 0) {
+            long now = System.nanoTime();
+            sDeadline.set(new long[]{now, now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)});
+        }
+    }
+
+    static void clear() {
+        sDeadline.remove();
+    }
+
+    static void check() {
+        long[] deadline = sDeadline.get();
+        if (deadline != null) {
+            check(deadline);
+        }
+    }
+
+    private static void check(long[] deadline) {
+        long now = System.nanoTime();
+        if (now - deadline[1] > 0) {
+            throw new DecodeTimeoutException(TimeUnit.NANOSECONDS.toMillis(now - deadline[0]));
+        }
+    }
+
+    /**
+     * 没有设置截止时间时直接返回 content
+     */
+    static CharSequence wrap(String content) {
+        long[] deadline = sDeadline.get();
+        return deadline == null ? content : new DeadlineCharSequence(content, 0, content.length(), deadline);
+    }
+
+    private static class DeadlineCharSequence implements CharSequence {
+
+        private final String mContent;
+
+        private final int mStart;
+
+        private final int mEnd;
+
+        private final long[] mDeadline;
+
+        private int mCount;
+
+        DeadlineCharSequence(String content, int start, int end, long[] deadline) {
+            mContent = content;
+            mStart = start;
+            mEnd = end;
+            mDeadline = deadline;
+        }
+
+        @Override
+        public int length() {
+            return mEnd - mStart;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++mCount == CHECK_INTERVAL) {
+                mCount = 0;
+                check(mDeadline);
+            }
+            return mContent.charAt(mStart + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || start > end || end > length()) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+            }
+            return new DeadlineCharSequence(mContent, mStart + start, mStart + end, mDeadline);
+        }
+
+        @Override
+        public String toString() {
+            return mContent.substring(mStart, mEnd);
+        }
+    }
+}
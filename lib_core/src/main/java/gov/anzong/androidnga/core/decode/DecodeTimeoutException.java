@@ -0,0 +1,11 @@
+package gov.anzong.androidnga.core.decode;
+
+/**
+ * 单条回复解析超过时限, 由 {@link ForumDecoder} 捕获后按原文显示
+ */
+public class DecodeTimeoutException extends RuntimeException {
+
+    public DecodeTimeoutException(long elapsedMillis) {
+        super("decode timeout after " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,38 @@
+package gov.anzong.androidnga.core.decode;
+
+/**
+ * 一条回复中掷骰子的随机数序列, 和网页版一样由作者, 主题和回复的 id 决定, 同一条回复每次结果相同
+ * <p>
+ * 按回复中骰子出现的顺序依次取值, 不能在多个线程中同时使用
+ */
+public class DiceRoller {
+
+    private final double mInitialSeed;
+
+    private double mSeed;
+
+    public DiceRoller(int authorId, int tid, int pid) {
+        mInitialSeed = authorId + tid + pid;
+    }
+
+    /**
+     * 回到序列开头, 重新转换同一条回复前调用
+     */
+    public void reset() {
+        mSeed = 0;
+    }
+
+    /**
+     * @return [0, 1) 之间的随机数
+     */
+    public double next() {
+        if (mSeed == 0.0) {
+            mSeed = mInitialSeed;
+            if (mSeed == 0.0) {
+                mSeed = Math.floor(Math.random() * 10000);
+            }
+        }
+        mSeed = (mSeed * 9301 + 49297) % 233280;
+        return mSeed / 233280.0;
+    }
+}
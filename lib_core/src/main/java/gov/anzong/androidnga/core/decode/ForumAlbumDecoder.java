@@ -4,34 +4,87 @@ import gov.anzong.androidnga.core.data.HtmlData;
 
 /**
  * Created by Justwen on 2018/8/25.
+ * <p>
+ * [album=标题]<br/>./a.jpg<br/>./b.jpg[/album] 展开成引用块和 [img] 列表, 只扫描一遍, 图片由 {@link ForumImageDecoder} 继续处理
  */
 public class ForumAlbumDecoder implements IForumDecoder {
 
+    private static final String TAG_ALBUM_START = "[album=";
+
+    private static final String TAG_ALBUM_END = "[/album]";
+
+    private static final String BR = "<br/>";
+
+    private static final String QUOTE_STYLE = "<div style='background:#E8E8E8;padding:5px;border:1px solid #888' >";
+
+    private static final String QUOTE_STYLE_DARK = "<div style='background:#000000;padding:5px;border:1px solid #888' >";
+
     @Override
     public String decode(String content, HtmlData htmlData) {
-        String quoteStyle = "<div style='background:#E8E8E8;padding:5px;border:1px solid #888' >";
-        if (htmlData != null && htmlData.isDarkMode())
-            quoteStyle = "<div style='background:#000000;padding:5px;border:1px solid #888' >";
-        int startpos = content.indexOf("[album=");
-        int endpos = content.indexOf("[/album]") + 8;
-        String sup = "", sdown = "", salbum = "", stemp = "", stitle = "";
-        while (startpos < endpos && startpos >= 0) {
-            sup = content.substring(0, startpos);
-            if (endpos >= 0)
-                sdown = content.substring(endpos, content.length());
-            salbum = content.substring(startpos, endpos);
-            stitle = salbum.replaceAll("(?i)" + "\\[album=(.*?)\\](.*?)\\[/album\\]", "$1");
-            stemp = salbum.replaceAll("(?i)" + "\\[album=(.*?)\\](.*?)\\[/album\\]", "$2");
-            if (stemp.startsWith("<br/>")) {
-                stemp = "[img]" + stemp.substring(5) + "[/img]";
+        int start = content.indexOf(TAG_ALBUM_START);
+        if (start < 0) {
+            return content;
+        }
+        String quoteStyle = htmlData != null && htmlData.isDarkMode() ? QUOTE_STYLE_DARK : QUOTE_STYLE;
+        StringBuilder out = new StringBuilder(content.length() + 256);
+        int from = 0;
+        while (start >= 0) {
+            // 没有结束标签或者结束标签在前面时不再处理后面的相册
+            int end = content.indexOf(TAG_ALBUM_END, from);
+            if (end < start) {
+                break;
+            }
+            end += TAG_ALBUM_END.length();
+            out.append(content, from, start);
+            appendAlbum(out, content, start, end, quoteStyle);
+            from = end;
+            start = content.indexOf(TAG_ALBUM_START, from);
+        }
+        out.append(content, from, content.length());
+        return out.toString();
+    }
+
+    private static void appendAlbum(StringBuilder out, String content, int start, int end, String quoteStyle) {
+        int titleStart = start + TAG_ALBUM_START.length();
+        int bodyEnd = end - TAG_ALBUM_END.length();
+        int titleEnd = content.indexOf(']', titleStart);
+        int bodyStart;
+        if (titleEnd >= 0 && titleEnd < bodyEnd && !containsLineBreak(content, titleStart, bodyEnd)) {
+            bodyStart = titleEnd + 1;
+        } else {
+            // 和原先的正则一样, 匹配不到时标题和内容都是整个相册标签
+            titleStart = bodyStart = start;
+            titleEnd = bodyEnd = end;
+        }
+        out.append(BR).append(quoteStyle).append("相册列表:").append(content, titleStart, titleEnd).append(BR).append(BR);
+        boolean wrap = content.startsWith(BR, bodyStart);
+        if (wrap) {
+            out.append("[img]");
+            bodyStart += BR.length();
+        }
+        int index = content.indexOf(BR, bodyStart);
+        while (index >= 0 && index + BR.length() <= bodyEnd) {
+            out.append(content, bodyStart, index).append("[/img]<br/><br/>[img]");
+            bodyStart = index + BR.length();
+            index = content.indexOf(BR, bodyStart);
+        }
+        out.append(content, bodyStart, bodyEnd);
+        if (wrap) {
+            out.append("[/img]");
+        }
+        out.append("</div>");
+    }
+
+    /**
+     * 正则中的 . 不匹配换行符
+     */
+    private static boolean containsLineBreak(String content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
             }
-            stitle = "相册列表:" + stitle + "<br/>";
-            stemp = stemp.replaceAll("<br/>", "[/img]<br/><br/>[img]");
-            stemp = "<br/>" + quoteStyle + stitle + "<br/>" + stemp + "</div>";
-            content = sup + stemp + sdown;
-            startpos = content.indexOf("[album=");
-            endpos = content.indexOf("[/album]") + 8;
         }
-        return content;
+        return false;
     }
 }
@@ -3,8 +3,12 @@ package gov.anzong.androidnga.core.decode;
 import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.data.DecodeResult;
 import gov.anzong.androidnga.core.data.HtmlData;
 
 /**
@@ -12,28 +16,117 @@ import gov.anzong.androidnga.core.data.HtmlData;
  */
 public class ForumDecoder {
 
-    private static List<IForumDecoder> sDecoderPool = new ArrayList<>();
+    /**
+     * 解析器都不保存状态, 可以在多个线程中同时使用
+     */
+    private static final List<IForumDecoder> sDecoders = Collections.unmodifiableList(Arrays.asList(
+            new ForumBasicDecoder(),
+            new ForumAlbumDecoder(),
+            new ForumEmoticonDecoder(),
+            new ForumImageDecoder(),
+            new ForumDiceDecoder()));
 
-    static {
-        sDecoderPool.add(new ForumBasicDecoder());
-        sDecoderPool.add(new ForumAlbumDecoder());
-        sDecoderPool.add(new ForumEmoticonDecoder());
-        sDecoderPool.add(new ForumImageDecoder());
+    private static final IForumDecoder sTokenDecoder = new ForumTokenDecoder();
+
+    private static volatile boolean sTokenizerEnabled;
+
+    /**
+     * 单条回复的解析时限, 正常的回复通常在 10ms 以内
+     */
+    public static final long DEFAULT_DECODE_TIMEOUT_MILLIS = 1000;
+
+    private static volatile long sDecodeTimeoutMillis = DEFAULT_DECODE_TIMEOUT_MILLIS;
+
+    /**
+     * 当前线程累计的掷骰子耗时, 正文, 贴条和签名分别解析, 用差值统计一次转换的总耗时
+     */
+    private static final ThreadLocal<long[]> sThreadDiceNanos = new ThreadLocal<>();
+
+    /**
+     * 使用单遍解析的 {@link ForumTokenDecoder} 代替 {@link ForumBasicDecoder}
+     */
+    public static void setTokenizerEnabled(boolean enabled) {
+        sTokenizerEnabled = enabled;
     }
 
-    public static String decode(String rawData, @NonNull HtmlData htmlData, List<String> urls) {
+    public static boolean isTokenizerEnabled() {
+        return sTokenizerEnabled;
+    }
+
+    /**
+     * 超时的回复不再解析, 直接显示原文, 见 {@link DecodeResult#isTimedOut()}
+     *
+     * @param timeoutMillis 小于等于 0 时不限时
+     */
+    public static void setDecodeTimeout(long timeoutMillis) {
+        sDecodeTimeoutMillis = timeoutMillis;
+    }
+
+    public static long getThreadDiceNanos() {
+        long[] nanos = sThreadDiceNanos.get();
+        return nanos != null ? nanos[0] : 0;
+    }
+
+    private static void addThreadDiceNanos(long diceNanos) {
+        long[] nanos = sThreadDiceNanos.get();
+        if (nanos == null) {
+            nanos = new long[1];
+            sThreadDiceNanos.set(nanos);
+        }
+        nanos[0] += diceNanos;
+    }
+
+    /**
+     * 线程安全, 可以同时解析多条回复
+     */
+    public static DecodeResult decodeResult(String rawData, @NonNull HtmlData htmlData) {
+        long start = System.nanoTime();
         String content = rawData;
-        for (IForumDecoder decoder : sDecoderPool) {
-            content = decoder.decode(content, htmlData);
-            if (urls != null && decoder.getImageUrls() != null && !decoder.getImageUrls().isEmpty()) {
-                urls.addAll(decoder.getImageUrls());
+        boolean tokenizerEnabled = sTokenizerEnabled;
+        BBCodeDocument document = tokenizerEnabled ? htmlData.getDocument() : null;
+        if (document != null && !document.getRawText().equals(rawData)) {
+            document = null;
+        }
+        List<String> urls = new ArrayList<>();
+        long diceNanos = 0;
+        DecodeDeadline.start(sDecodeTimeoutMillis);
+        try {
+            for (IForumDecoder decoder : sDecoders) {
+                if (tokenizerEnabled && decoder instanceof ForumBasicDecoder) {
+                    decoder = sTokenDecoder;
+                }
+                if (decoder instanceof ForumDiceDecoder) {
+                    long diceStart = System.nanoTime();
+                    content = decoder.decode(content, htmlData, null);
+                    diceNanos = System.nanoTime() - diceStart;
+                    addThreadDiceNanos(diceNanos);
+                } else {
+                    content = decoder.decode(content, htmlData, document == null ? urls : null);
+                }
+                DecodeDeadline.check();
             }
+        } catch (DecodeTimeoutException e) {
+            // 不再尝试解析, 原文中的换行和转义字符由服务器处理过, 可以直接显示
+            return new DecodeResult(rawData, Collections.emptyList(), tokenizerEnabled, System.nanoTime() - start, true);
+        } finally {
+            DecodeDeadline.clear();
+        }
+        if (document != null) {
+            urls.addAll(document.getImageUrls());
+        }
+        return new DecodeResult(content, urls, tokenizerEnabled, System.nanoTime() - start, false, 0, diceNanos);
+    }
+
+    public static String decode(String rawData, @NonNull HtmlData htmlData, List<String> urls) {
+        DecodeResult result = decodeResult(rawData, htmlData);
+        if (urls != null) {
+            urls.addAll(result.getImageUrls());
         }
-        return content;
+        return result.getHtml();
     }
 
     public static String decode(String rawData, @NonNull HtmlData htmlData) {
-        return decode(rawData, htmlData, null);
+        return decodeResult(rawData, htmlData).getHtml();
     }
 
     public static String decodeBasic(String rawData) {
@@ -0,0 +1,158 @@
+package gov.anzong.androidnga.core.decode;
+
+import androidx.annotation.Nullable;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+
+/**
+ * [dice]2d6+3[/dice] 替换成掷骰子的结果, 只扫描一遍
+ * <p>
+ * 匹配规则和网页版的 \[dice].+?\[/dice\] 一致: 开闭标签之间至少一个字符并且不能换行, 随机数来自 {@link HtmlData#getDiceRoller()},
+ * 没有设置时原样保留
+ */
+public class ForumDiceDecoder implements IForumDecoder {
+
+    private static final String TAG_DICE_START = "[dice]";
+
+    private static final String TAG_DICE_END = "[/dice]";
+
+    private static final char LINE_SEPARATOR = 0x2028;
+
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    private static final int MAX_DICE_COUNT = 10;
+
+    private static final int MAX_DICE_COVERS = 100000;
+
+    @Override
+    public String decode(String content, @Nullable HtmlData htmlData) {
+        DiceRoller roller = htmlData != null ? htmlData.getDiceRoller() : null;
+        return roller == null ? content : roll(content, roller);
+    }
+
+    /**
+     * 标题和投票等不经过解析器的内容也要按出现顺序掷骰子, 保证和网页版的结果一致
+     */
+    public static String roll(String content, DiceRoller roller) {
+        if (content == null || roller == null) {
+            return content;
+        }
+        int start = content.indexOf(TAG_DICE_START);
+        if (start < 0) {
+            return content;
+        }
+        StringBuilder out = new StringBuilder(content.length() + 64);
+        int from = 0;
+        // 缓存上一次找到的闭标签和换行位置, 后面的开标签可以继续使用, 保证总体线性
+        int end = -1;
+        int lineEnd = -1;
+        while (start >= 0) {
+            int contentStart = start + TAG_DICE_START.length();
+            if (end < contentStart + 1) {
+                end = content.indexOf(TAG_DICE_END, contentStart + 1);
+                if (end < 0) {
+                    break;
+                }
+            }
+            if (lineEnd < contentStart) {
+                lineEnd = indexOfLineTerminator(content, contentStart);
+            }
+            if (lineEnd < end) {
+                start = content.indexOf(TAG_DICE_START, start + 1);
+                continue;
+            }
+            int matchEnd = end + TAG_DICE_END.length();
+            String result = rollExpression(content.substring(start, matchEnd), roller);
+            if (result == null) {
+                start = content.indexOf(TAG_DICE_START, start + 1);
+                continue;
+            }
+            out.append(content, from, start);
+            if (result.contains(TAG_DICE_START)) {
+                // 去掉标签后拼出了新的开标签, 结果需要和后面的内容一起重新匹配
+                content = result + content.substring(matchEnd);
+                from = 0;
+                end = -1;
+                lineEnd = -1;
+                start = content.indexOf(TAG_DICE_START);
+            } else {
+                out.append(result);
+                from = matchEnd;
+                start = content.indexOf(TAG_DICE_START, matchEnd);
+            }
+        }
+        return out.append(content, from, content.length()).toString();
+    }
+
+    /**
+     * 和正则中的 '.' 一致, 不匹配这些换行符
+     *
+     * @return 没有时返回 content.length()
+     */
+    private static int indexOfLineTerminator(String content, int from) {
+        for (int i = from; i < content.length(); i++) {
+            switch (content.charAt(i)) {
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case LINE_SEPARATOR:
+                case PARAGRAPH_SEPARATOR:
+                    return i;
+                default:
+                    break;
+            }
+        }
+        return content.length();
+    }
+
+    /**
+     * @param match 包括开闭标签
+     * @return 表达式中没有可以计算的部分时返回 null, 原样保留
+     */
+    private static String rollExpression(String match, DiceRoller roller) {
+        String expression = match.replace(TAG_DICE_START, "").replace(TAG_DICE_END, "");
+        StringBuilder diceStr = new StringBuilder();
+        StringBuilder rx = new StringBuilder();
+        int sum = 0;
+        for (String str : ("+" + expression).split("\\+")) {
+            if (str.length() == 0) {
+                continue;
+            }
+            String[] parts = str.split("d");
+            if (parts.length > 1) {
+                int num = parts[0].length() > 0 ? parseInt(parts[0], 1) : 1;
+                int covers = parseInt(parts[1], 0);
+                if (num > MAX_DICE_COUNT || covers > MAX_DICE_COVERS) {
+                    sum = -1;
+                    diceStr.append("+OUT OF LIMIT");
+                }
+                // 超出限制时也要取随机数, 后面骰子的结果才和网页版一致
+                for (int j = 0; j < num; j++) {
+                    double rand = Math.floor(roller.next() * covers) + 1;
+                    rx.append("+d").append(covers).append("(").append(Math.round(rand)).append(")");
+                    if (sum != -1) {
+                        sum += rand;
+                    }
+                }
+            } else {
+                int covers = parseInt(parts[0].trim(), 0);
+                sum += covers;
+                rx.append("+").append(covers);
+            }
+        }
+        if (rx.length() == 0) {
+            return null;
+        }
+        diceStr.append("<p><b>ROLL:").append(expression).append("</b>=").append(rx, 1, rx.length())
+                .append("=<b>").append(sum).append("</b></p>");
+        return diceStr.toString();
+    }
+
+    private static int parseInt(String str, int defaultWhenFailed) {
+        try {
+            return Integer.parseInt(str);
+        } catch (NumberFormatException e) {
+            return defaultWhenFailed;
+        }
+    }
+}
@@ -2,13 +2,9 @@ package gov.anzong.androidnga.core.decode;
 
 import static gov.anzong.androidnga.common.util.EmoticonUtils.EMOTICON_URL;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import gov.anzong.androidnga.base.util.StringUtils;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by Justwen on 2018/8/25.
@@ -145,7 +141,19 @@ public class ForumEmoticonDecoder implements IForumDecoder {
 
     private static final String HTML_EMOTICON_ACNIANG = "<img class='emoticon invertFilter' src='file:///android_asset/%s/%s'>";
 
-    private static Table<String, String, String> sEmotionTable = HashBasedTable.create();
+    private static final String EMOTICON_URL_FORMAT = "file:///android_asset/%s/%s";
+
+    private static final String EMOTICON_PREFIX = "[s:";
+
+    /**
+     * 所有 [s:category:name] 组成的字典树, 叶子节点保存格式化好的 html
+     */
+    private static final TrieNode sEmoticonTrie = new TrieNode();
+
+    /**
+     * category:name -> 表情图片地址, 用于不经过 html 显示表情
+     */
+    private static final Map<String, String> sEmoticonUrls = new HashMap<>();
 
     static {
         for (String[][] categoryEmoticons : EMOTICON_URL) {
@@ -162,30 +170,110 @@ public class ForumEmoticonDecoder implements IForumDecoder {
                 if (category == null || ubbCode == null || fileName == null) {
                     continue;
                 }
-                sEmotionTable.put(category, ubbCode, fileName);
+                String html = isInvertInDarkMode(category) ? HTML_EMOTICON_ACNIANG : HTML_EMOTICON;
+                sEmoticonTrie.put(EMOTICON_PREFIX + category + ":" + ubbCode + "]", String.format(html, category, fileName));
+                sEmoticonUrls.put(category + ":" + ubbCode, String.format(EMOTICON_URL_FORMAT, category, fileName));
             }
         }
     }
 
+    /**
+     * @return [s:category:name] 对应的图片地址, 不认识的表情返回 null, 和 {@link #decode(String)} 一样按原文显示
+     */
+    public static String getEmoticonUrl(String category, String name) {
+        return sEmoticonUrls.get(category + ":" + name);
+    }
+
+    /**
+     * AC 娘表情在夜间模式下反色显示, 与 style_dark.css 中的 invertFilter 一致
+     */
+    public static boolean isInvertInDarkMode(String category) {
+        return "ac".equals(category) || "a2".equals(category);
+    }
+
     // 解析从官方客户端和网页版发布的表情
     @Override
     public String decode(String content) {
-        Pattern pattern = StringUtils.getPattern("\\[s:(.*?):(.*?)]");
-        Matcher matcher = pattern.matcher(content);
-        while (matcher.find()) {
-            String matched = matcher.group(0);
-            String category = matcher.group(1);
-            String emoticon = matcher.group(2);
-            if (matched == null || category == null || emoticon == null) {
-                continue;
+        int index = content.indexOf(EMOTICON_PREFIX);
+        if (index < 0) {
+            return content;
+        }
+        StringBuilder builder = null;
+        int from = 0;
+        while (index >= 0) {
+            TrieNode node = sEmoticonTrie.match(content, index);
+            if (node != null) {
+                if (builder == null) {
+                    builder = new StringBuilder(content.length() + 256);
+                }
+                builder.append(content, from, index).append(node.mHtml);
+                from = index + node.mLength;
+                index = content.indexOf(EMOTICON_PREFIX, from);
+            } else {
+                index = content.indexOf(EMOTICON_PREFIX, index + 1);
             }
-            String image = sEmotionTable.get(category, emoticon);
-            if (image == null) {
-                continue;
+        }
+        if (builder == null) {
+            return content;
+        }
+        return builder.append(content, from, content.length()).toString();
+    }
+
+    private static class TrieNode {
+
+        private char[] mKeys = new char[0];
+
+        private TrieNode[] mChildren = new TrieNode[0];
+
+        private String mHtml;
+
+        private int mLength;
+
+        void put(String code, String html) {
+            TrieNode node = this;
+            for (int i = 0; i < code.length(); i++) {
+                node = node.getOrCreateChild(code.charAt(i));
+            }
+            node.mHtml = html;
+            node.mLength = code.length();
+        }
+
+        private TrieNode getOrCreateChild(char c) {
+            int index = Arrays.binarySearch(mKeys, c);
+            if (index >= 0) {
+                return mChildren[index];
+            }
+            index = -index - 1;
+            TrieNode child = new TrieNode();
+            char[] keys = new char[mKeys.length + 1];
+            TrieNode[] children = new TrieNode[mChildren.length + 1];
+            System.arraycopy(mKeys, 0, keys, 0, index);
+            System.arraycopy(mChildren, 0, children, 0, index);
+            keys[index] = c;
+            children[index] = child;
+            System.arraycopy(mKeys, index, keys, index + 1, mKeys.length - index);
+            System.arraycopy(mChildren, index, children, index + 1, mChildren.length - index);
+            mKeys = keys;
+            mChildren = children;
+            return child;
+        }
+
+        /**
+         * 从 start 开始匹配, 返回匹配到的叶子节点, 没有匹配时返回 null
+         */
+        TrieNode match(String content, int start) {
+            TrieNode node = this;
+            for (int i = start; i < content.length(); i++) {
+                int index = Arrays.binarySearch(node.mKeys, content.charAt(i));
+                if (index < 0) {
+                    return null;
+                }
+                node = node.mChildren[index];
+                if (node.mHtml != null) {
+                    return node;
+                }
             }
-            String html = "ac".equals(category) || "a2".equals(category) ? HTML_EMOTICON_ACNIANG : HTML_EMOTICON;
-            content = content.replace(matched, String.format(html, category, image));
+            return null;
         }
-        return content;
     }
 }
@@ -1,37 +1,49 @@
 package gov.anzong.androidnga.core.decode;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import gov.anzong.androidnga.base.util.StringUtils;
+import gov.anzong.androidnga.core.bbcode.BBCodeLexer;
 import gov.anzong.androidnga.core.data.HtmlData;
 
 /**
  * Created by Justwen on 2018/8/25.
+ * <p>
+ * 单次扫描完成 [img] 替换, 缩略图后缀还原, 无图模式占位和图片地址收集, 结果和原先的多遍正则替换一致:
+ * <ul>
+ * <li>[img]./xxx[/img] 和 [img]http...[/img], 地址中不能包含 [ | ]</li>
+ * <li>所有 http 开头的文本中 .gif.thumb.jpg 之类的后缀还原成 .gif</li>
+ * <li>链接中的 .png.thumb.jpg 和 .jpg.medium.jpg 之类的后缀去掉, 图片地址保持不变</li>
+ * <li>地址中带空白字符的图片不收集, 也不替换成占位图</li>
+ * </ul>
  */
 public class ForumImageDecoder implements IForumDecoder {
 
-    private List<String> mImageUrls = new ArrayList<>();
-
     private static final String HTML_EMOTICON = "<img class='emoticon' src='file:///android_asset/%s' >";
 
     private static final String HTML_IMG_DEFAULT = "<img src='file:///android_asset/ic_offline_image.png' >";
 
     private static final String HTML_IMG_LINK = "<a href='%s'>";
 
-    private static final String REGEX_IMG = IGNORE_CASE_TAG + "<img src='(http\\S+)'>";
+    private static final String NGA_ATTACHMENT_HOST = "img.nga.178.com";
 
-    private static final String REGEX_IMG_NO_HTTP = IGNORE_CASE_TAG + "\\[img]\\s*\\.(/[^\\[|\\]]+)\\s*\\[/img]";
+    private static final String NGA_ATTACHMENT_PREFIX = "http://" + NGA_ATTACHMENT_HOST + "/attachments";
 
-    private static final String REPLACE_IMG_NO_HTTP = "<a href='http://%1$s/attachments%2$s'><img src='http://%1$s/attachments%2$s'></a>";
+    private static final String TAG_IMG_START = "[img]";
 
-    private static final String REGEX_IMG_WITH_HTTP = IGNORE_CASE_TAG + "\\[img]\\s*(http[^\\[|\\]]+)\\s*\\[/img]";
+    private static final String TAG_IMG_END = "[/img]";
 
-    private static final String REPLACE_IMG_WITH_HTTP = "<a href='$1'><img src='$1'></a>";
+    private static final String HTTP = "http";
 
-    private static final String NGA_ATTACHMENT_HOST = "img.nga.178.com";
+    private static final String IMG_TAIL = "'></a>";
+
+    private static final String[] EXT_GIF = {"gif"};
+
+    private static final String[] EXT_THUMB = {"png", "jpg"};
+
+    /**
+     * 和正则 (thumb_s|medium|thumb|thumb_ss) 的尝试顺序一致
+     */
+    private static final String[] THUMB_SUFFIXES = {"thumb_s", "medium", "thumb", "thumb_ss"};
 
     @Override
     public String decode(String content) {
@@ -40,31 +52,292 @@ public class ForumImageDecoder implements IForumDecoder {
 
     @Override
     public String decode(String content, HtmlData htmlData) {
-        String replace = String.format(REPLACE_IMG_NO_HTTP, NGA_ATTACHMENT_HOST, "$1");
-        content = StringUtils.replaceAll(content, REGEX_IMG_NO_HTTP, replace);
-        content = StringUtils.replaceAll(content, REGEX_IMG_WITH_HTTP, REPLACE_IMG_WITH_HTTP);
-        content = StringUtils.replaceAll(content, "(http\\S+).gif.(thumb_s|medium|thumb|thumb_ss).jpg", "$1.gif");
-        content = StringUtils.replaceAll(content, "<a href='(http\\S+).(png|jpg).(thumb_s|medium|thumb|thumb_ss).jpg'", "<a href='$1.$2'");
-
-        Pattern p = Pattern.compile(REGEX_IMG);
-        Matcher m = p.matcher(content);
-        mImageUrls.clear();
+        return decode(content, htmlData, null);
+    }
+
+    @Override
+    public String decode(String content, HtmlData htmlData, List<String> imageUrls) {
         boolean showImage = htmlData == null || htmlData.isShowImage();
-        while (m.find()) {
-            String s0 = m.group();
-            String s1 = m.group(1);
+        StringBuilder out = null;
+        String url = null;
+        int from = 0;
+        int index = indexOfIgnoreCase(content, TAG_IMG_START, 0);
+        while (index >= 0) {
+            int end = matchImageTag(content, index);
+            if (end < 0) {
+                index = indexOfIgnoreCase(content, TAG_IMG_START, index + 1);
+                continue;
+            }
+            if (out == null) {
+                out = new StringBuilder(content.length() + 256);
+            }
+            appendSegment(out, url, content, from, index, showImage, imageUrls);
+            url = getImageUrl(content, index, end);
+            from = end + TAG_IMG_END.length();
+            index = indexOfIgnoreCase(content, TAG_IMG_START, from);
+        }
+        if (out == null) {
+            if (!content.contains(HTTP)) {
+                return content;
+            }
+            out = new StringBuilder(content.length());
+        }
+        appendSegment(out, url, content, from, content.length(), showImage, imageUrls);
+        return out.toString();
+    }
 
-            if (!showImage) {
-                content = content.replace(s0, HTML_IMG_DEFAULT);
+    /**
+     * 匹配 [img]\s*\.(/[^\[|\]]+)\s*[/img] 或 [img]\s*(http[^\[|\]]+)\s*[/img], 返回 [/img] 的位置, 不匹配时返回 -1
+     */
+    private static int matchImageTag(String content, int index) {
+        int length = content.length();
+        int start = skipWhitespace(content, index + TAG_IMG_START.length());
+        int minEnd;
+        if (start + 1 < length && content.charAt(start) == '.' && content.charAt(start + 1) == '/') {
+            minEnd = start + 3;
+        } else if (regionMatchesIgnoreCase(content, start, HTTP)) {
+            minEnd = start + HTTP.length() + 1;
+        } else {
+            return -1;
+        }
+        int end = start;
+        while (end < length) {
+            char c = content.charAt(end);
+            if (c == '[' || c == '|' || c == ']') {
+                break;
             }
-            s1 = s1.replaceFirst("(http\\S+).(png|jpg).(thumb_s|medium|thumb|thumb_ss).jpg", "$1.$2");
-            mImageUrls.add(s1);
+            end++;
         }
-        return content;
+        if (end < minEnd || !regionMatchesIgnoreCase(content, end, TAG_IMG_END)) {
+            return -1;
+        }
+        return end;
     }
 
-    @Override
-    public List<String> getImageUrls() {
-        return mImageUrls;
+    /**
+     * 地址末尾的空白字符会保留下来, 和原先的正则一致
+     */
+    private static String getImageUrl(String content, int index, int end) {
+        int start = skipWhitespace(content, index + TAG_IMG_START.length());
+        if (content.charAt(start) == '.') {
+            return NGA_ATTACHMENT_PREFIX + content.substring(start + 1, end);
+        } else {
+            return content.substring(start, end);
+        }
+    }
+
+    /**
+     * 输出图片和后面的文本, 图片地址和后面的文本之间没有空白字符时原先的正则会把它们当成一段来匹配, 这里也一起处理
+     */
+    private static void appendSegment(StringBuilder out, String url, String content, int start, int end,
+                                      boolean showImage, List<String> imageUrls) {
+        if (url == null) {
+            appendText(out, content, start, end);
+            return;
+        }
+        out.append("<a href='").append(replaceLinkThumb(replaceGifThumb(url))).append("'>");
+        StringBuilder text = new StringBuilder(url.length() + IMG_TAIL.length() + end - start);
+        text.append(url).append(IMG_TAIL).append(content, start, end);
+        String src = replaceGifThumb(text.toString());
+
+        // <img src='(http\S+)'>
+        int runEnd = indexOfWhitespace(src, 0, src.length());
+        int srcEnd = src.lastIndexOf("'>", (runEnd < 0 ? src.length() : runEnd) - 2);
+        if (srcEnd <= HTTP.length()) {
+            out.append("<img src='").append(src);
+            return;
+        }
+        if (showImage) {
+            out.append("<img src='").append(src);
+        } else {
+            out.append(HTML_IMG_DEFAULT).append(src, srcEnd + 2, src.length());
+        }
+        if (imageUrls != null) {
+            imageUrls.add(replaceImageThumb(src.substring(0, srcEnd)));
+        }
+    }
+
+    private static String replaceGifThumb(String url) {
+        StringBuilder out = new StringBuilder(url.length());
+        appendText(out, url, 0, url.length());
+        return out.length() == url.length() ? url : out.toString();
+    }
+
+    /**
+     * 等价于 <a href='(http\S+).(png|jpg).(thumb_s|medium|thumb|thumb_ss).jpg' 替换为 <a href='$1.$2'
+     */
+    private static String replaceLinkThumb(String url) {
+        if (!url.startsWith(HTTP)) {
+            return url;
+        }
+        String text = url + '\'';
+        int runEnd = indexOfWhitespace(text, 0, text.length());
+        int[] match = new int[2];
+        if (!matchThumb(text, 0, runEnd < 0 ? text.length() : runEnd, text.length(), EXT_THUMB, true, match)) {
+            return url;
+        }
+        return text.substring(0, match[0]) + '.' + text.substring(match[0] + 1, match[0] + 4) + text.substring(match[1]);
+    }
+
+    /**
+     * 等价于 (http\S+).(png|jpg).(thumb_s|medium|thumb|thumb_ss).jpg 替换为 $1.$2, 地址中没有空白字符
+     */
+    private static String replaceImageThumb(String url) {
+        int index = url.indexOf(HTTP);
+        int[] match = new int[2];
+        if (index < 0 || !matchThumb(url, index, url.length(), url.length(), EXT_THUMB, false, match)) {
+            return url;
+        }
+        return url.substring(0, match[0]) + '.' + url.substring(match[0] + 1, match[0] + 4) + url.substring(match[1]);
+    }
+
+    /**
+     * 等价于 (http\S+).gif.(thumb_s|medium|thumb|thumb_ss).jpg 替换为 $1.gif
+     */
+    private static void appendText(StringBuilder out, String content, int start, int end) {
+        int from = start;
+        int index = indexOf(content, HTTP, start, end);
+        int[] match = new int[2];
+        while (index >= 0) {
+            int runEnd = indexOfWhitespace(content, index, end);
+            if (runEnd < 0) {
+                runEnd = end;
+            }
+            // 同一段非空白字符中后面的 http 不会再匹配到
+            int next = runEnd;
+            if (matchThumb(content, index, runEnd, end, EXT_GIF, false, match)) {
+                out.append(content, from, match[0]).append(".gif");
+                from = match[1];
+                next = Math.max(next, from);
+            }
+            index = indexOf(content, HTTP, next, end);
+        }
+        out.append(content, from, end);
+    }
+
+    /**
+     * 从 start 处的 http 开始贪婪匹配, match[0] 为 $1 的结束位置, match[1] 为整个匹配的结束位置
+     */
+    private static boolean matchThumb(String text, int start, int runEnd, int limit, String[] exts, boolean quoted, int[] match) {
+        for (int i = runEnd; i >= start + HTTP.length() + 1; i--) {
+            int end = matchThumbSuffix(text, i, limit, exts, quoted);
+            if (end >= 0) {
+                match[0] = i;
+                match[1] = end;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int matchThumbSuffix(String text, int index, int limit, String[] exts, boolean quoted) {
+        if (index + 1 >= limit || !startsWithExt(text.charAt(index + 1), exts) || !matchAnyChar(text, index, limit)) {
+            return -1;
+        }
+        String ext = null;
+        for (String e : exts) {
+            if (text.startsWith(e, index + 1) && index + 1 + e.length() <= limit) {
+                ext = e;
+                break;
+            }
+        }
+        if (ext == null || !matchAnyChar(text, index + 4, limit)) {
+            return -1;
+        }
+        for (String suffix : THUMB_SUFFIXES) {
+            int i = index + 5;
+            if (!text.startsWith(suffix, i) || i + suffix.length() > limit) {
+                continue;
+            }
+            i += suffix.length();
+            if (!matchAnyChar(text, i, limit) || !text.startsWith("jpg", i + 1) || i + 4 > limit) {
+                continue;
+            }
+            i += 4;
+            if (quoted) {
+                if (i >= limit || text.charAt(i) != '\'') {
+                    continue;
+                }
+                i++;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean startsWithExt(char c, String[] exts) {
+        for (String ext : exts) {
+            if (ext.charAt(0) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 正则中的 . 不匹配换行符
+     */
+    private static boolean matchAnyChar(String text, int index, int limit) {
+        if (index >= limit) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029';
+    }
+
+    private static int skipWhitespace(String text, int index) {
+        while (index < text.length() && BBCodeLexer.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int indexOf(String text, String str, int from, int end) {
+        int limit = end - str.length();
+        for (int i = from; i <= limit; i++) {
+            if (text.startsWith(str, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfWhitespace(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (BBCodeLexer.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(String text, String tag, int from) {
+        int index = text.indexOf('[', from);
+        while (index >= 0) {
+            if (regionMatchesIgnoreCase(text, index, tag)) {
+                return index;
+            }
+            index = text.indexOf('[', index + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * 只忽略 ASCII 字母的大小写, 和不带 UNICODE_CASE 的 (?i) 一致
+     */
+    private static boolean regionMatchesIgnoreCase(String text, int index, String tag) {
+        if (index < 0 || index + tag.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            char c = text.charAt(index + i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,1306 @@
+package gov.anzong.androidnga.core.decode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.bbcode.BBCodeLexer;
+import gov.anzong.androidnga.core.bbcode.BBCodeToken;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.data.VoteData;
+import gov.anzong.androidnga.core.util.StringUtils;
+
+/**
+ * {@link ForumBasicDecoder} 的单遍实现: 复用 {@link BBCodeDocument} 中的词法单元, 按原有正则的先后顺序完成标签配对, 最后线性输出 html
+ * <p>
+ * 配对规则与原正则保持一致: 开标签匹配其后同一行内第一个未被占用的闭标签, 匹配区域内的同名开标签保持原样
+ * <p>
+ * 已知的差异都来自原正则匹配到其他标签或前面规则生成的 html 中: [pid=1][/pid] 后面有 [pid=1,2,3] 时原正则会跨过闭标签配对;
+ * [*] 会以 [lessernuke] 生成的 &lt;br/&gt; 结尾; [url] 中有 [b] 等标签时, 原正则把 html 也放进了链接地址, 这里只取文本
+ */
+public class ForumTokenDecoder implements IForumDecoder {
+
+    private static final String STYLE_QUOTE = "<div class='quote' >";
+
+    private static final String END_DIV = "</div>";
+
+    private static final String STYLE_LEFT = "<div style='float:left' >";
+
+    private static final String STYLE_RIGHT = "<div style='float:right' >";
+
+    private static final String STYLE_ALIGN_RIGHT = "<div style='text-align:right' >";
+
+    private static final String STYLE_ALIGN_LEFT = "<div style='text-align:left' >";
+
+    private static final String STYLE_ALIGN_CENTER = "<div style='text-align:center' >";
+
+    private static final String STYLE_LINK = "' style='font-weight: bold;color:#3181f4'>";
+
+    private static final String STYLE_LESSER_NUKE = "<div style='border:1px solid #B63F32;margin:10px 10px 10px 10px;padding:10px' > <span style='color:#EE8A9E'>用户因此贴被暂时禁言，此效果不会累加</span><br/>";
+
+    private static final String HTML_TABLE_START = "<div><table cellspacing='0px' class='default'><tbody>";
+
+    private static final String HTML_TABLE_END = "</tbody></table></div>";
+
+    private static final String HTML_BREAK = "<br/>";
+
+    private static final String HTML_RANDOM_BLOCK_GAME = "<div class=\"fixblk\" style=\" clear: both; overflow: hidden; width: 100%;height:700px; box-shadow: rgb(0, 0, 0) 0px 0px 15px -8px inset; background: rgb(245, 232, 203); \"><br/><div style=\"margin: auto; overflow: hidden; position: relative; z-index: 0;height:52em; max-width: 90em; min-width: 28em; transform-origin: left top; transform: scale(0.496402, 0.496402);\">";
+
+    private static final String HTML_RANDOM_BLOCK_NOVEL = "<div class=\"fixblk\" style=\" clear: both; overflow: hidden; width: 511.667px; height: 171px; box-shadow: rgb(0, 0, 0) 0px 0px 15px -8px inset; background: rgb(245, 232, 203); \"><br/><div style=\"margin: auto; overflow: hidden; position: relative; z-index: 0;height:30em; max-width: 90em; min-width: 28em; transform-origin: left top; transform: scale(0.496402, 0.496402);\">";
+
+    private static final String TAG_GAME_TITLE_IMAGE = "[comment game_title_image]";
+
+    private static final String TAG_GAME_TITLE_IMAGE_END = "[/comment game_title_image]";
+
+    private static final String PREFIX_GAME_TITLE_IMAGE = "[style border-radius 0.3 width 50 src ";
+
+    private static final String VOTE_AVG_VALUE = "&#36;votedata_voteavgvalue";
+
+    private static final String VOTE_USER_NUM = "&#36;votedata_usernum";
+
+    private static final String[][] TD_RULES = {
+            {"\\[td[ ]*(\\d+)\\]", "<td style='border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\scolspan(\\d+)\\swidth(\\d+)\\]", "<td colspan='$1' style='width:$2%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\swidth(\\d+)\\scolspan(\\d+)\\]", "<td colspan='$2' style='width:$1%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\swidth(\\d+)\\srowspan(\\d+)\\]", "<td rowspan='$2' style='width:$1%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\srowspan(\\d+)\\swidth(\\d+)\\]", "<td rowspan='$1' style='width:$2%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\scolspan(\\d+)\\srowspan(\\d+)\\swidth(\\d+)\\]", "<td colspan='$1' rowspan='$2' style='width:$3%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\scolspan(\\d+)\\swidth(\\d+)\\srowspan(\\d+)\\]", "<td colspan='$1' rowspan='$3' style='width:$2%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\srowspan(\\d+)\\scolspan(\\d+)\\swidth(\\d+)\\]", "<td rowspan='$1' colspan='$2' style='width:$3%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\srowspan(\\d+)\\swidth(\\d+)\\scolspan(\\d+)\\]", "<td rowspan='$1' colspan='$3' style='width:$2%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\swidth(\\d+)\\scolspan(\\d+)\\srowspan(\\d+)\\]", "<td rowspan='$3' colspan='$2' style='width:$1%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\swidth(\\d+)\\srowspan(\\d+)\\scolspan(\\d+)\\]", "<td rowspan='$2' colspan='$3'  style='width:$1%;border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\scolspan=?(\\d+)\\]", "<td colspan='$1' style='border-left:1px solid #aaa;border-bottom:1px solid #aaa'>"},
+            {"\\[td\\srowspan=?(\\d+)\\]", "<td rowspan='$1' style='border-left:1px solid #aaa;border-bottom:1px solid #aaa;'>"},
+    };
+
+    /**
+     * 在 Post by 规则之前就已经被转换的简单标签
+     */
+    private static final Set<String> EARLY_TAGS = new HashSet<>(Arrays.asList("l", "r", "align", "quote", "code", "b", "item", "u", "s"));
+
+    private static final Pattern[] TD_PATTERNS = new Pattern[TD_RULES.length];
+
+    /**
+     * 大小写敏感, 整个标签原样匹配的模板, 评分贴中的 [style] 和 [comment] 见 {@link TemplateTagRegistry}
+     */
+    private static final Map<String, String> LITERAL_TAGS = new HashMap<>();
+
+    private static final int KIND_NONE = 0;
+    private static final int KIND_CONSUMED = 1;
+    private static final int KIND_REPLY_TO = 2;
+    private static final int KIND_REPLY_PID = 3;
+    private static final int KIND_TOPIC_PID = 4;
+    private static final int KIND_TOPIC_LINK = 5;
+    private static final int KIND_URL_HOST_TEXT = 6;
+    private static final int KIND_URL_TEXT = 7;
+    private static final int KIND_URL_HOST = 8;
+    private static final int KIND_URL = 9;
+    private static final int KIND_UID = 10;
+    private static final int KIND_UID_NEGATIVE = 11;
+    private static final int KIND_HIP = 12;
+    private static final int KIND_TID = 13;
+    private static final int KIND_PID_EMPTY = 14;
+    private static final int KIND_PID = 15;
+    private static final int KIND_FLASH = 16;
+    private static final int KIND_TABLE = 17;
+    private static final int KIND_TR = 18;
+    private static final int KIND_LIST = 19;
+    private static final int KIND_LIST_ITEM = 20;
+    private static final int KIND_HEADER = 21;
+    private static final int KIND_COLLAPSE_TITLE = 22;
+    private static final int KIND_COLLAPSE = 23;
+    private static final int KIND_VIDEO = 24;
+    private static final int KIND_AUDIO = 25;
+    private static final int KIND_RANDOM_BLOCK = 26;
+
+    static {
+        for (int i = 0; i < TD_RULES.length; i++) {
+            TD_PATTERNS[i] = Pattern.compile(IGNORE_CASE_TAG + TD_RULES[i][0]);
+        }
+
+        LITERAL_TAGS.put("[lessernuke]", STYLE_LESSER_NUKE);
+        LITERAL_TAGS.put("[/lessernuke]", END_DIV);
+        LITERAL_TAGS.put("[/randomblock]", END_DIV);
+    }
+
+    @Override
+    public String decode(String content, HtmlData htmlData) {
+        String[] voteInfo = resolveVote(htmlData);
+        if (StringUtils.isEmpty(content)) {
+            return "";
+        }
+        BBCodeDocument document = htmlData.getDocument();
+        if (document == null || !content.equals(document.getRawText())) {
+            document = BBCodeDocument.parse(content);
+        }
+        return new Session(document, htmlData.getNGAHost(), voteInfo).decode();
+    }
+
+    /**
+     * 与 ForumBasicDecoder 一致, 评分贴取第一个选项的分数和人数
+     */
+    private static String[] resolveVote(HtmlData htmlData) {
+        VoteData voteData = htmlData.getVoteData();
+        VoteData.Option scoreOption = voteData != null ? voteData.getScoreOption() : null;
+        return scoreOption != null ? new String[]{scoreOption.getAverageScore(), scoreOption.getUserCount()} : null;
+    }
+
+    private static int indexOfIgnoreCase(String source, String target, int from, int end) {
+        char first = target.charAt(0);
+        char firstUpper = Character.toUpperCase(first);
+        int last = end - target.length();
+        for (int i = from; i <= last; i++) {
+            char c = source.charAt(i);
+            if ((c == first || c == firstUpper) && source.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigits(String source, int start, int end, int maxLength) {
+        if (end - start > maxLength) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAny(String source, int start, int end, String chars) {
+        for (int i = start; i < end; i++) {
+            if (chars.indexOf(source.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void replaceAll(StringBuilder builder, String target, String replacement) {
+        int index = builder.indexOf(target);
+        while (index >= 0) {
+            builder.replace(index, index + target.length(), replacement);
+            index = builder.indexOf(target, index + replacement.length());
+        }
+    }
+
+    private static class Session {
+
+        private final String mSource;
+
+        private final String mHost;
+
+        private final String[] mVoteInfo;
+
+        private final List<BBCodeToken> mTokens;
+
+        private final int[] mKind;
+
+        private final int[] mPartner;
+
+        private StringBuilder mOut;
+
+        private final BBCodeDocument mDocument;
+
+        private int[] mListItemEnds = new int[0];
+
+        private int mListItemCount;
+
+        private int mListItemCursor;
+
+        private int mSkipTo;
+
+        private int mResumeIndex;
+
+        private StringBuilder mPostByName;
+
+        Session(BBCodeDocument document, String host, String[] voteInfo) {
+            mDocument = document;
+            mSource = document.getSource();
+            mHost = host;
+            mVoteInfo = voteInfo;
+            mTokens = document.getTokens();
+            mKind = new int[mTokens.size()];
+            mPartner = new int[mTokens.size()];
+            mOut = new StringBuilder(mSource.length() + (mSource.length() >> 1));
+        }
+
+        String decode() {
+            resolve();
+            int size = mTokens.size();
+            int index = 0;
+            while (index < size) {
+                BBCodeToken token = mTokens.get(index);
+                index = token.isText() ? emitText(index) : emitTag(index);
+            }
+            if (mVoteInfo != null) {
+                replaceAll(mOut, VOTE_AVG_VALUE, mVoteInfo[0]);
+                replaceAll(mOut, VOTE_USER_NUM, mVoteInfo[1]);
+            }
+            return mOut.toString();
+        }
+
+        // ---------------------------------------------------------------- 配对
+
+        private void resolve() {
+            if (mDocument.containsTag("b") && mDocument.containsTag("pid")) {
+                resolveReplyTo();
+            }
+            if (mDocument.containsTag("pid")) {
+                resolveReplyPid();
+            }
+            if (mDocument.containsTag("tid")) {
+                resolveTopic();
+            }
+            if (mDocument.containsTag("url")) {
+                resolveUrlText();
+                pair(KIND_URL_HOST, this::isUrlHostOpen, t -> isEmptyClose(t, "url"), true);
+                pair(KIND_URL, this::isUrlOpen, t -> isEmptyClose(t, "url"), true);
+            }
+            if (mDocument.containsTag("uid")) {
+                pair(KIND_UID, t -> t.isOpen("uid") && isNumberAttr(t, false, false), t -> isEmptyClose(t, "uid"), true);
+                pair(KIND_UID_NEGATIVE, t -> t.isOpen("uid") && isNumberAttr(t, true, true), t -> isEmptyClose(t, "uid"), true);
+            }
+            if (mDocument.containsTag("hip")) {
+                pair(KIND_HIP, t -> isEmptyOpen(t, "hip"), t -> isEmptyClose(t, "hip"), true);
+            }
+            if (mDocument.containsTag("tid")) {
+                pair(KIND_TID, t -> t.isOpen("tid") && isNumberAttr(t, false, false), t -> isEmptyClose(t, "tid"), true);
+            }
+            if (mDocument.containsTag("pid")) {
+                resolveEmptyPid();
+                pair(KIND_PID, this::isPidOpen, t -> isEmptyClose(t, "pid"), true);
+            }
+            if (mDocument.containsTag("flash")) {
+                resolveFlash();
+            }
+            if (mDocument.containsTag("table")) {
+                pair(KIND_TABLE, t -> t.matches(mSource, "[table]"), t -> t.matches(mSource, "[/table]"), false);
+            }
+            if (mDocument.containsTag("tr")) {
+                pair(KIND_TR, t -> t.matches(mSource, "[tr]"), t -> t.matches(mSource, "[/tr]"), false);
+            }
+            if (mDocument.containsTag("list")) {
+                pair(KIND_LIST, t -> isEmptyOpen(t, "list"), t -> isEmptyClose(t, "list"), true);
+            }
+            if (mDocument.containsTag("*")) {
+                resolveListItems();
+            }
+            if (mDocument.containsTag("h")) {
+                pair(KIND_HEADER, t -> isEmptyOpen(t, "h"), t -> isEmptyClose(t, "h"), true);
+            }
+            if (mDocument.containsTag("collapse")) {
+                pair(KIND_COLLAPSE_TITLE, t -> t.isOpen("collapse") && mSource.startsWith("[collapse=", t.getStart()),
+                        t -> t.matches(mSource, "[/collapse]"), false);
+                pair(KIND_COLLAPSE, t -> t.matches(mSource, "[collapse]"), t -> t.matches(mSource, "[/collapse]"), false);
+            }
+            if (mDocument.containsTag("flash")) {
+                pair(KIND_VIDEO, t -> t.matches(mSource, "[flash=video]") && isFollowedByText(t), t -> t.matches(mSource, "[/flash]"), true);
+                pair(KIND_AUDIO, t -> t.matches(mSource, "[flash=audio]") && isFollowedByText(t), t -> t.matches(mSource, "[/flash]"), true);
+            }
+            if (mDocument.containsTag("randomblock")) {
+                resolveRandomBlock();
+            }
+        }
+
+        /**
+         * 开标签匹配其后同一行内第一个可用的闭标签, 配对成功后从闭标签之后继续
+         */
+        private void pair(int kind, Predicate<BBCodeToken> open, Predicate<BBCodeToken> close, boolean nonEmpty) {
+            int size = mTokens.size();
+            int failedLine = -1;
+            for (int i = 0; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (mKind[i] != KIND_NONE || token.getLine() == failedLine || !open.test(token)) {
+                    continue;
+                }
+                int end = findClose(i, close, nonEmpty);
+                if (end < 0) {
+                    // 同一行后面的开标签也不可能再配对成功
+                    failedLine = token.getLine();
+                    continue;
+                }
+                link(i, end, kind);
+                i = end;
+            }
+        }
+
+        private int findClose(int start, Predicate<BBCodeToken> close, boolean nonEmpty) {
+            int line = mTokens.get(start).getLine();
+            int size = mTokens.size();
+            for (int i = start + 1; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (token.getLine() != line) {
+                    return -1;
+                }
+                if (mKind[i] == KIND_NONE && token.isTag() && close.test(token) && (!nonEmpty || i > start + 1)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void link(int open, int close, int kind) {
+            mKind[open] = kind;
+            mKind[close] = kind;
+            mPartner[open] = close;
+            mPartner[close] = open;
+        }
+
+        private void consume(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                mKind[i] = KIND_CONSUMED;
+            }
+        }
+
+        private BBCodeToken tokenAt(int index) {
+            return index >= 0 && index < mTokens.size() ? mTokens.get(index) : null;
+        }
+
+        private boolean isTextToken(int index, String literal, boolean ignoreCase) {
+            BBCodeToken token = tokenAt(index);
+            return token != null && token.isText() && token.matches(mSource, literal, ignoreCase);
+        }
+
+        private boolean isEmptyOpen(BBCodeToken token, String name) {
+            return token.isOpen(name) && !token.hasAttr();
+        }
+
+        private boolean isEmptyClose(BBCodeToken token, String name) {
+            return token.isClose(name) && !token.hasAttr();
+        }
+
+        private boolean isFree(int index) {
+            return index < mTokens.size() && mKind[index] == KIND_NONE;
+        }
+
+        /**
+         * =?(\d{0,50}) 或 =-?(\d{0,50})
+         */
+        private boolean isNumberAttr(BBCodeToken token, boolean requireEquals, boolean allowNegative) {
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            if (start < end && mSource.charAt(start) == '=') {
+                start++;
+            } else if (requireEquals) {
+                return false;
+            }
+            if (allowNegative && start < end && mSource.charAt(start) == '-') {
+                start++;
+            }
+            return isDigits(mSource, start, end, 50);
+        }
+
+        /**
+         * [pid=(.+?),(.+?),(.+?)], 返回两个逗号的位置
+         */
+        private int[] parseReplyPid(BBCodeToken token) {
+            if (!token.isOpen("pid")) {
+                return null;
+            }
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            if (start >= end || mSource.charAt(start) != '=') {
+                return null;
+            }
+            int first = mSource.indexOf(',', start + 2);
+            if (first < 0 || first >= end) {
+                return null;
+            }
+            int second = mSource.indexOf(',', first + 2);
+            if (second < 0 || second + 1 >= end) {
+                return null;
+            }
+            return new int[]{first, second};
+        }
+
+        private boolean isPidOpen(BBCodeToken token) {
+            return token.isOpen("pid") && token.getAttrEnd() - token.getAttrStart() > 1 && mSource.charAt(token.getAttrStart()) == '=';
+        }
+
+        private boolean isUrlHostOpen(BBCodeToken token) {
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            return token.isOpen("url") && end - start > 2 && mSource.startsWith("=/", start)
+                    && !containsAny(mSource, start + 2, end, "|");
+        }
+
+        private boolean isUrlOpen(BBCodeToken token) {
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            return token.isOpen("url") && end - start > 1 && mSource.charAt(start) == '='
+                    && !containsAny(mSource, start + 1, end, "|");
+        }
+
+        /**
+         * 对应正则中标签后的 '.', 这里要求紧跟的是普通文本
+         */
+        private boolean isFollowedByText(BBCodeToken token) {
+            int end = token.getEnd();
+            if (end >= mSource.length()) {
+                return false;
+            }
+            char c = mSource.charAt(end);
+            return c != '[' && !BBCodeLexer.isLineTerminator(c);
+        }
+
+        // [b]Reply to [pid=1,2,3]Reply[/pid] Post by ...[/b]
+        private void resolveReplyTo() {
+            int size = mTokens.size();
+            for (int i = 0; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (!isEmptyOpen(token, "b") || !isTextToken(i + 1, "Reply to ", true)
+                        || tokenAt(i + 2) == null || parseReplyPid(mTokens.get(i + 2)) == null
+                        || !isTextToken(i + 3, "Reply", true)
+                        || tokenAt(i + 4) == null || !isEmptyClose(mTokens.get(i + 4), "pid")) {
+                    continue;
+                }
+                BBCodeToken text = tokenAt(i + 5);
+                if (text == null || !text.isText() || mSource.charAt(text.getStart()) != ' ') {
+                    continue;
+                }
+                int line = token.getLine();
+                int close = -1;
+                for (int j = i + 5; j < size; j++) {
+                    BBCodeToken t = mTokens.get(j);
+                    if (t.getLine() != line) {
+                        break;
+                    }
+                    if (isEmptyClose(t, "b") && (j > i + 6 || text.length() > 1)) {
+                        close = j;
+                        break;
+                    }
+                }
+                if (close < 0 || mTokens.get(i + 4).getLine() != line) {
+                    continue;
+                }
+                link(i, close, KIND_REPLY_TO);
+                consume(i + 1, i + 4);
+                i = close;
+            }
+        }
+
+        // [pid=1,2,3]Reply[/pid]
+        private void resolveReplyPid() {
+            int size = mTokens.size();
+            for (int i = 0; i + 2 < size; i++) {
+                if (isFree(i) && parseReplyPid(mTokens.get(i)) != null && isTextToken(i + 1, "Reply", true)
+                        && isFree(i + 2) && isEmptyClose(mTokens.get(i + 2), "pid")) {
+                    mKind[i] = KIND_REPLY_PID;
+                    consume(i + 1, i + 2);
+                    i += 2;
+                }
+            }
+        }
+
+        // [tid=123]Topic[/pid] 和 [tid=123]Topic[/tid]
+        private void resolveTopic() {
+            int size = mTokens.size();
+            for (int i = 0; i + 2 < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (!isFree(i) || !token.isOpen("tid") || !isTextToken(i + 1, "Topic", true)) {
+                    continue;
+                }
+                BBCodeToken close = mTokens.get(i + 2);
+                if (isEmptyClose(close, "pid") && token.getAttrEnd() - token.getAttrStart() > 1
+                        && mSource.charAt(token.getAttrStart()) == '='
+                        && isDigits(mSource, token.getAttrStart() + 1, token.getAttrEnd(), Integer.MAX_VALUE)) {
+                    mKind[i] = KIND_TOPIC_PID;
+                    consume(i + 1, i + 2);
+                    i += 2;
+                } else if (isEmptyClose(close, "tid") && isNumberAttr(token, false, false)) {
+                    mKind[i] = KIND_TOPIC_LINK;
+                    consume(i + 1, i + 2);
+                    i += 2;
+                }
+            }
+        }
+
+        // [url]http://...[/url], 中间可以有 [b] 等先转换成 html 的标签
+        private void resolveUrlText() {
+            int size = mTokens.size();
+            for (int i = 0; i + 2 < size; i++) {
+                if (!isEmptyOpen(mTokens.get(i), "url")) {
+                    continue;
+                }
+                int close = findUrlTextClose(i);
+                if (close < 0) {
+                    continue;
+                }
+                BBCodeToken first = mTokens.get(i + 1);
+                boolean relative = first.isText() && mSource.charAt(first.getStart()) == '/' && (first.length() > 1 || close > i + 2);
+                mKind[i] = relative ? KIND_URL_HOST_TEXT : KIND_URL_TEXT;
+                mPartner[i] = close;
+                consume(i + 1, close);
+                i = close;
+            }
+        }
+
+        /**
+         * 对应正则 \[url\]([^\[|\]]+)\[/url\], 其中的标签按转换后的 html 判断
+         */
+        private int findUrlTextClose(int open) {
+            int size = mTokens.size();
+            for (int i = open + 1; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (token.isText()) {
+                    if (containsAny(mSource, token.getStart(), token.getEnd(), "[]|")) {
+                        return -1;
+                    }
+                } else if (isEmptyClose(token, "url")) {
+                    return i > open + 1 ? i : -1;
+                } else {
+                    String html = getPostByView(i);
+                    if (html == null || containsAny(html, 0, html.length(), "[]|")) {
+                        return -1;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // [pid=123][/pid]
+        private void resolveEmptyPid() {
+            int size = mTokens.size();
+            for (int i = 0; i + 1 < size; i++) {
+                if (isFree(i) && isPidOpen(mTokens.get(i)) && isFree(i + 1) && isEmptyClose(mTokens.get(i + 1), "pid")) {
+                    mKind[i] = KIND_PID_EMPTY;
+                    consume(i + 1, i + 1);
+                    i++;
+                }
+            }
+        }
+
+        // [flash]http://...[/flash]
+        private void resolveFlash() {
+            int size = mTokens.size();
+            for (int i = 0; i + 2 < size; i++) {
+                BBCodeToken text = mTokens.get(i + 1);
+                if (isEmptyOpen(mTokens.get(i), "flash") && text.isText() && text.length() > 4
+                        && mSource.regionMatches(true, text.getStart(), "http", 0, 4)
+                        && !containsAny(mSource, text.getStart(), text.getEnd(), "[]|")
+                        && isEmptyClose(mTokens.get(i + 2), "flash")) {
+                    mKind[i] = KIND_FLASH;
+                    consume(i + 1, i + 2);
+                    i += 2;
+                }
+            }
+        }
+
+        // [randomblock]<br/>[fixsize height 52 width 50 90]
+        private void resolveRandomBlock() {
+            int size = mTokens.size();
+            for (int i = 0; i + 2 < size; i++) {
+                if (mTokens.get(i).matches(mSource, "[randomblock]") && isTextToken(i + 1, HTML_BREAK, false)
+                        && !isListItemEnd(mTokens.get(i + 1).getStart())
+                        && getRandomBlockHtml(mTokens.get(i + 2)) != null) {
+                    mKind[i] = KIND_RANDOM_BLOCK;
+                    consume(i + 1, i + 2);
+                    i += 2;
+                }
+            }
+        }
+
+        private String getRandomBlockHtml(BBCodeToken token) {
+            if (token.matches(mSource, "[fixsize height 52 width 50 90]")) {
+                return HTML_RANDOM_BLOCK_GAME;
+            } else if (token.matches(mSource, "[fixsize height 10 width 30 90]")) {
+                return HTML_RANDOM_BLOCK_NOVEL;
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * [*](.+?)&lt;br/&gt;, 结尾的换行替换成 &lt;/li&gt;
+         */
+        private void resolveListItems() {
+            int size = mTokens.size();
+            int regionEnd = -1;
+            int failedLine = -1;
+            for (int i = 0; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (mKind[i] != KIND_NONE || !isEmptyOpen(token, "*") || token.getStart() < regionEnd
+                        || token.getLine() == failedLine) {
+                    continue;
+                }
+                int end = findListItemEnd(i);
+                if (end < 0) {
+                    failedLine = token.getLine();
+                    continue;
+                }
+                mKind[i] = KIND_LIST_ITEM;
+                if (mListItemCount == mListItemEnds.length) {
+                    mListItemEnds = Arrays.copyOf(mListItemEnds, Math.max(8, mListItemCount * 2));
+                }
+                mListItemEnds[mListItemCount++] = end;
+                regionEnd = end + HTML_BREAK.length();
+            }
+        }
+
+        private int findListItemEnd(int start) {
+            BBCodeToken item = mTokens.get(start);
+            int line = item.getLine();
+            int size = mTokens.size();
+            for (int i = start + 1; i < size; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (token.getLine() != line) {
+                    return -1;
+                }
+                if (!token.isText()) {
+                    continue;
+                }
+                for (int pos = token.getStart(); pos < token.getEnd(); pos++) {
+                    char c = mSource.charAt(pos);
+                    if (BBCodeLexer.isLineTerminator(c)) {
+                        return -1;
+                    }
+                    if (c != '<' || !mSource.regionMatches(true, pos, HTML_BREAK, 0, HTML_BREAK.length())) {
+                        continue;
+                    }
+                    boolean removed = pos == token.getStart() && removesFollowingBreak(i - 1)
+                            && mSource.startsWith(HTML_BREAK, pos);
+                    if (pos > item.getEnd() && !removed) {
+                        return pos;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 表格相关标签后紧跟的换行会被去掉
+         */
+        private boolean removesFollowingBreak(int index) {
+            BBCodeToken token = tokenAt(index);
+            if (token == null) {
+                return false;
+            }
+            int kind = mKind[index];
+            if (kind == KIND_TR) {
+                return true;
+            } else if (kind == KIND_TABLE) {
+                return mPartner[index] > index;
+            } else {
+                return kind == KIND_NONE && token.matches(mSource, "[/td]");
+            }
+        }
+
+        private boolean isListItemEnd(int position) {
+            return Arrays.binarySearch(mListItemEnds, 0, mListItemCount, position) >= 0;
+        }
+
+        // ---------------------------------------------------------------- 输出
+
+        private void skipFollowingBreak(BBCodeToken token) {
+            if (mSource.startsWith(HTML_BREAK, token.getEnd())) {
+                mSkipTo = token.getEnd() + HTML_BREAK.length();
+            }
+        }
+
+        private boolean isTrimmedUrl(int index) {
+            return index >= 0 && index < mKind.length && (mKind[index] == KIND_URL || mKind[index] == KIND_URL_HOST);
+        }
+
+        private int emitText(int index) {
+            BBCodeToken token = mTokens.get(index);
+            int pos = Math.max(token.getStart(), mSkipTo);
+            int end = token.getEnd();
+            if (isTrimmedUrl(index - 1) && mPartner[index - 1] > index - 1) {
+                while (pos < end && BBCodeLexer.isWhitespace(mSource.charAt(pos))) {
+                    pos++;
+                }
+            }
+            if (isTrimmedUrl(index + 1) && mPartner[index + 1] < index + 1) {
+                while (end > pos && BBCodeLexer.isWhitespace(mSource.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            while (mListItemCursor < mListItemCount && mListItemEnds[mListItemCursor] < pos) {
+                mListItemCursor++;
+            }
+            int postBy = indexOfIgnoreCase(mSource, "post by", pos, end);
+            while (pos < end) {
+                int itemEnd = mListItemCursor < mListItemCount ? mListItemEnds[mListItemCursor] : Integer.MAX_VALUE;
+                if (postBy >= 0 && postBy < itemEnd) {
+                    if (matchPostBy(index, postBy)) {
+                        mOut.append(mSource, pos, postBy);
+                        appendPostBy();
+                        return mResumeIndex;
+                    }
+                    postBy = indexOfIgnoreCase(mSource, "post by", postBy + 1, end);
+                    continue;
+                }
+                if (itemEnd < end) {
+                    mOut.append(mSource, pos, itemEnd).append("</li>");
+                    pos = itemEnd + HTML_BREAK.length();
+                    mListItemCursor++;
+                } else {
+                    mOut.append(mSource, pos, end);
+                    pos = end;
+                }
+            }
+            return index + 1;
+        }
+
+        /**
+         * Post by\s{0,}([^\[\s]{1,})\s{0,}\(, 用户名可能被 [uid] 包裹
+         */
+        private boolean matchPostBy(int index, int position) {
+            PostByCursor cursor = new PostByCursor(index, position + 7);
+            while (BBCodeLexer.isWhitespace((char) cursor.peek())) {
+                cursor.advance();
+            }
+            StringBuilder name = new StringBuilder();
+            int lastParenthesis = -1;
+            int lastParenthesisIndex = -1;
+            int lastParenthesisOffset = -1;
+            int c;
+            while ((c = cursor.peek()) >= 0 && c != '[' && !BBCodeLexer.isWhitespace((char) c)) {
+                if (c == '(' && name.length() > 0 && cursor.isText()) {
+                    lastParenthesis = name.length();
+                    lastParenthesisIndex = cursor.mIndex;
+                    lastParenthesisOffset = cursor.mOffset;
+                }
+                name.append((char) c);
+                cursor.advance();
+            }
+            if (name.length() == 0) {
+                return false;
+            }
+            while ((c = cursor.peek()) >= 0 && BBCodeLexer.isWhitespace((char) c)) {
+                cursor.advance();
+            }
+            if (c == '(' && cursor.isText()) {
+                mResumeIndex = cursor.mIndex;
+                mSkipTo = cursor.mOffset + 1;
+            } else if (lastParenthesis > 0) {
+                name.setLength(lastParenthesis);
+                mResumeIndex = lastParenthesisIndex;
+                mSkipTo = lastParenthesisOffset + 1;
+            } else {
+                return false;
+            }
+            mPostByName = name;
+            return true;
+        }
+
+        private void appendPostBy() {
+            mOut.append("Post by <a href='").append(mHost).append("nuke.php?func=ucp&username=").append(mPostByName)
+                    .append(STYLE_LINK).append('[').append(mPostByName).append("]</a> (");
+        }
+
+        /**
+         * 按 Post by 规则执行时的文本视图遍历: [uid] 已被去掉, [b] 等已转换成 html, 其余标签视为 '['
+         */
+        private class PostByCursor {
+
+            private int mIndex;
+
+            private int mOffset;
+
+            PostByCursor(int index, int offset) {
+                mIndex = index;
+                mOffset = offset;
+            }
+
+            boolean isText() {
+                return mIndex < mTokens.size() && mTokens.get(mIndex).isText();
+            }
+
+            int peek() {
+                while (mIndex < mTokens.size()) {
+                    BBCodeToken token = mTokens.get(mIndex);
+                    if (token.isText()) {
+                        if (mOffset < token.getEnd()) {
+                            return mSource.charAt(mOffset);
+                        }
+                    } else {
+                        String html = getPostByView(mIndex);
+                        if (html == null) {
+                            return '[';
+                        } else if (mOffset < html.length()) {
+                            return html.charAt(mOffset);
+                        }
+                    }
+                    mIndex++;
+                    if (mIndex < mTokens.size()) {
+                        BBCodeToken next = mTokens.get(mIndex);
+                        mOffset = next.isText() ? next.getStart() : 0;
+                    }
+                }
+                return -1;
+            }
+
+            void advance() {
+                mOffset++;
+            }
+        }
+
+        private String getPostByView(int index) {
+            int kind = mKind[index];
+            if (kind == KIND_UID) {
+                return "";
+            } else if (kind != KIND_NONE || !EARLY_TAGS.contains(mTokens.get(index).getName())) {
+                return null;
+            }
+            StringBuilder out = mOut;
+            mOut = new StringBuilder();
+            emitSimpleTag(index);
+            String html = mOut.toString();
+            mOut = out;
+            return html;
+        }
+
+        private int emitTag(int index) {
+            BBCodeToken token = mTokens.get(index);
+            int kind = mKind[index];
+            boolean open = mPartner[index] >= index;
+            switch (kind) {
+                case KIND_NONE:
+                    return emitSimpleTag(index);
+                case KIND_CONSUMED:
+                    return index + 1;
+                case KIND_REPLY_TO:
+                    if (open) {
+                        BBCodeToken pid = mTokens.get(index + 2);
+                        int[] commas = parseReplyPid(pid);
+                        mOut.append(STYLE_QUOTE).append("Reply to <b>");
+                        appendReplyLink(pid, commas);
+                        return index + 5;
+                    }
+                    mOut.append("</b>").append(END_DIV);
+                    break;
+                case KIND_REPLY_PID:
+                    appendReplyLink(token, parseReplyPid(token));
+                    return index + 3;
+                case KIND_TOPIC_PID:
+                    mOut.append("Topic");
+                    return index + 3;
+                case KIND_TOPIC_LINK:
+                    appendTopicLink(token).append("[Topic]</a>");
+                    return index + 3;
+                case KIND_URL_HOST_TEXT:
+                case KIND_URL_TEXT:
+                    appendUrlText(index, kind == KIND_URL_HOST_TEXT);
+                    return mPartner[index] + 1;
+                case KIND_URL_HOST:
+                    if (open) {
+                        mOut.append("<a href=\"").append(mHost).append(mSource, token.getAttrStart() + 2, token.getAttrEnd())
+                                .append("\" style='color:#3181f4'>");
+                    } else {
+                        mOut.append("</a>");
+                    }
+                    break;
+                case KIND_URL:
+                    if (open) {
+                        mOut.append("<a href=\"").append(mSource, token.getAttrStart() + 1, token.getAttrEnd()).append("\">");
+                    } else {
+                        mOut.append("</a>");
+                    }
+                    break;
+                case KIND_UID:
+                case KIND_UID_NEGATIVE:
+                case KIND_HIP:
+                    break;
+                case KIND_TID:
+                    if (open) {
+                        appendTopicLink(token).append('[');
+                    } else {
+                        mOut.append("]</a>");
+                    }
+                    break;
+                case KIND_PID_EMPTY:
+                    appendPidLink(token).append("[Reply]</a>");
+                    return index + 2;
+                case KIND_PID:
+                    if (open) {
+                        appendPidLink(token).append('[');
+                    } else {
+                        mOut.append("]</a>");
+                    }
+                    break;
+                case KIND_FLASH: {
+                    BBCodeToken text = mTokens.get(index + 1);
+                    mOut.append("<a href=\"").append(mSource, text.getStart(), text.getEnd())
+                            .append("\"><img src='file:///android_asset/flash.png' style= 'max-width:100%;' ></a>");
+                    return index + 3;
+                }
+                case KIND_TABLE:
+                    if (open) {
+                        mOut.append(HTML_TABLE_START);
+                        skipFollowingBreak(token);
+                    } else {
+                        mOut.append(HTML_TABLE_END);
+                    }
+                    break;
+                case KIND_TR:
+                    mOut.append(open ? "<tr>" : "</tr>");
+                    skipFollowingBreak(token);
+                    break;
+                case KIND_LIST:
+                    mOut.append(open ? "<ul>" : "</ul>");
+                    break;
+                case KIND_LIST_ITEM:
+                    mOut.append("<li>");
+                    break;
+                case KIND_HEADER:
+                    mOut.append(open ? "<b>" : "</b>");
+                    break;
+                case KIND_COLLAPSE_TITLE:
+                    if (open) {
+                        String title = mSource.substring(token.getAttrStart() + 1, token.getAttrEnd());
+                        mOut.append("<div><button onclick='toggleCollapse(this,\"").append(title).append("\")'>点击显示内容 : ")
+                                .append(title).append("</button><div name='collapse' class='collapse' style='display:none'>");
+                    } else {
+                        mOut.append("</div></div>");
+                    }
+                    break;
+                case KIND_COLLAPSE:
+                    if (open) {
+                        mOut.append("<div><button onclick='toggleCollapse(this)'>点击显示内容</button><div name='collapse' class='collapse'style='display:none' >");
+                    } else {
+                        mOut.append("</div></div>");
+                    }
+                    break;
+                case KIND_VIDEO:
+                case KIND_AUDIO:
+                    if (open) {
+                        mOut.append(kind == KIND_VIDEO ? "<video" : "<audio").append(" src='http://img.ngacn.cc/attachments");
+                        mSkipTo = mTokens.get(index + 1).getStart() + 1;
+                    } else if (kind == KIND_VIDEO) {
+                        mOut.append("' controls='controls'></video>");
+                    } else {
+                        mOut.append("&filename=nga_audio.mp3' controls='controls'></audio>");
+                    }
+                    break;
+                case KIND_RANDOM_BLOCK:
+                    mOut.append(getRandomBlockHtml(mTokens.get(index + 2)));
+                    return index + 3;
+                default:
+                    break;
+            }
+            return index + 1;
+        }
+
+        /**
+         * 链接地址只取其中的文本, 显示的内容保留 [b] 等标签转换后的 html
+         */
+        private void appendUrlText(int open, boolean relative) {
+            int close = mPartner[open];
+            String host = relative ? mHost : "";
+            StringBuilder href = new StringBuilder(host);
+            StringBuilder out = mOut;
+            mOut = new StringBuilder(host);
+            for (int i = open + 1; i < close; i++) {
+                BBCodeToken token = mTokens.get(i);
+                if (token.isText()) {
+                    int start = relative && i == open + 1 ? token.getStart() + 1 : token.getStart();
+                    href.append(mSource, start, token.getEnd());
+                    mOut.append(mSource, start, token.getEnd());
+                } else {
+                    emitSimpleTag(i);
+                }
+            }
+            String text = mOut.toString();
+            mOut = out;
+            mOut.append("<a href=\"").append(href).append("\" style='color:#3181f4'>").append(text).append("</a>");
+        }
+
+        private void appendReplyLink(BBCodeToken pid, int[] commas) {
+            mOut.append("<a href='").append(mHost).append("read.php?searchpost=1&pid=")
+                    .append(mSource, pid.getAttrStart() + 1, commas[0])
+                    .append("&tid=").append(mSource, commas[0] + 1, commas[1])
+                    .append(STYLE_LINK).append("[Reply]</a>");
+        }
+
+        private StringBuilder appendTopicLink(BBCodeToken tid) {
+            int start = tid.getAttrStart();
+            if (start < tid.getAttrEnd() && mSource.charAt(start) == '=') {
+                start++;
+            }
+            return mOut.append("<a href='").append(mHost).append("read.php?tid=").append(mSource, start, tid.getAttrEnd()).append(STYLE_LINK);
+        }
+
+        private StringBuilder appendPidLink(BBCodeToken pid) {
+            return mOut.append("<a href='").append(mHost).append("read.php?pid=")
+                    .append(mSource, pid.getAttrStart() + 1, pid.getAttrEnd()).append(STYLE_LINK);
+        }
+
+        private int emitSimpleTag(int index) {
+            BBCodeToken token = mTokens.get(index);
+            boolean closing = token.isClosing();
+            boolean noAttr = !token.hasAttr();
+            switch (token.getName()) {
+                case "l":
+                    if (noAttr) {
+                        mOut.append(closing ? END_DIV : STYLE_LEFT);
+                        return index + 1;
+                    }
+                    break;
+                case "r":
+                    if (noAttr) {
+                        mOut.append(closing ? END_DIV : STYLE_RIGHT);
+                        return index + 1;
+                    }
+                    break;
+                case "align":
+                    if (closing) {
+                        if (noAttr) {
+                            mOut.append(END_DIV);
+                            return index + 1;
+                        }
+                    } else if (token.attrMatches(mSource, "=right", true)) {
+                        mOut.append(STYLE_ALIGN_RIGHT);
+                        return index + 1;
+                    } else if (token.attrMatches(mSource, "=left", true)) {
+                        mOut.append(STYLE_ALIGN_LEFT);
+                        return index + 1;
+                    } else if (token.attrMatches(mSource, "=center", true)) {
+                        mOut.append(STYLE_ALIGN_CENTER);
+                        return index + 1;
+                    }
+                    break;
+                case "quote":
+                    if (noAttr) {
+                        mOut.append(closing ? END_DIV : STYLE_QUOTE);
+                        return index + 1;
+                    }
+                    break;
+                case "b":
+                case "item":
+                    if (noAttr) {
+                        mOut.append(closing ? "</b>" : "<b>");
+                        return index + 1;
+                    }
+                    break;
+                case "u":
+                    if (noAttr) {
+                        mOut.append(closing ? "</u>" : "<u>");
+                        return index + 1;
+                    }
+                    break;
+                case "i":
+                    if (noAttr) {
+                        mOut.append(closing ? "</i>" : "<i style=\"font-style:italic\">");
+                        return index + 1;
+                    }
+                    break;
+                case "del":
+                    if (noAttr) {
+                        mOut.append(closing ? "</del>" : "<del class=\"gray\">");
+                        return index + 1;
+                    }
+                    break;
+                case "s":
+                    if (!closing && token.getAttrEnd() - token.getAttrStart() > 1 && mSource.charAt(token.getAttrStart()) == ':'
+                            && isDigits(mSource, token.getAttrStart() + 1, token.getAttrEnd(), Integer.MAX_VALUE)) {
+                        mOut.append("<img src='file:///android_asset/a").append(mSource, token.getAttrStart() + 1, token.getAttrEnd()).append(".gif'>");
+                        return index + 1;
+                    }
+                    break;
+                case "color":
+                    if (closing ? noAttr : appendStyleSpan(token, "<span style='color:", "' >")) {
+                        if (closing) {
+                            mOut.append("</span>");
+                        }
+                        return index + 1;
+                    }
+                    break;
+                case "font":
+                    if (closing ? noAttr : appendStyleSpan(token, "<span style=\"font-family:", "\">")) {
+                        if (closing) {
+                            mOut.append("</span>");
+                        }
+                        return index + 1;
+                    }
+                    break;
+                case "size":
+                    if (closing ? noAttr : appendSizeSpan(token)) {
+                        if (closing) {
+                            mOut.append("</span>");
+                        }
+                        return index + 1;
+                    }
+                    break;
+                case "td":
+                    if (token.matches(mSource, "[/td]")) {
+                        mOut.append("</td>");
+                        skipFollowingBreak(token);
+                        return index + 1;
+                    } else if (token.matches(mSource, "[td]")) {
+                        mOut.append("<td style='border-left:1px solid #aaa;border-bottom:1px solid #aaa;'>");
+                        return index + 1;
+                    } else if (!closing && appendTableCell(token)) {
+                        return index + 1;
+                    }
+                    break;
+                case "list":
+                    if (noAttr) {
+                        return index + 1;
+                    }
+                    break;
+                case "code":
+                    if (closing) {
+                        if (noAttr) {
+                            mOut.append(END_DIV);
+                            return index + 1;
+                        }
+                    } else {
+                        mOut.append(STYLE_QUOTE);
+                        if (noAttr) {
+                            mOut.append("Code:");
+                        }
+                        return index + 1;
+                    }
+                    break;
+                case "style":
+                    if (token.matches(mSource, "[/style]")) {
+                        appendStyleEnd(token);
+                        return index + 1;
+                    }
+                    // fall through
+                case "lessernuke":
+                case "randomblock":
+                case "symbol":
+                case "stripbr":
+                case "comment": {
+                    if (token.matches(mSource, TAG_GAME_TITLE_IMAGE)) {
+                        int next = emitGameTitleImage(index);
+                        if (next > 0) {
+                            return next;
+                        }
+                    }
+                    String html = TemplateTagRegistry.lookup(mSource, token.getStart(), token.getEnd());
+                    if (html == null) {
+                        html = LITERAL_TAGS.get(mSource.substring(token.getStart(), token.getEnd()));
+                    }
+                    if (html != null) {
+                        mOut.append(html);
+                        return index + 1;
+                    }
+                    break;
+                }
+                case "@": {
+                    int length = token.getAttrEnd() - token.getAttrStart();
+                    if (!closing && length >= 2 && length <= 20) {
+                        String name = mSource.substring(token.getAttrStart(), token.getAttrEnd());
+                        mOut.append("<a href='").append(mHost).append("nuke.php?func=ucp&username=").append(name)
+                                .append(STYLE_LINK).append("[@").append(name).append("]</a>");
+                        return index + 1;
+                    }
+                    break;
+                }
+                default: {
+                    if (!closing && token.length() > 6 && mSource.regionMatches(true, token.getStart(), "[code", 0, 5)) {
+                        // [code=php] 之类
+                        mOut.append(STYLE_QUOTE);
+                        return index + 1;
+                    }
+                    // 后来注册的模板
+                    String html = TemplateTagRegistry.lookup(mSource, token.getStart(), token.getEnd());
+                    if (html != null) {
+                        mOut.append(html);
+                        return index + 1;
+                    }
+                    break;
+                }
+            }
+            mOut.append(mSource, token.getStart(), token.getEnd());
+            return index + 1;
+        }
+
+        /**
+         * [color=X] 和 [font=X], X 中不能包含 '|'
+         */
+        private boolean appendStyleSpan(BBCodeToken token, String prefix, String suffix) {
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            if (end - start < 2 || mSource.charAt(start) != '=' || containsAny(mSource, start + 1, end, "|")) {
+                return false;
+            }
+            mOut.append(prefix).append(mSource, start + 1, end).append(suffix);
+            return true;
+        }
+
+        /**
+         * [size=(\d+)%?]
+         */
+        private boolean appendSizeSpan(BBCodeToken token) {
+            int start = token.getAttrStart();
+            int end = token.getAttrEnd();
+            if (end > start && mSource.charAt(end - 1) == '%') {
+                end--;
+            }
+            if (end - start < 2 || mSource.charAt(start) != '=' || !isDigits(mSource, start + 1, end, Integer.MAX_VALUE)) {
+                return false;
+            }
+            mOut.append("<span style=\"font-size:").append(mSource, start + 1, end)
+                    .append("%;line-height:").append(mSource, start + 1, end).append("%\">");
+            return true;
+        }
+
+        private boolean appendTableCell(BBCodeToken token) {
+            String tag = mSource.substring(token.getStart(), token.getEnd());
+            for (int i = 0; i < TD_PATTERNS.length; i++) {
+                Matcher matcher = TD_PATTERNS[i].matcher(tag);
+                if (matcher.matches()) {
+                    mOut.append(matcher.replaceFirst(TD_RULES[i][1]));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * [/style] 后面的两个或三个换行只保留一个
+         */
+        private void appendStyleEnd(BBCodeToken token) {
+            int pos = token.getEnd();
+            int count = 0;
+            while (count < 3 && mSource.startsWith(HTML_BREAK, pos) && !isListItemEnd(pos)) {
+                pos += HTML_BREAK.length();
+                count++;
+            }
+            mOut.append(END_DIV);
+            if (count >= 2) {
+                mOut.append(HTML_BREAK);
+                mSkipTo = pos;
+            }
+        }
+
+        /**
+         * [comment game_title_image][style border-radius 0.3 width 50 src ./xxx.jpg][/style][/comment game_title_image]
+         */
+        private int emitGameTitleImage(int index) {
+            BBCodeToken style = tokenAt(index + 1);
+            int prefixLength = PREFIX_GAME_TITLE_IMAGE.length();
+            if (style == null || !style.isTag() || style.length() < prefixLength + 2
+                    || !mSource.startsWith(PREFIX_GAME_TITLE_IMAGE, style.getStart())) {
+                return -1;
+            }
+            mOut.append("<img src=\"https://img.nga.178.com/attachments").append(mSource, style.getStart() + prefixLength + 1, style.getEnd() - 1);
+            BBCodeToken styleEnd = tokenAt(index + 2);
+            BBCodeToken commentEnd = tokenAt(index + 3);
+            if (styleEnd != null && styleEnd.matches(mSource, "[/style]") && commentEnd != null
+                    && commentEnd.matches(mSource, TAG_GAME_TITLE_IMAGE_END)) {
+                mOut.append("\" style=\"display:inline-block;border-radius:0.3em;width:50em;\">");
+                return index + 4;
+            }
+            mOut.append(']');
+            return index + 2;
+        }
+    }
+}
@@ -23,8 +23,11 @@ public interface IForumDecoder {
         return decode(content);
     }
 
-    default List<String> getImageUrls() {
-        return null;
+    /**
+     * 解析过程中发现的图片地址添加到 imageUrls 中, 实现类不能保存单次解析的状态
+     */
+    default String decode(String content, @Nullable HtmlData htmlData, @Nullable List<String> imageUrls) {
+        return decode(content, htmlData);
     }
 
 }
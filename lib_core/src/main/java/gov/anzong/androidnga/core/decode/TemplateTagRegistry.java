@@ -0,0 +1,111 @@
+package gov.anzong.androidnga.core.decode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评分贴模板标签, 例如 [style float left] 和 [comment game_title]
+ * <p>
+ * 标签写法为 [名称 属性] 或 [/名称 属性], 名称和属性之间用一个空格分开, 大小写敏感, 属性需要和注册时完全一致.
+ * 解析时遇到 '[' 才按名称查找, 没有这些标签的回复不需要额外扫描
+ */
+public final class TemplateTagRegistry {
+
+    /**
+     * 名称 -> (属性 -> html), 闭标签的名称带 '/'
+     */
+    private static final Map<String, Map<String, String>> sTemplates = new ConcurrentHashMap<>();
+
+    static {
+        register("style", "float left margin 1 0 1 1 width 9 height 7 background #b22222 align center border-radius 0.3 font 0 #fff",
+                "<div style=\"display:inline-block;float:left;margin:1em 0em 1em 1em;width:9em;height:7em;background:#b22222;text-align:center;border-radius:0.3em;color:#fff;\">");
+        register("style", "font 4 line-height 1.3 innerHTML &#36;votedata_voteavgvalue",
+                "<div style=\"display:inline-block;font-size:4em;line-height:1.3em;\">&#36;votedata_voteavgvalue");
+        register("style", "font 1 line-height 1.2", "<div style=\"display:inline-block;font-size:1em;line-height:1.2em;\">");
+        register("style", "innerHTML &#36;votedata_usernum", "<div style=\"display:inline-block;\">&#36;votedata_usernum");
+        register("style", "float left margin 1 0 1 1 color #444", "<div style=\"display:inline-block;float:left;margin:1em 0em 1em 1em;color:#444;\">");
+        register("style", "align justify-all", "<div style=\"display:inline-block;text-align:justify;text-align-last:justify;text-justify:inter-word;\">");
+        register("style", "font 3 #444 line-height 1 width 100%", "<div style=\"display:inline-block;font-size:3em;color:#444;line-height:1em;width:100%;\">");
+        register("style", "width 100% line-height 2.5", "<div style=\"display:inline-block;width:100%;line-height:2.5em;\">");
+        register("style", "line-height 1.5", "<div style=\"display:inline-block;line-height:1.5em;\">");
+        register("style", "color #fff padding 0 0.5 background #0c7da8 border-radius 0.2", "<div style=\"display:inline-block;color:#fff;padding:0em 0.5em;background:#0c7da8;border-radius:0.2em;\">");
+        register("style", "color #444 margin 0 1 1 1 float left clear both", "<div style=\"display:inline-block;color:#444;margin:0em 1em 1em 1em;float:left;clear:both;\">");
+        register("style", "float left width 20", "<div style=\"display:inline-block;float:left;width:20em;\">");
+        register("style", "float left", "<div style=\"display:inline-block;float:left;\">");
+        register("style", "font 2 line-height 1.5", "<div style=\"display:inline-block;font-size:2em;line-height:1.5em;\">");
+        register("style", "float left clear both", "<div style=\"display:inline-block;float:left;clear:both;\">");
+        register("style", "font 2 #b22222 line-height 1.5", "<div style=\"display:inline-block;font-size:2em;color:#b22222;line-height:1.5em;\">");
+
+        // 只用来标记内容, 直接去掉
+        String[] comments = {"oth_title_alias", "oth_type_name", "game_title_cn", "oth_title_cn", "game_title",
+                "game_release", "game_website", "game_type", "game_publisher", "game_devloper"};
+        for (String comment : comments) {
+            register("comment", comment, "");
+            register("/comment", comment, "");
+        }
+        register("symbol", "link", "");
+        register("stripbr", null, "");
+    }
+
+    private TemplateTagRegistry() {
+    }
+
+    /**
+     * @param name       标签名称, 闭标签以 '/' 开头
+     * @param attributes 名称后面的全部内容, 没有时为 null
+     */
+    public static void register(String name, String attributes, String html) {
+        sTemplates.computeIfAbsent(name, key -> new ConcurrentHashMap<>()).put(attributes == null ? "" : attributes, html);
+    }
+
+    /**
+     * @param start '[' 的位置
+     * @param end   ']' 之后的位置
+     * @return 没有注册时返回 null
+     */
+    public static String lookup(String source, int start, int end) {
+        int nameEnd = start + 1;
+        int tagEnd = end - 1;
+        while (nameEnd < tagEnd && source.charAt(nameEnd) != ' ') {
+            nameEnd++;
+        }
+        if (nameEnd == start + 1) {
+            return null;
+        }
+        Map<String, String> templates = sTemplates.get(source.substring(start + 1, nameEnd));
+        if (templates == null) {
+            return null;
+        }
+        return templates.get(nameEnd < tagEnd ? source.substring(nameEnd + 1, tagEnd) : "");
+    }
+
+    /**
+     * 一遍扫描替换所有注册过的标签, 没有匹配时返回 content 本身
+     */
+    public static String replace(String content) {
+        int start = content.indexOf('[');
+        StringBuilder out = null;
+        int from = 0;
+        while (start >= 0) {
+            int end = content.indexOf(']', start + 1);
+            if (end < 0) {
+                break;
+            }
+            // 标签中不会有 '[', 只需要看 ']' 前面最近的一个
+            start = content.lastIndexOf('[', end);
+            String html = lookup(content, start, end + 1);
+            if (html != null) {
+                if (out == null) {
+                    out = new StringBuilder(content.length() + 256);
+                }
+                out.append(content, from, start).append(html);
+                from = end + 1;
+            }
+            start = content.indexOf('[', end + 1);
+        }
+        if (out == null) {
+            return content;
+        }
+        return out.append(content, from, content.length()).toString();
+    }
+}
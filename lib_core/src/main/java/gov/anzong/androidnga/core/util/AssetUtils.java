@@ -0,0 +1,43 @@
+package gov.anzong.androidnga.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * 读取 html 模板
+ * <p>
+ * 默认从 classpath 读取, 在 JVM 上把 assets 目录加入资源目录即可; App 中由 {@link #setReader} 改为从 AssetManager 读取
+ */
+public class AssetUtils {
+
+    private static volatile Function<String, String> sReader = AssetUtils::readResource;
+
+    public static void setReader(Function<String, String> reader) {
+        sReader = reader;
+    }
+
+    public static String readToString(String path) {
+        return sReader.apply(path);
+    }
+
+    private static String readResource(String path) {
+        try (InputStream is = AssetUtils.class.getClassLoader().getResourceAsStream(path)) {
+            if (is == null) {
+                return "";
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = is.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+}
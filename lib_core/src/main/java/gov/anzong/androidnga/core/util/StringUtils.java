@@ -0,0 +1,32 @@
+package gov.anzong.androidnga.core.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 解析用到的字符串工具, 不依赖 Android, 方便在 JVM 上测试和跑 benchmark
+ */
+public class StringUtils {
+
+    /**
+     * 编译好的正则, 多个线程同时解析时共用
+     */
+    private static final Map<String, Pattern> sPatternMap = new ConcurrentHashMap<>();
+
+    public static String replaceAll(String content, String regex, String replacement) {
+        return getPattern(regex).matcher(content).replaceAll(replacement);
+    }
+
+    public static Pattern getPattern(String regex) {
+        Pattern pattern = sPatternMap.get(regex);
+        if (pattern == null) {
+            pattern = sPatternMap.computeIfAbsent(regex, Pattern::compile);
+        }
+        return pattern;
+    }
+
+    public static boolean isEmpty(CharSequence content) {
+        return content == null || content.length() == 0;
+    }
+}
@@ -0,0 +1,31 @@
+package gov.anzong.androidnga.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+
+public class HtmlConvertFactoryTest {
+
+    @Test
+    public void testWrap() {
+        // 私信中的引用需要模板中的样式, 折叠需要模板中的脚本
+        String content = "[quote]引用[/quote][collapse=标题]内容[/collapse]";
+        String body = ForumDecoder.decode(content, HtmlData.create(content, "https://bbs.nga.cn/"));
+        String html = HtmlConvertFactory.wrap(body, true, "background-color:#123456");
+        assertTrue(html.contains("html/script.js"));
+        assertTrue(html.contains("html/style.css"));
+        assertTrue(html.contains("<div class='quote' >引用</div>"));
+        assertTrue(html.contains("toggleCollapse"));
+        // 页面的背景色在模板的样式之后, 才能覆盖
+        int theme = html.indexOf("html/style_dark.css");
+        int style = html.indexOf("<style>body {background-color:#123456}</style>");
+        assertTrue(theme >= 0 && style > theme && style < html.indexOf("<body"));
+        assertEquals(HtmlConvertFactory.getEmptyHtml(false).replace("<body", "<style>body {color:red}</style>\n<body"),
+                HtmlConvertFactory.wrap(null, false, "color:red"));
+        assertEquals(HtmlConvertFactory.getEmptyHtml(false), HtmlConvertFactory.wrap("", false, null));
+    }
+}
@@ -0,0 +1,47 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BBCodeDocumentTest {
+
+    @Test
+    public void testTree() {
+        BBCodeDocument document = BBCodeDocument.parse("[quote]a[b]b[/b][/quote][url=http://a.com]c[/url][s:ac:赞同][dice]d6[/dice][collapse=t]x[/collapse]");
+        List<BBCodeNode> children = document.getRoot().getChildren();
+        assertEquals(5, children.size());
+        assertEquals(BBCodeNode.TYPE_QUOTE, children.get(0).getType());
+        assertEquals(BBCodeNode.TYPE_TAG, children.get(0).getChildren().get(1).getType());
+        assertEquals("http://a.com", ((LinkNode) children.get(1)).getHref());
+        assertEquals("赞同", ((EmoticonNode) children.get(2)).getEmoticonName());
+        assertEquals("d6", ((DiceNode) children.get(3)).getExpression());
+        assertEquals("t", ((CollapseNode) children.get(4)).getTitle());
+    }
+
+    @Test
+    public void testUnclosedTag() {
+        BBCodeDocument document = BBCodeDocument.parse("[b]a[i]b[/b]c[/i]");
+        TagNode b = (TagNode) document.getRoot().getChildren().get(0);
+        assertTrue(b.isClosed());
+        assertEquals("a[i]b", b.getContent(document.getSource()));
+    }
+
+    @Test
+    public void testImageUrls() {
+        BBCodeDocument document = BBCodeDocument.parse("[img]./mon_1/a.jpg.medium.jpg[/img][IMG]http://x.com/b.gif[/IMG][img]foo[/img]");
+        assertEquals(Arrays.asList("http://img.nga.178.com/attachments/mon_1/a.jpg", "http://x.com/b.gif"), document.getImageUrls());
+        assertNull(ImageNode.toImageUrl("foo"));
+    }
+
+    @Test
+    public void testQuoteText() {
+        String content = "[quote]引用[/quote][b]Reply to [pid=1,2,3]Reply[/pid] Post by 某人 (2021-01-01 00:00)[/b]回复 &amp;amp; [b]加粗[/b]";
+        assertEquals("回复 &amp;amp; [b]加粗[/b]", BBCodeDocument.parse(content).getQuoteText());
+    }
+}
@@ -0,0 +1,37 @@
+package gov.anzong.androidnga.core.bbcode;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SimpleContentCheckerTest {
+
+    private static boolean isSimple(String content) {
+        return SimpleContentChecker.isSimple(BBCodeDocument.parse(content));
+    }
+
+    @Test
+    public void testSimple() {
+        assertTrue(isSimple("普通文字<br/>&quot;第二行&quot; [笑]"));
+        assertTrue(isSimple("[b]加粗[/b][i]斜体[/i][u]下划线[/u][del]删除[/del][s:ac:blink][s:ac:不存在]"));
+        assertTrue(isSimple("[quote][pid=1,2,3]Reply[/pid] [b]Post by [uid=4]某人[/uid] (2021-01-01 00:00):[/b]引用[/quote]回复"));
+        assertTrue(isSimple("[b]Reply to [pid=1,2,3]Reply[/pid] Post by 某人 (2021-01-01 00:00)[/b]回复 [@某人]"));
+        assertTrue(isSimple("[url]http://a.com[/url][url=/read.php?tid=1]帖子[/url]"));
+    }
+
+    @Test
+    public void testComplex() {
+        assertFalse(isSimple("[img]./mon_1/a.jpg[/img]"));
+        assertFalse(isSimple("[table][tr][td]a[/td][/tr][/table]"));
+        assertFalse(isSimple("[collapse=t]x[/collapse]"));
+        assertFalse(isSimple("[flash]http://a.com/v.mp4[/flash]"));
+        assertFalse(isSimple("[color=red]红色[/color]"));
+        assertFalse(isSimple("[dice]d6[/dice]"));
+        assertFalse(isSimple("[s:12]"));
+        assertFalse(isSimple("[b]没有闭合"));
+        assertFalse(isSimple("[url=http://a.com][b]加粗链接[/b][/url]"));
+        assertFalse(isSimple("[pid=1]其他[/pid]"));
+        assertFalse(isSimple("<span>html</span>"));
+    }
+}
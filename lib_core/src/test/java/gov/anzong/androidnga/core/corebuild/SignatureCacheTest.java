@@ -0,0 +1,61 @@
+package gov.anzong.androidnga.core.corebuild;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.DiceRoller;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+
+public class SignatureCacheTest {
+
+    private static final String SIGNATURE = "[b]签名[/b][url]https://ngabbs.com[/url]";
+
+    @Before
+    public void setUp() {
+        SignatureCache.getInstance().clear();
+    }
+
+    @Test
+    public void testHit() {
+        SignatureCache cache = SignatureCache.getInstance();
+        long hits = SignatureCache.getThreadHitCount();
+        String expected = ForumDecoder.decode(SIGNATURE, createHtmlData(1, SIGNATURE));
+        assertEquals(expected, cache.decode(createHtmlData(1, SIGNATURE)));
+        assertEquals(expected, cache.decode(createHtmlData(1, SIGNATURE)));
+        assertEquals(1, SignatureCache.getThreadHitCount() - hits);
+
+        // 设置不同时不能命中
+        HtmlData dark = createHtmlData(1, SIGNATURE);
+        dark.setDarkMode(true);
+        cache.decode(dark);
+        assertEquals(1, SignatureCache.getThreadHitCount() - hits);
+    }
+
+    @Test
+    public void testBypass() {
+        SignatureCache cache = SignatureCache.getInstance();
+        long hits = SignatureCache.getThreadHitCount();
+        String signature = "[dice]d6[/dice]";
+        HtmlData htmlData = createHtmlData(1, signature);
+        htmlData.setDiceRoller(new DiceRoller(1, 2, 3));
+        String first = cache.decode(htmlData);
+        String second = cache.decode(htmlData);
+        // 同一个序列中的第二个骰子, 不能直接用缓存的结果
+        htmlData.getDiceRoller().reset();
+        htmlData.getDiceRoller().next();
+        assertEquals(ForumDecoder.decode(signature, htmlData), second);
+        assertEquals(0, SignatureCache.getThreadHitCount() - hits);
+        assertTrue(first.contains("ROLL:"));
+    }
+
+    private static HtmlData createHtmlData(int authorId, String signature) {
+        HtmlData htmlData = HtmlData.create(null, "https://ngabbs.com");
+        htmlData.setAuthorId(authorId);
+        htmlData.setSignature(signature);
+        return htmlData;
+    }
+}
@@ -0,0 +1,33 @@
+package gov.anzong.androidnga.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class VoteDataTest {
+
+    @Test
+    public void testParse() {
+        VoteData voteData = VoteData.parse("10~选项C~_10~1,0~1~选项B~_1~5,0~0~选项A~_0~3,0");
+        assertEquals(VoteData.TYPE_VOTE, voteData.getType());
+        assertEquals(3, voteData.getOptions().size());
+        assertEquals("选项A", voteData.getOptions().get(0).getContent());
+        assertEquals("5", voteData.getOptions().get(1).getUserCount());
+        assertEquals("10", voteData.getOptions().get(2).getId());
+        assertNull(voteData.getScoreOption());
+        assertNull(VoteData.parse(""));
+    }
+
+    @Test
+    public void testScore() {
+        VoteData voteData = VoteData.parse("max~10~type~2~1~x~_1~4,13~0~y~_0~2,7");
+        assertEquals(VoteData.TYPE_SCORE, voteData.getType());
+        assertEquals("3.5", voteData.getScoreOption().getAverageScore());
+        assertEquals("2", voteData.getScoreOption().getUserCount());
+        assertEquals("3.25", voteData.getOptions().get(1).getAverageScore());
+
+        // 缺少 max 时没有平均分
+        assertNull(VoteData.parse("type~2~0~y~_0~2,7").getScoreOption());
+    }
+}
@@ -0,0 +1,24 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ForumAlbumDecoderTest {
+
+    private static final String QUOTE_STYLE = "<div style='background:#E8E8E8;padding:5px;border:1px solid #888' >";
+
+    @Test
+    public void testDecode() {
+        String content = "a[album=相册]<br/>./a.jpg<br/>./b.jpg[/album]b[album=t]./c.jpg[/album]";
+        String expected = "a<br/>" + QUOTE_STYLE + "相册列表:相册<br/><br/>[img]./a.jpg[/img]<br/><br/>[img]./b.jpg[/img]</div>"
+                + "b<br/>" + QUOTE_STYLE + "相册列表:t<br/><br/>./c.jpg</div>";
+        assertEquals(expected, new ForumAlbumDecoder().decode(content, null));
+    }
+
+    @Test
+    public void testUnclosed() {
+        assertEquals("[album=t]<br/>./a.jpg", new ForumAlbumDecoder().decode("[album=t]<br/>./a.jpg", null));
+        assertEquals("[/album][album=t]./a.jpg[/album]", new ForumAlbumDecoder().decode("[/album][album=t]./a.jpg[/album]", null));
+    }
+}
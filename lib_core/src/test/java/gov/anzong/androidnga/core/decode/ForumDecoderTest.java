@@ -0,0 +1,109 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import gov.anzong.androidnga.core.data.DecodeResult;
+import gov.anzong.androidnga.core.data.HtmlData;
+
+/**
+ * 多个线程同时解析的结果应该和单线程一致
+ */
+public class ForumDecoderTest {
+
+    private static final String POSTS = "bbcode/posts.txt";
+
+    @Test
+    public void testConcurrentDecode() throws Exception {
+        List<String> posts = readPosts();
+        List<DecodeResult> expected = new ArrayList<>();
+        for (String post : posts) {
+            expected.add(ForumDecoder.decodeResult(post, createHtmlData(post)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DecodeResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                for (String post : posts) {
+                    futures.add(executor.submit(() -> ForumDecoder.decodeResult(post, createHtmlData(post))));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                DecodeResult result = futures.get(i).get();
+                DecodeResult expect = expected.get(i % posts.size());
+                assertEquals(expect.getHtml(), result.getHtml());
+                assertEquals(expect.getImageUrls(), result.getImageUrls());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testImageUrls() {
+        String content = "[img]./mon_1/a.jpg.medium.jpg[/img]文字[img]http://x.com/b.png[/img]";
+        DecodeResult result = ForumDecoder.decodeResult(content, createHtmlData(content));
+        assertEquals(2, result.getImageUrls().size());
+        assertEquals("http://img.nga.178.com/attachments/mon_1/a.jpg", result.getImageUrls().get(0));
+        assertEquals("http://x.com/b.png", result.getImageUrls().get(1));
+    }
+
+    @Test
+    public void testTimeout() {
+        // 没有结束标签的 [table] 每个都会扫描到末尾
+        StringBuilder builder = new StringBuilder("[img]./a.jpg[/img]");
+        for (int i = 0; i < 50000; i++) {
+            builder.append("[table]x");
+        }
+        String content = builder.toString();
+        ForumDecoder.setDecodeTimeout(50);
+        try {
+            DecodeResult result = ForumDecoder.decodeResult(content, createHtmlData(content));
+            assertTrue(result.isTimedOut());
+            assertEquals(content, result.getHtml());
+            assertTrue(result.getImageUrls().isEmpty());
+
+            String post = "[b]a[/b]";
+            result = ForumDecoder.decodeResult(post, createHtmlData(post));
+            assertFalse(result.isTimedOut());
+            assertEquals("<b>a</b>", result.getHtml());
+        } finally {
+            ForumDecoder.setDecodeTimeout(ForumDecoder.DEFAULT_DECODE_TIMEOUT_MILLIS);
+        }
+    }
+
+    private HtmlData createHtmlData(String content) {
+        HtmlData htmlData = new HtmlData(content);
+        htmlData.setNGAHost("https://bbs.nga.cn/");
+        htmlData.setVote("type~1");
+        return htmlData;
+    }
+
+    private List<String> readPosts() throws IOException {
+        List<String> posts = new ArrayList<>();
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(POSTS);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    posts.add(line);
+                }
+            }
+        }
+        return posts;
+    }
+}
@@ -0,0 +1,51 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import gov.anzong.androidnga.core.data.DecodeResult;
+import gov.anzong.androidnga.core.data.HtmlData;
+
+public class ForumDiceDecoderTest {
+
+    @Test
+    public void testRoll() {
+        DiceRoller roller = new DiceRoller(100, 2000, 30000);
+        assertEquals("a<p><b>ROLL:d6</b>=d6(1)=<b>1</b></p>b<p><b>ROLL:2d20+3</b>=d20(9)+d20(1)+3=<b>13</b></p>",
+                ForumDiceDecoder.roll("a[dice]d6[/dice]b[dice]2d20+3[/dice]", roller));
+    }
+
+    @Test
+    public void testSequence() {
+        // 上一条内容的骰子会消耗随机数, 换行的骰子不处理, 超出限制时仍然取随机数
+        DiceRoller roller = new DiceRoller(100, 2000, 30000);
+        HtmlData htmlData = new HtmlData(null);
+        htmlData.setDiceRoller(roller);
+        assertEquals("[dice]d6\n[/dice]+OUT OF LIMIT<p><b>ROLL:11d6</b>=d6(1)+d6(3)+d6(1)+d6(1)+d6(3)+d6(2)+d6(3)+d6(5)+d6(1)+d6(5)+d6(4)=<b>-1</b></p>",
+                new ForumDiceDecoder().decode("[dice]d6\n[/dice][dice]11d6[/dice]", htmlData));
+        roller.reset();
+        assertEquals("<p><b>ROLL:d6</b>=d6(1)=<b>1</b></p>", new ForumDiceDecoder().decode("[dice]d6[/dice]", htmlData));
+    }
+
+    @Test
+    public void testNoRoller() {
+        String content = "[dice]d6[/dice]";
+        assertSame(content, new ForumDiceDecoder().decode(content, new HtmlData(content)));
+        assertSame(content, new ForumDiceDecoder().decode(content, null));
+    }
+
+    @Test
+    public void testDiceNanos() {
+        HtmlData htmlData = new HtmlData("[dice]d6[/dice]");
+        htmlData.setNGAHost("https://bbs.nga.cn/");
+        htmlData.setDiceRoller(new DiceRoller(100, 2000, 30000));
+        long threadNanos = ForumDecoder.getThreadDiceNanos();
+        DecodeResult result = ForumDecoder.decodeResult(htmlData.getRawData(), htmlData);
+        assertTrue(result.getDiceNanos() > 0);
+        assertTrue(result.getDiceNanos() <= result.getDecodeNanos());
+        assertEquals(result.getDiceNanos(), ForumDecoder.getThreadDiceNanos() - threadNanos);
+    }
+}
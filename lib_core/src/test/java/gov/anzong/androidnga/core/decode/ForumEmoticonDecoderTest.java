@@ -0,0 +1,35 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ForumEmoticonDecoderTest {
+
+    private static final String BLINK = "<img class='emoticon invertFilter' src='file:///android_asset/ac/ac0.png'>";
+
+    private static final String PST = "<img src='file:///android_asset/pst/pt00.png'>";
+
+    @Test
+    public void testDecode() {
+        ForumEmoticonDecoder decoder = new ForumEmoticonDecoder();
+        assertEquals("a" + BLINK + "b" + PST + BLINK, decoder.decode("a[s:ac:blink]b[s:pst:举手][s:ac:blink]"));
+        assertEquals("[s:ac:unknown][s:xx:blink]", decoder.decode("[s:ac:unknown][s:xx:blink]"));
+        assertEquals("[s:ac:blink" + BLINK, decoder.decode("[s:ac:blink[s:ac:blink]"));
+    }
+
+    @Test
+    public void testNoEmoticon() {
+        String content = "没有表情 [s:12] [b]text[/b]";
+        assertSame(content, new ForumEmoticonDecoder().decode(content));
+    }
+
+    @Test
+    public void testEmoticonUrl() {
+        assertEquals("file:///android_asset/ac/ac0.png", ForumEmoticonDecoder.getEmoticonUrl("ac", "blink"));
+        assertEquals("file:///android_asset/pst/pt00.png", ForumEmoticonDecoder.getEmoticonUrl("pst", "举手"));
+        assertNull(ForumEmoticonDecoder.getEmoticonUrl("ac", "unknown"));
+    }
+}
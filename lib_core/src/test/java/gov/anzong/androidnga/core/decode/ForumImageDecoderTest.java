@@ -0,0 +1,47 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+
+public class ForumImageDecoderTest {
+
+    private static final String HOST = "http://img.nga.178.com/attachments";
+
+    private static final String OFFLINE = "<img src='file:///android_asset/ic_offline_image.png' >";
+
+    @Test
+    public void testDecode() {
+        List<String> urls = new ArrayList<>();
+        String html = new ForumImageDecoder().decode("a[img]./mon_1/a.jpg.medium.jpg[/img][IMG]http://x.com/b.gif.thumb.jpg[/IMG]", null, urls);
+        assertEquals("a<a href='" + HOST + "/mon_1/a.jpg'><img src='" + HOST + "/mon_1/a.jpg.medium.jpg'></a>"
+                + "<a href='http://x.com/b.gif'><img src='http://x.com/b.gif'></a>", html);
+        assertEquals(Arrays.asList(HOST + "/mon_1/a.jpg", "http://x.com/b.gif"), urls);
+    }
+
+    @Test
+    public void testNoImage() {
+        HtmlData htmlData = new HtmlData("");
+        htmlData.setShowImage(false);
+        List<String> urls = new ArrayList<>();
+        String html = new ForumImageDecoder().decode("[img]./a.png[/img][img] ./b.png [/img]", htmlData, urls);
+        assertEquals("<a href='" + HOST + "/a.png'>" + OFFLINE + "</a>"
+                + "<a href='" + HOST + "/b.png '><img src='" + HOST + "/b.png '></a>", html);
+        assertEquals(Arrays.asList(HOST + "/a.png"), urls);
+    }
+
+    @Test
+    public void testText() {
+        ForumImageDecoder decoder = new ForumImageDecoder();
+        assertEquals("见 http://x.com/c.gif 和 [img]foo[/img]", decoder.decode("见 http://x.com/c.gif.thumb_s.jpg 和 [img]foo[/img]"));
+        String content = "[img]./a.jpg 没有结束";
+        assertSame(content, decoder.decode(content));
+    }
+}
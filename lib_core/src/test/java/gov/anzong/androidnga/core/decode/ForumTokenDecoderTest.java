@@ -0,0 +1,89 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.anzong.androidnga.core.data.HtmlData;
+
+/**
+ * 对比 ForumTokenDecoder 和 ForumBasicDecoder 在样本帖子上的输出
+ */
+public class ForumTokenDecoderTest {
+
+    private static final String POSTS = "bbcode/posts.txt";
+
+    @Test
+    public void testSameOutputAsBasicDecoder() throws IOException {
+        ForumBasicDecoder basicDecoder = new ForumBasicDecoder();
+        ForumTokenDecoder tokenDecoder = new ForumTokenDecoder();
+        for (String post : readPosts()) {
+            assertEquals(post, basicDecoder.decode(post, createHtmlData()), tokenDecoder.decode(post, createHtmlData()));
+        }
+    }
+
+    @Test
+    public void testVoteScore() throws IOException {
+        ForumBasicDecoder basicDecoder = new ForumBasicDecoder();
+        ForumTokenDecoder tokenDecoder = new ForumTokenDecoder();
+        for (String post : readPosts()) {
+            HtmlData htmlData = createHtmlData();
+            htmlData.setVote("type~2~max~10~0~选项~_0~12,95");
+            assertEquals(post, basicDecoder.decode(post, htmlData), tokenDecoder.decode(post, htmlData));
+        }
+    }
+
+    @Test
+    public void testQuote() {
+        String testString = "[quote]123[quote]456[/quote]789[/quote]";
+        assertEquals("<div class='quote' >123<div class='quote' >456</div>789</div>",
+                new ForumTokenDecoder().decode(testString, createHtmlData()));
+    }
+
+    @Test
+    public void testUrlWithInlineTags() {
+        ForumTokenDecoder decoder = new ForumTokenDecoder();
+        assertEquals("<a href=\"http://a.com/x\" style='color:#3181f4'>http://a.com/<u>x</u></a>",
+                decoder.decode("[url]http://a.com/[u]x[/u][/url]", createHtmlData()));
+        assertEquals("<a href=\"http://x.com\" style='color:#3181f4'><b>http://x.com</b></a>",
+                decoder.decode("[url][b]http://x.com[/b][/url]", createHtmlData()));
+        assertEquals("<a href=\"https://bbs.nga.cn/read.php?tid=1\" style='color:#3181f4'>https://bbs.nga.cn/read.php?<b>tid=1</b></a>",
+                decoder.decode("[url]/read.php?[b]tid=1[/b][/url]", createHtmlData()));
+    }
+
+    @Test
+    public void testUrlWithLateTags() {
+        String testString = "[url]a[color=red]b[/color][/url]";
+        assertEquals(new ForumBasicDecoder().decode(testString, createHtmlData()),
+                new ForumTokenDecoder().decode(testString, createHtmlData()));
+    }
+
+    private HtmlData createHtmlData() {
+        HtmlData htmlData = new HtmlData("");
+        htmlData.setNGAHost("https://bbs.nga.cn/");
+        htmlData.setVote("type~1");
+        return htmlData;
+    }
+
+    private List<String> readPosts() throws IOException {
+        List<String> posts = new ArrayList<>();
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(POSTS);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    posts.add(line);
+                }
+            }
+        }
+        return posts;
+    }
+}
@@ -0,0 +1,30 @@
+package gov.anzong.androidnga.core.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TemplateTagRegistryTest {
+
+    @Test
+    public void testReplace() {
+        String content = "[comment game_title]标题[/comment game_title][[style float left]a[/style][stripbr]";
+        String expected = "标题[<div style=\"display:inline-block;float:left;\">a[/style]";
+        assertEquals(expected, TemplateTagRegistry.replace(content));
+    }
+
+    @Test
+    public void testNoTemplate() {
+        String content = "[b]a[/b][style float right][STYLE float left][comment game_title_image]";
+        assertSame(content, TemplateTagRegistry.replace(content));
+        assertNull(TemplateTagRegistry.lookup("[style]", 0, 7));
+    }
+
+    @Test
+    public void testRegister() {
+        TemplateTagRegistry.register("style", "test only", "<div>");
+        assertEquals("a<div>b", TemplateTagRegistry.replace("a[style test only]b"));
+    }
+}
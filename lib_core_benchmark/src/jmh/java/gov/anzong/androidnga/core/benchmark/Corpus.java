@@ -0,0 +1,52 @@
+package gov.anzong.androidnga.core.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.DiceRoller;
+
+/**
+ * src/jmh/resources/corpus 下的回复, 每行一条
+ */
+class Corpus {
+
+    private static final String HOST = "https://bbs.nga.cn/";
+
+    private static final int AUTHOR_ID = 150058;
+
+    private static final int TID = 25968165;
+
+    static List<String> read(String name) throws IOException {
+        List<String> posts = new ArrayList<>();
+        try (InputStream is = Corpus.class.getClassLoader().getResourceAsStream("corpus/" + name + ".txt")) {
+            if (is == null) {
+                throw new IOException("corpus not found: " + name);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    posts.add(line);
+                }
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * 和 App 中一样, 解析前先建好 {@link BBCodeDocument}, 并且设置掷骰子用的随机数
+     */
+    static HtmlData createHtmlData(String post) {
+        HtmlData htmlData = HtmlData.create(post, HOST);
+        htmlData.setDocument(BBCodeDocument.parse(post));
+        htmlData.setDiceRoller(new DiceRoller(AUTHOR_ID, TID, post.hashCode()));
+        return htmlData;
+    }
+}
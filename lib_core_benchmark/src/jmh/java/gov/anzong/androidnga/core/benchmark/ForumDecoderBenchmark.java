@@ -0,0 +1,66 @@
+package gov.anzong.androidnga.core.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gov.anzong.androidnga.core.data.DecodeResult;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+
+/**
+ * {@link ForumDecoder#decodeResult} 的吞吐量和单条回复的耗时分布, 每次调用依次解析语料中的下一条回复
+ */
+@State(Scope.Thread)
+public class ForumDecoderBenchmark {
+
+    @Param({"tables", "quotes", "albums", "emoticons", "dice"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean tokenizer;
+
+    private List<String> mPosts;
+
+    private HtmlData[] mHtmlData;
+
+    private int mIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        ForumDecoder.setTokenizerEnabled(tokenizer);
+        mPosts = Corpus.read(corpus);
+        mHtmlData = new HtmlData[mPosts.size()];
+        for (int i = 0; i < mHtmlData.length; i++) {
+            mHtmlData[i] = Corpus.createHtmlData(mPosts.get(i));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public DecodeResult decode() {
+        int index = mIndex;
+        mIndex = index + 1 == mHtmlData.length ? 0 : index + 1;
+        return ForumDecoder.decodeResult(mPosts.get(index), mHtmlData[index]);
+    }
+
+    /**
+     * 看 p99
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public DecodeResult decodeLatency() {
+        return decode();
+    }
+}
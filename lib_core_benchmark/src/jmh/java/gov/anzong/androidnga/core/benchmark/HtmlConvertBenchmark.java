@@ -0,0 +1,62 @@
+package gov.anzong.androidnga.core.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gov.anzong.androidnga.core.HtmlConvertFactory;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+
+/**
+ * {@link HtmlConvertFactory#convert} 生成完整页面的开销, 包括模板拼接
+ */
+@State(Scope.Thread)
+public class HtmlConvertBenchmark {
+
+    @Param({"tables", "quotes", "albums", "emoticons", "dice"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean tokenizer;
+
+    private HtmlData[] mHtmlData;
+
+    private int mIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        ForumDecoder.setTokenizerEnabled(tokenizer);
+        List<String> posts = Corpus.read(corpus);
+        mHtmlData = new HtmlData[posts.size()];
+        for (int i = 0; i < mHtmlData.length; i++) {
+            mHtmlData[i] = Corpus.createHtmlData(posts.get(i));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String convert() {
+        int index = mIndex;
+        mIndex = index + 1 == mHtmlData.length ? 0 : index + 1;
+        return HtmlConvertFactory.convert(mHtmlData[index], new ArrayList<>());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String convertLatency() {
+        return convert();
+    }
+}
@@ -0,0 +1,22 @@
+function onRowAction(element, action) {
+    var post = element;
+    while (post != null && post.getAttribute('data-index') == null) {
+        post = post.parentElement;
+    }
+    if (post == null) {
+        return;
+    }
+    var rect = element.getBoundingClientRect();
+    window.page.onRowAction(action, parseInt(post.getAttribute('data-index')), rect.left, rect.bottom);
+}
+
+function scrollToRow(index) {
+    var post = document.getElementById('row_' + index);
+    if (post != null) {
+        post.scrollIntoView();
+    }
+}
+
+window.addEventListener('load', function() {
+    window.page.onPageLoaded();
+});
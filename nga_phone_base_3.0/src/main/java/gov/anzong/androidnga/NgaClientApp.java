@@ -19,12 +19,14 @@ import gov.anzong.androidnga.base.util.ThreadUtils;
 import gov.anzong.androidnga.base.util.ToastUtils;
 import gov.anzong.androidnga.common.PreferenceKey;
 import gov.anzong.androidnga.common.util.ReflectUtils;
+import gov.anzong.androidnga.core.util.AssetUtils;
 import gov.anzong.androidnga.db.AppDatabase;
 import sp.phone.common.FilterKeywordsManagerImpl;
 import sp.phone.common.NoteManangerImpl;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.common.VersionUpgradeHelper;
 import sp.phone.task.CheckInTask;
+import sp.phone.view.webview.WebViewPool;
 
 public class NgaClientApp extends Application {
 
@@ -48,6 +50,13 @@ public class NgaClientApp extends Application {
         // fixWebViewMultiProcessException();
         CloudServerManager.init(this);
         Thread.setDefaultUncaughtExceptionHandler(new ExceptionHandlerProxy(Thread.getDefaultUncaughtExceptionHandler()));
+        WebViewPool.getInstance().prewarm();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        WebViewPool.getInstance().trimMemory(level);
     }
 
     private void initLogger() {
@@ -96,6 +105,8 @@ public class NgaClientApp extends Application {
     }
 
     private void initCoreModule() {
+        // lib_core 默认从 classpath 读取模板, App 中从 assets 读取
+        AssetUtils.setReader(gov.anzong.androidnga.common.util.FileUtils::readAssetToString);
         UserManagerImpl.getInstance().initialize(this);
         NoteManangerImpl.Companion.getInstance().initialize(this);
         FilterKeywordsManagerImpl.getInstance().initialize(this);
@@ -20,15 +20,12 @@ import android.widget.TextView;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.util.HashSet;
 
 import gov.anzong.androidnga.R;
 import gov.anzong.androidnga.util.ToastUtils;
+import okhttp3.Response;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.param.AvatarPostAction;
@@ -355,29 +352,20 @@ public class AvatarPostActivity extends BaseActivity implements
             HttpPostClient c = new HttpPostClient(url);
             String cookie = PhoneConfiguration.getInstance().getCookie();
             c.setCookie(cookie);
-            try {
-                InputStream input = null;
-                HttpURLConnection conn = c.post_body(body);
-                if (conn != null) {
-                    if (conn.getResponseCode() >= 500) {
-                        input = null;
+            try (Response response = c.post(body)) {
+                if (response.code() >= 500) {
+                    keepActivity = true;
+                    ret = "二哥在用服务器下毛片";
+                } else {
+                    if (response.code() >= 400) {
                         keepActivity = true;
-                        ret = "二哥在用服务器下毛片";
-                    } else {
-                        if (conn.getResponseCode() >= 400) {
-                            input = conn.getErrorStream();
-                            keepActivity = true;
-                        } else
-                            input = conn.getInputStream();
                     }
-                } else
-                    keepActivity = true;
-
-                if (input != null) {
-                    String html = IOUtils.toString(input, "gbk");
-                    ret = getReplyResult(html);
-                } else
-                    keepActivity = true;
+                    String html = HttpPostClient.readBody(response);
+                    if (html != null) {
+                        ret = getReplyResult(html);
+                    } else
+                        keepActivity = true;
+                }
             } catch (IOException e) {
                 keepActivity = true;
                 NLog.e(LOG_TAG, NLog.getStackTraceString(e));
@@ -31,6 +31,7 @@ public class ForumListActivity extends BaseActivity {
     private ForumListAdapter mAdapter;
     private RecyclerView mListView;
     private EditText mFilterText;
+    private GetAllForumsTask mTask;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,8 +75,14 @@ public class ForumListActivity extends BaseActivity {
             }
         });
 
-        GetAllForumsTask task = new GetAllForumsTask(this);
-        task.execute();
+        mTask = new GetAllForumsTask(this);
+        mTask.execute();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mTask.cancel();
+        super.onDestroy();
     }
 
     public void notifyResult(ForumsListModel model) {
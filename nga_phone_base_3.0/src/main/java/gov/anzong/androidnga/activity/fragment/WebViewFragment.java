@@ -26,7 +26,8 @@ import androidx.annotation.Nullable;
 
 import com.google.common.base.Strings;
 
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -36,9 +37,8 @@ import gov.anzong.androidnga.base.util.PreferenceUtils;
 import gov.anzong.androidnga.common.PreferenceKey;
 import gov.anzong.androidnga.ui.fragment.BaseFragment;
 import okhttp3.HttpUrl;
-import sp.phone.common.UserManagerImpl;
-import sp.phone.http.cookie.NgaCookieStore;
 import sp.phone.http.cookie.CookieHeaderUtil;
+import sp.phone.http.cookie.NgaCookieJar;
 
 /**
  * @author yangyihang
@@ -49,6 +49,18 @@ public class WebViewFragment extends BaseFragment {
 
     private String mUrl;
 
+    /**
+     * 上次同步到 WebView 时的账号和 Cookie 版本, 以及已经同步的域名
+     */
+    private static String sSyncedState;
+
+    private static final Set<String> sSyncedHosts = new HashSet<>();
+
+    /**
+     * 域名 -> 上次同步的 Cookie 名称, 用于删除已经过期的
+     */
+    private static final Map<String, Set<String>> sSyncedNames = new HashMap<>();
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -115,9 +127,7 @@ public class WebViewFragment extends BaseFragment {
             public void onPageFinished(WebView view, String url) {
                 String pageCookie = CookieManager.getInstance().getCookie(url);
                 if (!TextUtils.isEmpty(pageCookie)) {
-                    String existing = PreferenceUtils.getData(PreferenceKey.KEY_WEBVIEW_COOKIE, "");
-                    String merged = CookieHeaderUtil.mergeCookieHeaders(existing, pageCookie);
-                    PreferenceUtils.putData(PreferenceKey.KEY_WEBVIEW_COOKIE, merged);
+                    NgaCookieJar.getInstance().saveWebViewCookie(pageCookie);
                 }
                 setTitle(view.getTitle());
                 super.onPageFinished(view, url);
@@ -203,21 +213,17 @@ public class WebViewFragment extends BaseFragment {
         return startExternalBrowser(getContext(), url);
     }
 
+    /**
+     * 把 Cookie 同步到 WebView, 账号和 Cookie 没有变化时已经同步过的域名不再同步
+     */
     private void syncCookies(WebView webView, String url) {
-        String storedCookie = PreferenceUtils.getData(PreferenceKey.KEY_WEBVIEW_COOKIE, "");
-        if (!TextUtils.isEmpty(storedCookie)) {
-            String activeUid = UserManagerImpl.getInstance().getUserId();
-            if (!TextUtils.isEmpty(activeUid)) {
-                String storedUid = CookieHeaderUtil.parseCookieHeader(storedCookie).get("ngaPassportUid");
-                if (!TextUtils.isEmpty(storedUid) && !activeUid.equals(storedUid)) {
-                    storedCookie = "";
-                }
-            }
+        NgaCookieJar cookieJar = NgaCookieJar.getInstance();
+        String account = cookieJar.getAccount(null);
+        String state = account + ':' + cookieJar.getVersion();
+        if (!state.equals(sSyncedState)) {
+            sSyncedState = state;
+            sSyncedHosts.clear();
         }
-        String userCookie = UserManagerImpl.getInstance().getCookie();
-        Map<String, String> baseCookies = new LinkedHashMap<>();
-        mergeCookies(baseCookies, userCookie);
-        mergeCookies(baseCookies, storedCookie);
 
         CookieManager cookieManager = CookieManager.getInstance();
         cookieManager.setAcceptCookie(true);
@@ -240,30 +246,35 @@ public class WebViewFragment extends BaseFragment {
             hosts.add(domain.replace("\"", "").trim());
         }
 
+        boolean changed = false;
         for (String host : hosts) {
-            if (TextUtils.isEmpty(host)) {
+            if (TextUtils.isEmpty(host) || sSyncedHosts.contains(host)) {
                 continue;
             }
             String baseUrl = host.startsWith("http") ? host : "https://" + host;
-            Map<String, String> mergedCookies = new LinkedHashMap<>(baseCookies);
             HttpUrl hostUrl = HttpUrl.parse(baseUrl);
-            if (hostUrl != null) {
-                mergeCookies(mergedCookies, NgaCookieStore.getInstance().getCookieHeader(hostUrl));
-            }
-            if (mergedCookies.isEmpty()) {
+            if (hostUrl == null) {
                 continue;
             }
-            for (Map.Entry<String, String> entry : mergedCookies.entrySet()) {
+            sSyncedHosts.add(host);
+            String cookie = cookieJar.getCookieHeader(account, hostUrl, null);
+            Map<String, String> cookies = CookieHeaderUtil.parseCookieHeader(cookie);
+            for (Map.Entry<String, String> entry : cookies.entrySet()) {
                 cookieManager.setCookie(baseUrl, entry.getKey() + "=" + entry.getValue() + "; Path=/");
+                changed = true;
+            }
+            Set<String> oldNames = sSyncedNames.put(host, new HashSet<>(cookies.keySet()));
+            if (oldNames != null) {
+                for (String name : oldNames) {
+                    if (!cookies.containsKey(name)) {
+                        cookieManager.setCookie(baseUrl, name + "=; Max-Age=0; Path=/");
+                        changed = true;
+                    }
+                }
             }
         }
-        cookieManager.flush();
-    }
-
-    private void mergeCookies(Map<String, String> target, String cookieHeader) {
-        if (TextUtils.isEmpty(cookieHeader)) {
-            return;
+        if (changed) {
+            cookieManager.flush();
         }
-        target.putAll(CookieHeaderUtil.parseCookieHeader(cookieHeader));
     }
 }
@@ -14,6 +14,8 @@ import gov.anzong.androidnga.base.util.ContextUtils;
 import gov.anzong.androidnga.base.util.DeviceUtils;
 import gov.anzong.androidnga.base.util.PreferenceUtils;
 import gov.anzong.androidnga.common.PreferenceKey;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+import sp.phone.mvp.model.convert.ArticleHtmlCache;
 
 public class PhoneConfiguration extends PreferenceKey implements SharedPreferences.OnSharedPreferenceChangeListener {
     public Class<?> topicActivityClass = TopicListActivity.class;
@@ -46,6 +48,10 @@ public class PhoneConfiguration extends PreferenceKey implements SharedPreferenc
 
     private boolean mSortByPostOrder;
 
+    private boolean mArticlePageRender;
+
+    private boolean mArticleNativeRender;
+
     private String mAvatarLoadStrategy = PreferenceKey.IMAGE_LOAD_ALWAYS;
 
     private String mImageLoadStrategy = PreferenceKey.IMAGE_LOAD_ALWAYS;
@@ -80,6 +86,15 @@ public class PhoneConfiguration extends PreferenceKey implements SharedPreferenc
             case PreferenceKey.HARDWARE_ACCELERATED:
                 mHardwareAcceleratedEnabled = sp.getBoolean(key, true);
                 break;
+            case PreferenceKey.BBCODE_TOKENIZER:
+                ForumDecoder.setTokenizerEnabled(sp.getBoolean(key, false));
+                break;
+            case PreferenceKey.ARTICLE_PAGE_RENDER:
+                mArticlePageRender = sp.getBoolean(key, false);
+                break;
+            case PreferenceKey.ARTICLE_NATIVE_RENDER:
+                mArticleNativeRender = sp.getBoolean(key, true);
+                break;
             case PreferenceKey.FILTER_SUB_BOARD:
                 mFilterSubBoard = sp.getBoolean(key, false);
                 break;
@@ -95,7 +110,9 @@ public class PhoneConfiguration extends PreferenceKey implements SharedPreferenc
             default:
                 break;
         }
-
+        if (ArticleHtmlCache.isRenderKey(key)) {
+            ArticleHtmlCache.getInstance().clear();
+        }
     }
 
     private static class PhoneConfigurationHolder {
@@ -126,6 +143,9 @@ public class PhoneConfiguration extends PreferenceKey implements SharedPreferenc
         mHardwareAcceleratedEnabled = sp.getBoolean(PreferenceKey.HARDWARE_ACCELERATED, true);
         mFilterSubBoard = sp.getBoolean(PreferenceKey.FILTER_SUB_BOARD, false);
         mSortByPostOrder = sp.getBoolean(PreferenceKey.SORT_BY_POST, false);
+        ForumDecoder.setTokenizerEnabled(sp.getBoolean(PreferenceKey.BBCODE_TOKENIZER, false));
+        mArticlePageRender = sp.getBoolean(PreferenceKey.ARTICLE_PAGE_RENDER, false);
+        mArticleNativeRender = sp.getBoolean(PreferenceKey.ARTICLE_NATIVE_RENDER, true);
 
         mImageLoadStrategy = sp.getString(PreferenceKey.KEY_LOAD_IMAGE_STRATEGY, mImageLoadStrategy);
         mAvatarLoadStrategy = sp.getString(PreferenceKey.KEY_LOAD_AVATAR_STRATEGY, mAvatarLoadStrategy);
@@ -135,6 +155,20 @@ public class PhoneConfiguration extends PreferenceKey implements SharedPreferenc
         return mSortByPostOrder;
     }
 
+    /**
+     * 帖子的一页显示在同一个网页中
+     */
+    public boolean isArticlePageRenderEnabled() {
+        return mArticlePageRender;
+    }
+
+    /**
+     * 只有简单内容的回复不使用 WebView
+     */
+    public boolean isArticleNativeRenderEnabled() {
+        return mArticleNativeRender;
+    }
+
     public boolean isShowBottomTab() {
         return mShowBottomTab;
     }
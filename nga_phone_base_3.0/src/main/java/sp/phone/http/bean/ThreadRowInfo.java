@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.data.VoteData;
+
 /**
  * 每一行的内容
  */
@@ -37,6 +40,14 @@ public class ThreadRowInfo {
 
     private String mFormattedHtmlData;
 
+    private BBCodeDocument mDocument;
+
+    private VoteData mVoteData;
+
+    private volatile boolean mRenderPending;
+
+    private CharSequence mNativeContent;
+
     private String from_client;
     private String from_client_model;
 
@@ -275,6 +286,50 @@ public class ThreadRowInfo {
         mFormattedHtmlData = formattedHtmlData;
     }
 
+    /**
+     * 解析好的 content, 转换时创建一次, 供渲染, 图片和引用共用
+     */
+    public BBCodeDocument getDocument() {
+        return mDocument;
+    }
+
+    public void setDocument(BBCodeDocument document) {
+        mDocument = document;
+    }
+
+    /**
+     * 解析好的 vote, 转换时创建一次, 没有投票时为 null
+     */
+    public VoteData getVoteData() {
+        return mVoteData;
+    }
+
+    public void setVoteData(VoteData voteData) {
+        mVoteData = voteData;
+    }
+
+    /**
+     * content 还没有转换成 html, 等列表显示到这一行时再转换
+     */
+    public boolean isRenderPending() {
+        return mRenderPending;
+    }
+
+    public void setRenderPending(boolean renderPending) {
+        mRenderPending = renderPending;
+    }
+
+    /**
+     * 只有简单内容的回复直接用 TextView 显示, 为 null 时用 WebView 显示 html
+     */
+    public CharSequence getNativeContent() {
+        return mNativeContent;
+    }
+
+    public void setNativeContent(CharSequence nativeContent) {
+        mNativeContent = nativeContent;
+    }
+
     public boolean isMuted() {
         return mMuted;
     }
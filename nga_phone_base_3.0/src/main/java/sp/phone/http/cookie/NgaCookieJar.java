@@ -0,0 +1,338 @@
+package sp.phone.http.cookie;
+
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.anzong.androidnga.base.util.PreferenceUtils;
+import gov.anzong.androidnga.base.util.ThreadUtils;
+import gov.anzong.androidnga.common.PreferenceKey;
+import okhttp3.Cookie;
+import okhttp3.HttpUrl;
+import sp.phone.common.UserManagerImpl;
+
+/**
+ * 内存中的 Cookie, 按账号和域名保存, 每次请求只需要查表
+ * <p>
+ * 修改后延迟写入 SharedPreferences, 短时间内的多次修改只写一次; 第一次加载时导入旧版 NgaCookieStore 和网页登录保存的 Cookie
+ */
+public final class NgaCookieJar {
+
+    private static final String PREF_KEY = "pref_nga_http_cookie_store_v2";
+
+    private static final String PREF_KEY_V1 = "pref_nga_http_cookie_store_v1";
+
+    private static final String KEY_UID = "ngaPassportUid";
+
+    /**
+     * 网页中的 Cookie 发送到所有域名
+     */
+    private static final String ALL_HOSTS = "*";
+
+    private static final long PERSIST_DELAY = 3000;
+
+    private static final class StoredCookie {
+        public String name;
+        public String value;
+        public long expiresAt;
+    }
+
+    private static final class CachedHeader {
+        String baseCookie;
+        String header;
+        long expiresAt;
+    }
+
+    /**
+     * 账号 -> 域名 -> 名称 -> Cookie, 没有登录时账号为空字符串
+     */
+    private Map<String, Map<String, Map<String, StoredCookie>>> mStore;
+
+    /**
+     * 账号 + 域名 -> 拼好的 Cookie 头, 有修改时清空
+     */
+    private final Map<String, CachedHeader> mHeaderCache = new HashMap<>();
+
+    private int mVersion;
+
+    private boolean mPersistScheduled;
+
+    private static final class SingletonHolder {
+        private static final NgaCookieJar INSTANCE = new NgaCookieJar();
+    }
+
+    public static NgaCookieJar getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private NgaCookieJar() {
+    }
+
+    /**
+     * @param explicitCookie 请求中指定的 Cookie, 例如用其他账号重试时, 为 null 时使用当前账号
+     */
+    public String getAccount(@Nullable String explicitCookie) {
+        if (explicitCookie == null) {
+            return UserManagerImpl.getInstance().getUserId();
+        }
+        String uid = CookieHeaderUtil.parseCookieHeader(explicitCookie).get(KEY_UID);
+        return uid != null ? uid : "";
+    }
+
+    /**
+     * 依次合并这个域名收到的 Cookie, 账号的 Cookie 和网页中的 Cookie, 后面的覆盖前面的
+     *
+     * @param explicitCookie 请求中指定的 Cookie, 代替当前账号的 Cookie
+     */
+    public synchronized String getCookieHeader(String account, HttpUrl url, @Nullable String explicitCookie) {
+        String baseCookie = explicitCookie != null ? explicitCookie : UserManagerImpl.getInstance().getCookie();
+        String key = account + '\n' + url.host();
+        long now = System.currentTimeMillis();
+        CachedHeader cached = mHeaderCache.get(key);
+        if (cached != null && cached.expiresAt > now && TextUtils.equals(cached.baseCookie, baseCookie)) {
+            return cached.header;
+        }
+        Map<String, Map<String, StoredCookie>> hosts = getHosts(account, false);
+        Map<String, String> merged = new LinkedHashMap<>();
+        long expiresAt = Long.MAX_VALUE;
+        if (hosts != null) {
+            expiresAt = Math.min(expiresAt, collect(hosts.get(url.host()), merged, now));
+        }
+        merged.putAll(CookieHeaderUtil.parseCookieHeader(baseCookie));
+        if (hosts != null) {
+            expiresAt = Math.min(expiresAt, collect(hosts.get(ALL_HOSTS), merged, now));
+        }
+        cached = new CachedHeader();
+        cached.baseCookie = baseCookie;
+        cached.header = toHeader(merged);
+        cached.expiresAt = expiresAt;
+        mHeaderCache.put(key, cached);
+        return cached.header;
+    }
+
+    public synchronized void saveFromResponse(String account, HttpUrl url, List<Cookie> cookies) {
+        if (cookies == null || cookies.isEmpty()) {
+            return;
+        }
+        Map<String, StoredCookie> hostCookies = getHostCookies(account, url.host());
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        for (Cookie cookie : cookies) {
+            if (cookie.expiresAt() <= now) {
+                changed |= hostCookies.remove(cookie.name()) != null;
+            } else {
+                changed |= put(hostCookies, cookie.name(), cookie.value(), cookie.expiresAt());
+            }
+        }
+        if (changed) {
+            onChanged();
+        }
+    }
+
+    /**
+     * 保存网页中的 Cookie, 和已有的相同时不做任何事
+     */
+    public synchronized void saveWebViewCookie(String cookieHeader) {
+        Map<String, String> cookies = CookieHeaderUtil.parseCookieHeader(cookieHeader);
+        if (cookies.isEmpty()) {
+            return;
+        }
+        String uid = cookies.get(KEY_UID);
+        Map<String, StoredCookie> hostCookies = getHostCookies(uid != null ? uid : UserManagerImpl.getInstance().getUserId(), ALL_HOSTS);
+        boolean changed = false;
+        for (Map.Entry<String, String> entry : cookies.entrySet()) {
+            changed |= put(hostCookies, entry.getKey(), entry.getValue(), Long.MAX_VALUE);
+        }
+        if (changed) {
+            onChanged();
+        }
+    }
+
+    /**
+     * 每次修改加一, 用于判断是否需要重新同步到 WebView
+     */
+    public synchronized int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return 最早过期的时间
+     */
+    private long collect(@Nullable Map<String, StoredCookie> hostCookies, Map<String, String> out, long now) {
+        long expiresAt = Long.MAX_VALUE;
+        if (hostCookies == null) {
+            return expiresAt;
+        }
+        boolean removed = false;
+        Iterator<StoredCookie> it = hostCookies.values().iterator();
+        while (it.hasNext()) {
+            StoredCookie sc = it.next();
+            if (sc == null || sc.expiresAt <= now || TextUtils.isEmpty(sc.name)) {
+                it.remove();
+                removed = true;
+                continue;
+            }
+            out.put(sc.name, sc.value);
+            expiresAt = Math.min(expiresAt, sc.expiresAt);
+        }
+        if (removed) {
+            // 过期的也要从 WebView 中删除
+            onChanged();
+        }
+        return expiresAt;
+    }
+
+    /**
+     * @return 值是否改变, 只延长过期时间时不需要重新拼 Cookie 头和同步到 WebView
+     */
+    private boolean put(Map<String, StoredCookie> hostCookies, String name, String value, long expiresAt) {
+        StoredCookie sc = hostCookies.get(name);
+        if (sc != null && TextUtils.equals(sc.value, value)) {
+            if (sc.expiresAt != expiresAt) {
+                sc.expiresAt = expiresAt;
+                schedulePersist();
+            }
+            return false;
+        }
+        sc = new StoredCookie();
+        sc.name = name;
+        sc.value = value;
+        sc.expiresAt = expiresAt;
+        hostCookies.put(name, sc);
+        return true;
+    }
+
+    private void onChanged() {
+        mVersion++;
+        mHeaderCache.clear();
+        schedulePersist();
+    }
+
+    private Map<String, StoredCookie> getHostCookies(String account, String host) {
+        Map<String, Map<String, StoredCookie>> hosts = getHosts(account, true);
+        Map<String, StoredCookie> hostCookies = hosts.get(host);
+        if (hostCookies == null) {
+            hostCookies = new LinkedHashMap<>();
+            hosts.put(host, hostCookies);
+        }
+        return hostCookies;
+    }
+
+    private Map<String, Map<String, StoredCookie>> getHosts(String account, boolean create) {
+        if (mStore == null) {
+            mStore = loadStore();
+        }
+        Map<String, Map<String, StoredCookie>> hosts = mStore.get(account);
+        if (hosts == null && create) {
+            hosts = new HashMap<>();
+            mStore.put(account, hosts);
+        }
+        return hosts;
+    }
+
+    /**
+     * 在主线程延迟, 期间的修改合并成一次写入
+     */
+    private void schedulePersist() {
+        if (mPersistScheduled) {
+            return;
+        }
+        mPersistScheduled = true;
+        ThreadUtils.postOnMainThreadDelay(() -> ThreadUtils.postOnSubThread(this::persist), PERSIST_DELAY);
+    }
+
+    private void persist() {
+        String json;
+        synchronized (this) {
+            mPersistScheduled = false;
+            json = JSON.toJSONString(mStore);
+        }
+        PreferenceUtils.putData(PREF_KEY, json);
+    }
+
+    private Map<String, Map<String, Map<String, StoredCookie>>> loadStore() {
+        String json = PreferenceUtils.getData(PREF_KEY, "");
+        if (!TextUtils.isEmpty(json)) {
+            try {
+                Map<String, Map<String, Map<String, StoredCookie>>> data = JSON.parseObject(
+                        json,
+                        new TypeReference<Map<String, Map<String, Map<String, StoredCookie>>>>() {
+                        });
+                if (data != null) {
+                    return data;
+                }
+            } catch (Throwable ignored) {
+            }
+        }
+        return migrate();
+    }
+
+    /**
+     * 旧版的 Cookie 不区分账号, 导入当前账号
+     */
+    private Map<String, Map<String, Map<String, StoredCookie>>> migrate() {
+        Map<String, Map<String, Map<String, StoredCookie>>> store = new HashMap<>();
+        String account = UserManagerImpl.getInstance().getUserId();
+        String json = PreferenceUtils.getData(PREF_KEY_V1, "");
+        if (!TextUtils.isEmpty(json)) {
+            try {
+                Map<String, Map<String, StoredCookie>> data = JSON.parseObject(
+                        json,
+                        new TypeReference<Map<String, Map<String, StoredCookie>>>() {
+                        });
+                if (data != null) {
+                    store.put(account, data);
+                }
+            } catch (Throwable ignored) {
+            }
+        }
+        String webViewCookie = PreferenceUtils.getData(PreferenceKey.KEY_WEBVIEW_COOKIE, "");
+        Map<String, String> cookies = CookieHeaderUtil.parseCookieHeader(webViewCookie);
+        if (!cookies.isEmpty()) {
+            String uid = cookies.get(KEY_UID);
+            Map<String, StoredCookie> hostCookies = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : cookies.entrySet()) {
+                put(hostCookies, entry.getKey(), entry.getValue(), Long.MAX_VALUE);
+            }
+            String webViewAccount = uid != null ? uid : account;
+            Map<String, Map<String, StoredCookie>> hosts = store.get(webViewAccount);
+            if (hosts == null) {
+                hosts = new HashMap<>();
+                store.put(webViewAccount, hosts);
+            }
+            hosts.put(ALL_HOSTS, hostCookies);
+        }
+        // 和删除旧数据一起提交, 不会丢失
+        PreferenceUtils.edit()
+                .putString(PREF_KEY, JSON.toJSONString(store))
+                .remove(PREF_KEY_V1)
+                .remove(PreferenceKey.KEY_WEBVIEW_COOKIE)
+                .apply();
+        return store;
+    }
+
+    private static String toHeader(Map<String, String> map) {
+        if (map.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            if (!first) {
+                sb.append("; ");
+            }
+            first = false;
+            sb.append(e.getKey()).append('=').append(e.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -3,11 +3,13 @@ package sp.phone.http.retrofit;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.text.TextUtils;
-import android.webkit.CookieManager;
 import android.webkit.WebSettings;
 
+import java.io.File;
 import java.net.URLDecoder;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import gov.anzong.androidnga.base.util.ContextUtils;
 import gov.anzong.androidnga.base.util.PreferenceUtils;
@@ -15,6 +17,8 @@ import gov.anzong.androidnga.base.util.StringUtils;
 import gov.anzong.androidnga.base.util.ThreadUtils;
 import gov.anzong.androidnga.common.PreferenceKey;
 import gov.anzong.androidnga.debug.Debugger;
+import okhttp3.Cache;
+import okhttp3.Cookie;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -23,9 +27,7 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
-import sp.phone.common.UserManagerImpl;
-import sp.phone.http.cookie.CookieHeaderUtil;
-import sp.phone.http.cookie.NgaCookieStore;
+import sp.phone.http.cookie.NgaCookieJar;
 import sp.phone.http.retrofit.converter.JsonStringConvertFactory;
 import sp.phone.util.ForumUtils;
 import sp.phone.util.NLog;
@@ -37,17 +39,50 @@ import sp.phone.view.webview.WebViewEx;
 
 public class RetrofitHelper {
 
-    private Retrofit mRetrofit;
+    private volatile Retrofit mRetrofit;
 
     private static final String URL_NGA_BASE_CC = "https://bbs.ngacn.cc/";
 
+    private static final long HTTP_CACHE_SIZE = 10 * 1024 * 1024;
+
+    private static final int UPLOAD_TIMEOUT_MINUTES = 5;
+
     private String mBaseUrl;
 
     private String mUserAgent = "";
 
+    /**
+     * 所有请求共用的连接池, 线程池和缓存, 其他 OkHttpClient 都由它的 newBuilder() 创建
+     */
+    private final OkHttpClient mBaseClient;
+
+    /**
+     * 带有 Cookie 和 User-Agent 的 OkHttpClient, 论坛的接口都使用这个
+     */
+    private final OkHttpClient mOkHttpClient;
+
+    private volatile OkHttpClient mUploadClient;
+
+    private volatile OkHttpClient mNoRedirectClient;
+
+    /**
+     * Retrofit 创建的接口实例, 切换域名时清空
+     */
+    private final Map<Class<?>, Object> mServices = new ConcurrentHashMap<>();
+
+    private volatile RetrofitService mUploadService;
+
+    private volatile RetrofitService mDefaultService;
+
+    private volatile RetrofitService mAuthCodeService;
+
     private RetrofitHelper() {
         Context context = ContextUtils.getContext();
         SharedPreferences sp = context.getSharedPreferences(PreferenceKey.PERFERENCE, Context.MODE_PRIVATE);
+        mBaseClient = new OkHttpClient.Builder()
+                .cache(new Cache(new File(context.getCacheDir(), "okhttp"), HTTP_CACHE_SIZE))
+                .build();
+        mOkHttpClient = addInterceptors(mBaseClient.newBuilder()).build();
         mBaseUrl = ForumUtils.getAvailableDomain();
         mRetrofit = createRetrofit();
 
@@ -55,6 +90,8 @@ public class RetrofitHelper {
             if (key.equals(PreferenceKey.KEY_NGA_DOMAIN)) {
                 mBaseUrl = ForumUtils.getAvailableDomain();
                 mRetrofit = createRetrofit();
+                mServices.clear();
+                mUploadService = null;
             }
         });
 
@@ -88,54 +125,50 @@ public class RetrofitHelper {
     }
 
     public Retrofit createRetrofit(String baseUrl, OkHttpClient.Builder builder) {
-        if (builder == null) {
-            builder = createOkHttpClientBuilder();
-        }
+        return buildRetrofit(baseUrl, builder != null ? builder.build() : mOkHttpClient);
+    }
+
+    private Retrofit buildRetrofit(String baseUrl, OkHttpClient client) {
         return new Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .addConverterFactory(JsonStringConvertFactory.create())
                 .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .client(builder.build())
+                .client(client)
                 .build();
     }
 
+    /**
+     * 返回的 Builder 和 {@link #getOkHttpClient()} 共用连接池和缓存, 只用于需要修改超时等设置的请求
+     */
     public OkHttpClient.Builder createOkHttpClientBuilder() {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        return mOkHttpClient.newBuilder();
+    }
+
+    private OkHttpClient.Builder addInterceptors(OkHttpClient.Builder builder) {
         builder.addInterceptor(chain -> {
             Request original = chain.request();
-
             HttpUrl url = original.url();
 
+            // 用其他账号重试时请求中会指定 Cookie
+            NgaCookieJar cookieJar = NgaCookieJar.getInstance();
             String explicitCookie = original.header("Cookie");
-            String baseCookie = explicitCookie != null ? explicitCookie : UserManagerImpl.getInstance().getCookie();
-
-            String webViewCookie = null;
-            try {
-                webViewCookie = CookieManager.getInstance().getCookie(url.toString());
-            } catch (Throwable ignored) {
-            }
-
-            String persistedCookie = PreferenceUtils.getData(PreferenceKey.KEY_WEBVIEW_COOKIE, "");
-            if (!TextUtils.isEmpty(persistedCookie)) {
-                String activeUid = UserManagerImpl.getInstance().getUserId();
-                String storedUid = CookieHeaderUtil.parseCookieHeader(persistedCookie).get("ngaPassportUid");
-                if (!TextUtils.isEmpty(activeUid) && !TextUtils.isEmpty(storedUid) && !activeUid.equals(storedUid)) {
-                    persistedCookie = "";
-                }
-            }
-            String storedCookie = NgaCookieStore.getInstance().getCookieHeader(url);
-            String mergedCookie = CookieHeaderUtil.mergeCookieHeaders(storedCookie, baseCookie, persistedCookie, webViewCookie);
+            String account = cookieJar.getAccount(explicitCookie);
+            String cookie = cookieJar.getCookieHeader(account, url, explicitCookie);
 
+            // 请求中指定的 User-Agent 不覆盖, 例如客户端接口使用的 Nga_Official
+            String userAgent = original.header("User-Agent");
             Request.Builder requestBuilder = original.newBuilder()
-                    .header("User-Agent", mUserAgent)
+                    .header("User-Agent", userAgent != null ? userAgent : mUserAgent)
                     .header("X-User-Agent", "Nga_Official")
                     .method(original.method(), original.body());
-            if (!TextUtils.isEmpty(mergedCookie)) {
-                requestBuilder.header("Cookie", mergedCookie);
+            if (!TextUtils.isEmpty(cookie)) {
+                requestBuilder.header("Cookie", cookie);
             } else {
                 requestBuilder.removeHeader("Cookie");
             }
-            return chain.proceed(requestBuilder.build());
+            Response response = chain.proceed(requestBuilder.build());
+            cookieJar.saveFromResponse(account, url, Cookie.parseAll(url, response.headers()));
+            return response;
         });
         builder.addInterceptor(chain -> {
             Request request = chain.request();
@@ -157,48 +190,102 @@ public class RetrofitHelper {
             Debugger.collectRequest(request);
             return chain.proceed(request);
         });
-        builder.addInterceptor(chain -> {
-            Request request = chain.request();
-            Response response = chain.proceed(request);
-            List<String> setCookies = response.headers("Set-Cookie");
-            if (setCookies != null && !setCookies.isEmpty()) {
-                try {
-                    NgaCookieStore.getInstance().saveFromResponse(request.url(), setCookies);
-                } catch (Throwable ignored) {
+        return builder;
+    }
+
+    /**
+     * 不经过 Retrofit 的请求也使用这个, 带有和接口请求一样的 Cookie 和 User-Agent
+     */
+    public OkHttpClient getOkHttpClient() {
+        return mOkHttpClient;
+    }
+
+    /**
+     * 发帖等表单请求使用, 不自动跳转
+     */
+    public OkHttpClient getNoRedirectClient() {
+        if (mNoRedirectClient == null) {
+            synchronized (this) {
+                if (mNoRedirectClient == null) {
+                    mNoRedirectClient = mOkHttpClient.newBuilder()
+                            .followRedirects(false)
+                            .followSslRedirects(false)
+                            .build();
                 }
             }
-            return response;
-        });
-        return builder;
+        }
+        return mNoRedirectClient;
+    }
+
+    /**
+     * 上传附件使用, 连接和发送的超时更长
+     */
+    public OkHttpClient getUploadClient() {
+        if (mUploadClient == null) {
+            synchronized (this) {
+                if (mUploadClient == null) {
+                    mUploadClient = mOkHttpClient.newBuilder()
+                            .connectTimeout(UPLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+                            .writeTimeout(UPLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+                            .build();
+                }
+            }
+        }
+        return mUploadClient;
     }
 
     public static RetrofitHelper getInstance() {
         return SingleTonHolder.sInstance;
     }
 
+    /**
+     * 同一个接口只创建一次
+     */
     public Object getService(Class<?> service) {
-        return mRetrofit.create(service);
+        Object instance = mServices.get(service);
+        if (instance == null) {
+            instance = mRetrofit.create(service);
+            mServices.put(service, instance);
+        }
+        return instance;
     }
 
     public RetrofitService getService() {
-        return mRetrofit.create(RetrofitService.class);
+        return (RetrofitService) getService(RetrofitService.class);
+    }
+
+    /**
+     * 上传附件使用的接口, 见 {@link #getUploadClient()}
+     */
+    public RetrofitService getUploadService() {
+        if (mUploadService == null) {
+            mUploadService = buildRetrofit(mBaseUrl, getUploadClient()).create(RetrofitService.class);
+        }
+        return mUploadService;
     }
 
+    /**
+     * 不带 Cookie, 和 {@link #getDefault()} 一样使用 bbs.ngacn.cc
+     */
     public static RetrofitService getAuthCodeService() {
-        return new Retrofit.Builder()
-                .baseUrl(URL_NGA_BASE_CC)
-                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .build()
-                .create(RetrofitService.class);
+        RetrofitHelper helper = getInstance();
+        if (helper.mAuthCodeService == null) {
+            helper.mAuthCodeService = new Retrofit.Builder()
+                    .baseUrl(URL_NGA_BASE_CC)
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                    .client(helper.mBaseClient)
+                    .build()
+                    .create(RetrofitService.class);
+        }
+        return helper.mAuthCodeService;
     }
 
     public static RetrofitService getDefault() {
-        return new Retrofit.Builder()
-                .baseUrl(URL_NGA_BASE_CC)
-                .addConverterFactory(JsonStringConvertFactory.create())
-                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .build()
-                .create(RetrofitService.class);
+        RetrofitHelper helper = getInstance();
+        if (helper.mDefaultService == null) {
+            helper.mDefaultService = helper.buildRetrofit(URL_NGA_BASE_CC, helper.mBaseClient).create(RetrofitService.class);
+        }
+        return helper.mDefaultService;
     }
 
     private static class SingleTonHolder {
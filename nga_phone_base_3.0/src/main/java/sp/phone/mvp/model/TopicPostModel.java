@@ -18,7 +18,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 
 import gov.anzong.androidnga.R;
 import gov.anzong.androidnga.Utils;
@@ -32,7 +31,6 @@ import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
-import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import sp.phone.http.bean.TopicPostBean;
@@ -61,10 +59,10 @@ public class TopicPostModel extends BaseModel implements TopicPostContract.Model
 
     private RetrofitService mRetrofitService;
 
+    private TopicPostTask mPostTask;
+
     public TopicPostModel() {
-        OkHttpClient.Builder builder = RetrofitHelper.getInstance().createOkHttpClientBuilder();
-        builder.connectTimeout(5, TimeUnit.MINUTES);
-        mRetrofitService = RetrofitHelper.getInstance().createRetrofit(builder).create(RetrofitService.class);
+        mRetrofitService = RetrofitHelper.getInstance().getUploadService();
     }
 
     @Override
@@ -149,7 +147,20 @@ public class TopicPostModel extends BaseModel implements TopicPostContract.Model
 
     @Override
     public void post(PostParam postParam, TopicPostTask.CallBack callBack) {
-        new TopicPostTask(ContextUtils.getContext(), callBack).execute(postParam.toString());
+        if (mPostTask != null) {
+            mPostTask.cancel();
+        }
+        mPostTask = new TopicPostTask(ContextUtils.getContext(), callBack);
+        mPostTask.execute(postParam.toString());
+    }
+
+    @Override
+    public void detach() {
+        if (mPostTask != null) {
+            mPostTask.cancel();
+            mPostTask = null;
+        }
+        super.detach();
     }
 
     @Override
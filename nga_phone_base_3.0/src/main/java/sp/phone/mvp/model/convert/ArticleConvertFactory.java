@@ -4,24 +4,37 @@ import android.text.TextUtils;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.justwen.androidnga.cloud.CloudServerManager;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import gov.anzong.androidnga.Utils;
+import gov.anzong.androidnga.base.util.ContextUtils;
 import gov.anzong.androidnga.core.HtmlConvertFactory;
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.corebuild.SignatureCache;
 import gov.anzong.androidnga.core.data.AttachmentData;
 import gov.anzong.androidnga.core.data.CommentData;
+import gov.anzong.androidnga.core.data.DecodeResult;
 import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.data.VoteData;
+import gov.anzong.androidnga.core.decode.DiceRoller;
 import sp.phone.common.ForumConstants;
 import sp.phone.common.NoteManangerImpl;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.http.bean.Attachment;
-import sp.phone.http.bean.DiceData;
 import sp.phone.http.bean.ThreadData;
 import sp.phone.http.bean.ThreadRowInfo;
 import sp.phone.mvp.model.entity.ThreadPageInfo;
@@ -39,11 +52,27 @@ public class ArticleConvertFactory {
 
     private static final String TAG = ArticleConvertFactory.class.getSimpleName();
 
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 和 AsyncTask 一样, 留一个核给主线程, 最少 2 个最多 4 个
+     */
+    static final int CONVERT_THREAD_COUNT = Math.max(2, Math.min(CPU_COUNT - 1, 4));
+
+    private static volatile ExecutorService sConvertExecutor;
+
     public static ThreadData getArticleInfo(String js) {
-        return parseJsonThreadPage(js);
+        return getArticleInfo(js, new ConvertStats());
+    }
+
+    /**
+     * @param stats 累计各阶段耗时, 不能为 null; 回复内容转换成 html 不在这里, 见 {@link #renderRowContent(ThreadRowInfo, ConvertStats)}
+     */
+    public static ThreadData getArticleInfo(String js, ConvertStats stats) {
+        return parseJsonThreadPage(js, stats);
     }
 
-    private static ThreadData parseJsonThreadPage(String js) {
+    private static ThreadData parseJsonThreadPage(String js, ConvertStats stats) {
         ThreadData data = null;
         try {
             if (js.isEmpty()) {
@@ -52,6 +81,8 @@ public class ArticleConvertFactory {
                 js = js.substring(0, js.indexOf("/*error fill content"));
             }
 
+            long start = System.nanoTime();
+            long startBytes = ConvertStats.allocatedBytes();
             js = js.replaceAll("/\\*\\$js\\$\\*/", "")
                     .replaceAll("\"content\":\\+(\\d+),", "\"content\":\"+$1\",")
                     .replaceAll("\"subject\":\\+(\\d+),", "\"subject\":\"+$1\",")
@@ -60,7 +91,11 @@ public class ArticleConvertFactory {
                     .replaceAll("\"author\":(0\\d+),", "\"author\":\"$1\",")
                     .replaceAll("\"alterinfo\":\"\\[(\\w|\\s)+\\]\\s+\",", ""); //部分页面打不开的问题
 //            NLog.e(js);
+            stats.add(ConvertStats.STAGE_CLEAN, start, startBytes);
+            start = System.nanoTime();
+            startBytes = ConvertStats.allocatedBytes();
             JSONObject obj = (JSONObject) JSON.parseObject(js).get("data");
+            stats.add(ConvertStats.STAGE_JSON, start, startBytes);
             NLog.d(TAG, "js = :\n" + js);
             if (obj == null) {
                 return null;
@@ -68,8 +103,11 @@ public class ArticleConvertFactory {
             int allRows = (Integer) obj.get("__ROWS");
             data = new ThreadData();
             data.setRawData(js);
+            start = System.nanoTime();
+            startBytes = ConvertStats.allocatedBytes();
             data.setThreadInfo(buildThreadPageInfo(obj));
-            data.setRowList(buildThreadRowList(obj));
+            stats.add(ConvertStats.STAGE_BIND, start, startBytes);
+            data.setRowList(buildThreadRowList(obj, stats));
             data.set__ROWS(allRows);
             data.setRowNum(data.getRowList().size());
         } catch (Exception e) {
@@ -92,41 +130,126 @@ public class ArticleConvertFactory {
         return null;
     }
 
-    private static List<ThreadRowInfo> buildThreadRowList(JSONObject obj) {
+    private static List<ThreadRowInfo> buildThreadRowList(JSONObject obj, ConvertStats stats) {
         JSONObject subObj = (JSONObject) obj.get("__R");
         int rows = (Integer) obj.get("__R__ROWS");
         JSONObject userInfoMap = (JSONObject) obj.get("__U");
         if (subObj == null) {
             return new ArrayList<>();
         }
-        return convertJsObjToList(subObj, rows, userInfoMap);
+        return convertJsObjToList(subObj, rows, userInfoMap, stats);
     }
 
 
-    private static List<ThreadRowInfo> convertJsObjToList(JSONObject rowMap, int count, JSONObject userInfoMap) {
-        List<ThreadRowInfo> rowList = new ArrayList<>();
+    private static List<ThreadRowInfo> convertJsObjToList(JSONObject rowMap, int count, JSONObject userInfoMap, ConvertStats stats) {
         NLog.d("ArticleUtil", "convertJsObjToList");
+        if (count <= 1) {
+            return convertJsObjToListSerial(rowMap, count, userInfoMap, stats, false);
+        }
+        long start = System.nanoTime();
+        List<Callable<ThreadRowInfo>> tasks = new ArrayList<>();
         for (int i = 0; i < count; i++) {
             Object obj = rowMap.get(String.valueOf(i));
-            JSONObject rowObj;
             if (obj instanceof JSONObject) {
-                rowObj = (JSONObject) obj;
-            } else {
-                continue;
+                JSONObject rowObj = (JSONObject) obj;
+                int index = i;
+                tasks.add(() -> {
+                    try {
+                        return convertRow(rowObj, userInfoMap, stats, false);
+                    } catch (Exception e) {
+                        // 单个回复解析失败时跳过, 不影响整页
+                        NLog.e(TAG, "can not convert row " + index + ", pid = " + rowObj.getString("pid"));
+                        e.printStackTrace();
+                        return null;
+                    }
+                });
             }
-            ThreadRowInfo row = JSONObject.toJavaObject(rowObj, ThreadRowInfo.class);
-            buildRowHotReplay(row, rowObj);
-            buildRowComment(row, rowObj, userInfoMap);
-            buildRowClientInfo(row, rowObj);
-            buildRowUserInfo(row, userInfoMap);
-            buildRowVote(row, rowObj);
-            buildRowContent(row);
-            rowList.add(row);
         }
+        List<ThreadRowInfo> rowList = new ArrayList<>();
+        List<Future<ThreadRowInfo>> futures;
+        try {
+            // invokeAll 返回的顺序和提交顺序一致
+            futures = getConvertExecutor().invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return rowList;
+        }
+        for (Future<ThreadRowInfo> future : futures) {
+            try {
+                ThreadRowInfo row = future.get();
+                if (row != null) {
+                    rowList.add(row);
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        NLog.d(TAG, String.format(Locale.getDefault(), "convert %d rows in %d ms with %d threads, %s, cache: %s, signature: %s",
+                rowList.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), CONVERT_THREAD_COUNT,
+                stats, ArticleHtmlCache.getInstance().getStats(), SignatureCache.getInstance().getStats()));
         return rowList;
     }
 
-    private static void buildRowContent(ThreadRowInfo row) {
+    /**
+     * 贴条在转换线程中调用, 不能再提交到同一个线程池
+     *
+     * @param stats   转换贴条时传 null, 耗时已经算在所属回复中
+     * @param comment 贴条只在所属回复的 html 中显示, 不需要单独解析和转换
+     */
+    private static List<ThreadRowInfo> convertJsObjToListSerial(JSONObject rowMap, int count, JSONObject userInfoMap, ConvertStats stats,
+                                                                boolean comment) {
+        List<ThreadRowInfo> rowList = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Object obj = rowMap.get(String.valueOf(i));
+            if (obj instanceof JSONObject) {
+                rowList.add(convertRow((JSONObject) obj, userInfoMap, stats, comment));
+            }
+        }
+        return rowList;
+    }
+
+    private static ThreadRowInfo convertRow(JSONObject rowObj, JSONObject userInfoMap, ConvertStats stats, boolean comment) {
+        long start = System.nanoTime();
+        long startBytes = ConvertStats.allocatedBytes();
+        ThreadRowInfo row = JSONObject.toJavaObject(rowObj, ThreadRowInfo.class);
+        buildRowHotReplay(row, rowObj);
+        buildRowComment(row, rowObj, userInfoMap);
+        buildRowClientInfo(row, rowObj);
+        buildRowUserInfo(row, userInfoMap);
+        buildRowVote(row, rowObj);
+        if (stats != null) {
+            stats.add(ConvertStats.STAGE_BIND, start, startBytes);
+            start = System.nanoTime();
+            startBytes = ConvertStats.allocatedBytes();
+        }
+        prepareRowContent(row);
+        if (!comment) {
+            buildRowContent(row);
+        }
+        if (stats != null) {
+            stats.add(ConvertStats.STAGE_CONTENT, start, startBytes);
+        }
+        return row;
+    }
+
+    private static ExecutorService getConvertExecutor() {
+        if (sConvertExecutor == null) {
+            synchronized (ArticleConvertFactory.class) {
+                if (sConvertExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(CONVERT_THREAD_COUNT, CONVERT_THREAD_COUNT, 30, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "ArticleConvert"));
+                    executor.allowCoreThreadTimeOut(true);
+                    sConvertExecutor = executor;
+                }
+            }
+        }
+        return sConvertExecutor;
+    }
+
+    /**
+     * 贴条也要处理, 所属回复转换时使用处理后的内容
+     */
+    private static void prepareRowContent(ThreadRowInfo row) {
         if (row.getContent() == null) {
             row.setContent(row.getSubject());
             row.setSubject(null);
@@ -136,31 +259,98 @@ public class ArticleConvertFactory {
                 && !StringUtils.isEmpty(row.getContent())) {
             row.setContent(StringUtils.unescape(row.getContent()));
         }
-        List<String> imageUrls = new ArrayList<>();
-        String ngaHtml = HtmlConvertFactory.convert(buildHtmlData(row), imageUrls);
-        DiceData arg = new DiceData();
-        arg.setSeed(2110032.0);
-        arg.setAuthorId(row.getAuthorid());
-        arg.settId(row.getTid());
-        arg.setpId(row.getPid());
-        arg.setId("postcontent0");
-        arg.setTxt(ngaHtml);
-        String argsId = arg.getId() != null ? arg.getId() : randDigi("bbcode", 10000);
-        arg.setArgsId(argsId);
-        ngaHtml = getRealDice(arg);
-        row.getImageUrls().addAll(imageUrls);
-        row.setFormattedHtmlData(ngaHtml);
+    }
+
+    private static void buildRowContent(ThreadRowInfo row) {
+        row.setDocument(BBCodeDocument.parse(row.getContent()));
+        // 只有简单内容的回复直接用 TextView 显示, html 在单页模式等需要时再转换
+        PhoneConfiguration config = PhoneConfiguration.getInstance();
+        if (config.isArticleNativeRenderEnabled() && !config.isArticlePageRenderEnabled() && ArticleSpanBuilder.isSupported(row)) {
+            row.setNativeContent(ArticleSpanBuilder.build(ContextUtils.getContext(), row));
+        }
+        // 内存缓存命中时直接使用, 否则等列表显示到这一行时再由 ArticleRenderQueue 转换
+        ArticleHtmlCache cache = ArticleHtmlCache.getInstance();
+        ArticleHtmlCache.Entry entry = cache.peek(cache.buildKey(row, buildHtmlData(row)));
+        if (entry != null) {
+            row.getImageUrls().addAll(entry.imageUrls);
+            row.setFormattedHtmlData(entry.html);
+        } else {
+            row.setRenderPending(true);
+        }
+    }
+
+    /**
+     * 把回复内容转换成 html, 耗时操作, 不能在主线程调用
+     */
+    public static void renderRowContent(ThreadRowInfo row) {
+        renderRowContent(row, null);
+    }
+
+    /**
+     * @param stats 累计 html 转换和掷骰子的耗时, 可以为 null
+     */
+    public static void renderRowContent(ThreadRowInfo row, ConvertStats stats) {
+        synchronized (row) {
+            if (!row.isRenderPending()) {
+                return;
+            }
+            HtmlData htmlData = buildHtmlData(row);
+            ArticleHtmlCache cache = ArticleHtmlCache.getInstance();
+            String cacheKey = cache.buildKey(row, htmlData);
+            ArticleHtmlCache.Entry entry = cache.get(cacheKey);
+            if (entry != null) {
+                row.getImageUrls().addAll(entry.imageUrls);
+                row.setFormattedHtmlData(entry.html);
+                row.setRenderPending(false);
+                return;
+            }
+            long start = System.nanoTime();
+            long startBytes = ConvertStats.allocatedBytes();
+            htmlData.setDiceRoller(new DiceRoller(row.getAuthorid(), row.getTid(), row.getPid()));
+            List<String> imageUrls = new ArrayList<>();
+            DecodeResult result = HtmlConvertFactory.convertResult(htmlData, imageUrls);
+            String ngaHtml = result.getHtml();
+            if (stats != null) {
+                // 掷骰子的耗时从 decode 中分出来单独统计
+                stats.add(ConvertStats.STAGE_DECODE, start + result.getDiceNanos(), startBytes);
+                stats.addNanos(ConvertStats.STAGE_DICE, result.getDiceNanos());
+                stats.addSignatureHits(result.getSignatureHits());
+            }
+            row.getImageUrls().addAll(imageUrls);
+            row.setFormattedHtmlData(ngaHtml);
+            row.setRenderPending(false);
+            if (result.isTimedOut()) {
+                // 超时的结果不缓存, 记录下来方便收集导致卡顿的回复
+                onDecodeTimeout(row, result);
+            } else {
+                cache.put(cacheKey, new ArticleHtmlCache.Entry(ngaHtml, imageUrls));
+            }
+        }
+    }
+
+    private static void onDecodeTimeout(ThreadRowInfo row, DecodeResult result) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(result.getDecodeNanos());
+        NLog.e(TAG, String.format(Locale.getDefault(), "decode timeout tid = %d, pid = %d, length = %d, %d ms",
+                row.getTid(), row.getPid(), row.getContent().length(), millis));
+        Map<String, String> map = new HashMap<>();
+        map.put("tid", String.valueOf(row.getTid()));
+        map.put("pid", String.valueOf(row.getPid()));
+        map.put("length", String.valueOf(row.getContent().length()));
+        map.put("tokenizer", String.valueOf(result.isTokenizerUsed()));
+        CloudServerManager.pingBack(ContextUtils.getContext(), "decode_timeout", map);
     }
 
     private static HtmlData buildHtmlData(ThreadRowInfo row) {
         HtmlData htmlData = new HtmlData(row.getContent());
+        htmlData.setAuthorId(row.getAuthorid());
+        htmlData.setDocument(row.getDocument());
         htmlData.setAlertInfo(row.getAlterinfo());
         htmlData.setDarkMode(ThemeManager.getInstance().isNightMode());
         htmlData.setInBackList(row.get_isInBlackList());
         htmlData.setTextSize(PhoneConfiguration.getInstance().getTopicContentSize());
         htmlData.setEmotionSize(PhoneConfiguration.getInstance().getEmoticonSize());
         htmlData.setSignature(PhoneConfiguration.getInstance().isShowSignature() ? row.getSignature() : null);
-        htmlData.setVote(row.getVote());
+        htmlData.setVoteData(row.getVoteData());
         htmlData.setSubject(row.getSubject());
         htmlData.setShowImage(PhoneConfiguration.getInstance().isImageLoadEnabled());
         htmlData.setNGAHost(Utils.getNGAHost());
@@ -195,6 +385,7 @@ public class ArticleConvertFactory {
         String vote = rowObj.getString("vote");
         if (!StringUtils.isEmpty(vote)) {
             row.setVote(vote);
+            row.setVoteData(VoteData.parse(vote));
         }
     }
 
@@ -216,7 +407,7 @@ public class ArticleConvertFactory {
     private static void buildRowComment(ThreadRowInfo row, JSONObject rowObj, JSONObject userInfoMap) {
         JSONObject commObj = (JSONObject) rowObj.get("comment");
         if (commObj != null) {
-            row.setComments(convertJsObjToList(commObj, commObj.size(), userInfoMap));
+            row.setComments(convertJsObjToListSerial(commObj, commObj.size(), userInfoMap, null, true));
         }
     }
 
@@ -308,91 +499,4 @@ public class ArticleConvertFactory {
             }
         }
     }
-
-    public static String randDigi(String p, int l) {
-        return p + Math.floor(Math.random() * l);
-    }
-
-    public static double rnd(DiceData arg) {
-        double seed = arg.getSeed();
-        if (arg.getArgsId() != null) {
-            if (arg.getRndSeed() == 0.0) {
-                arg.setRndSeed(arg.getAuthorId() + arg.gettId() + arg.getpId() +
-                        (arg.gettId() > 10246184 || arg.getpId() > 200188932 ? arg.getSeedOffset() : 0));
-                if (arg.getRndSeed() == 0.0) arg.setRndSeed(Math.floor(Math.random() * 10000));
-            }
-            arg.setRndSeed((arg.getRndSeed() * 9301 + 49297) % 233280);
-            return arg.getRndSeed() / 233280.0;
-        }
-        seed = (seed * 9301 + 49297) % 233280;
-        arg.setSeed(seed);
-        return seed / 233280.0;
-    }
-
-    // 计算掷骰子结果
-    public static String getRealDice(DiceData arg) {
-        String reg = "\\[dice].+?\\[/dice\\]";
-        int sum = 0;
-        String txt = arg.getTxt();
-        Pattern r = Pattern.compile(reg);
-        Matcher m = r.matcher(txt);
-        if (!m.find()) return txt;
-        do {
-            StringBuilder diceStr = new StringBuilder();
-            String $0 = m.group(0);
-            assert $0 != null;
-            String $1 = $0.replace("[dice]", "").replace("[/dice]", "");
-            String rr = $1;
-            $1 = "+" + $1;
-            String[] strs = $1.split("\\+");
-            StringBuilder rx = new StringBuilder();
-            for (String str : strs) {
-                if (str.length() > 0) {
-                    String[] sstrs = str.split("d");
-                    int num = 0;
-                    int covers = 0;
-                    if (sstrs.length > 1) {
-                        if (sstrs[0].length() > 0) {
-                            num = parseInt(sstrs[0],1);
-                        } else {
-                            num = 1;
-                        }
-                        covers = parseInt(sstrs[1],0);
-                        if (num > 10 || covers > 100000) {
-                            sum = -1;
-                            diceStr.append("+OUT OF LIMIT");
-                        }
-                        for (int j = 0; j < num; j++) {
-                            String argsId = "postcomment__510458140";
-                            arg.setArgsId(argsId);
-                            double a = rnd(arg);
-                            double rand = Math.floor(a * covers) + 1;
-                            rx.append("+d").append(covers).append("(").append(Math.round(rand)).append(")");
-                            if (sum != -1) sum += rand;
-                        }
-                    } else {
-                        covers = parseInt(sstrs[0].trim(),0);
-                        sum += covers;
-                        rx.append("+").append(covers);
-                    }
-                }
-            }
-            diceStr.append("<p><b>ROLL:").append(rr).append("</b>=").append(rx.substring(1)).append("=<b>").append(sum).append("</b></p>");
-            sum = 0;
-            txt = txt.replaceFirst(reg, diceStr.toString());
-            m = r.matcher(txt);
-        } while (m.find());
-        return txt;
-    }
-
-
-    private static int parseInt(String str, int defaultWhenFailed) {
-        try {
-            return Integer.parseInt(str);
-        }catch (Exception e){
-            return defaultWhenFailed;
-        }
-    }
-
 }
-
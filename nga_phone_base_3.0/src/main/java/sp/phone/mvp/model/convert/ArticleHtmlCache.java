@@ -0,0 +1,329 @@
+package sp.phone.mvp.model.convert;
+
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.anzong.androidnga.BuildConfig;
+import gov.anzong.androidnga.base.util.ContextUtils;
+import gov.anzong.androidnga.base.util.ThreadUtils;
+import gov.anzong.androidnga.common.PreferenceKey;
+import gov.anzong.androidnga.core.data.AttachmentData;
+import gov.anzong.androidnga.core.data.CommentData;
+import gov.anzong.androidnga.core.data.HtmlData;
+import gov.anzong.androidnga.core.decode.ForumDecoder;
+import sp.phone.http.bean.ThreadRowInfo;
+
+/**
+ * 回复转换后的 html 缓存, 内存 LRU + 磁盘两级
+ * <p>
+ * key 由 tid, pid 和所有影响渲染结果的内容及设置计算得到, 内容或设置变化后自然不再命中
+ */
+public class ArticleHtmlCache {
+
+    private static final String DIR_NAME = "article_html";
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 内存缓存按字符数计算, 约 4MB
+     */
+    private static final int MAX_MEMORY_CHARS = 2 * 1024 * 1024;
+
+    private static final long MAX_DISK_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * 这些设置变化后清空缓存
+     */
+    private static final Set<String> RENDER_KEYS = new HashSet<>(Arrays.asList(
+            PreferenceKey.NIGHT_MODE,
+            PreferenceKey.KEY_NIGHT_MODE_FOLLOW_SYSTEM,
+            PreferenceKey.SHOW_SIGNATURE,
+            PreferenceKey.BBCODE_TOKENIZER,
+            PreferenceKey.KEY_LOAD_IMAGE_STRATEGY,
+            PreferenceKey.KEY_TOPIC_CONTENT_SIZE,
+            PreferenceKey.KEY_EMOTICON_SIZE));
+
+    private final LruCache<String, Entry> mMemoryCache = new LruCache<String, Entry>(MAX_MEMORY_CHARS) {
+        @Override
+        protected int sizeOf(String key, Entry value) {
+            return value.html.length();
+        }
+    };
+
+    private final File mDiskDir;
+
+    private final AtomicLong mDiskBytes = new AtomicLong(-1);
+
+    private final AtomicLong mMemoryHits = new AtomicLong();
+
+    private final AtomicLong mDiskHits = new AtomicLong();
+
+    private final AtomicLong mMisses = new AtomicLong();
+
+    private volatile boolean mEnabled = true;
+
+    public static class Entry {
+
+        public final String html;
+
+        public final List<String> imageUrls;
+
+        public Entry(String html, List<String> imageUrls) {
+            this.html = html;
+            this.imageUrls = Collections.unmodifiableList(new ArrayList<>(imageUrls));
+        }
+    }
+
+    private static class SingletonHolder {
+
+        private static ArticleHtmlCache sInstance = new ArticleHtmlCache();
+    }
+
+    public static ArticleHtmlCache getInstance() {
+        return SingletonHolder.sInstance;
+    }
+
+    private ArticleHtmlCache() {
+        mDiskDir = new File(ContextUtils.getContext().getCacheDir(), DIR_NAME);
+    }
+
+    public static boolean isRenderKey(String key) {
+        return RENDER_KEYS.contains(key);
+    }
+
+    public String buildKey(ThreadRowInfo row, HtmlData htmlData) {
+        StringBuilder builder = new StringBuilder();
+        append(builder, BuildConfig.VERSION_CODE);
+        append(builder, row.getAuthorid());
+        append(builder, htmlData.getRawData());
+        append(builder, htmlData.getSubject());
+        append(builder, htmlData.getAlertInfo());
+        append(builder, htmlData.getSignature());
+        append(builder, htmlData.getVote());
+        append(builder, htmlData.isInBackList());
+        append(builder, htmlData.isDarkMode());
+        append(builder, htmlData.isShowImage());
+        append(builder, htmlData.getTextSize());
+        append(builder, htmlData.getEmotionSize());
+        append(builder, htmlData.getNGAHost());
+        append(builder, ForumDecoder.isTokenizerEnabled());
+        if (htmlData.getAttachmentList() != null) {
+            for (AttachmentData attachment : htmlData.getAttachmentList()) {
+                append(builder, attachment.getAttachUrl());
+                append(builder, attachment.getThumb());
+                append(builder, attachment.getAttachmentHost());
+            }
+        }
+        if (htmlData.getCommentList() != null) {
+            for (CommentData comment : htmlData.getCommentList()) {
+                append(builder, comment.getAuthor());
+                append(builder, comment.getContent());
+                append(builder, comment.getPostTime());
+                append(builder, comment.getAvatarUrl());
+            }
+        }
+        return row.getTid() + "_" + row.getPid() + "_" + sha1(builder.toString());
+    }
+
+    private static void append(StringBuilder builder, Object value) {
+        builder.append(value).append('\u0000');
+    }
+
+    private static String sha1(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(text.hashCode());
+        }
+    }
+
+    /**
+     * 关闭后不读不写, 基准测试中用来保证每次都重新转换
+     */
+    void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public Entry get(String key) {
+        if (!mEnabled) {
+            return null;
+        }
+        Entry entry = mMemoryCache.get(key);
+        if (entry != null) {
+            mMemoryHits.incrementAndGet();
+            return entry;
+        }
+        entry = readFromDisk(key);
+        if (entry != null) {
+            mDiskHits.incrementAndGet();
+            mMemoryCache.put(key, entry);
+            return entry;
+        }
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 只查内存缓存, 不计入命中率
+     */
+    public Entry peek(String key) {
+        return mEnabled ? mMemoryCache.get(key) : null;
+    }
+
+    public void put(String key, Entry entry) {
+        if (!mEnabled) {
+            return;
+        }
+        mMemoryCache.put(key, entry);
+        writeToDisk(key, entry);
+    }
+
+    public void clear() {
+        mMemoryCache.evictAll();
+        ThreadUtils.postOnSubThread(() -> {
+            synchronized (mDiskDir) {
+                File[] files = mDiskDir.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                mDiskBytes.set(0);
+            }
+        });
+    }
+
+    public float getHitRate() {
+        long hits = mMemoryHits.get() + mDiskHits.get();
+        long total = hits + mMisses.get();
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    public String getStats() {
+        return String.format(Locale.getDefault(), "memory hit %d, disk hit %d, miss %d, hit rate %.2f",
+                mMemoryHits.get(), mDiskHits.get(), mMisses.get(), getHitRate());
+    }
+
+    private Entry readFromDisk(String key) {
+        File file = new File(mDiskDir, key);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int count = input.readInt();
+            List<String> imageUrls = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                imageUrls.add(input.readUTF());
+            }
+            byte[] html = new byte[input.readInt()];
+            input.readFully(html);
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(new String(html, StandardCharsets.UTF_8), imageUrls);
+        } catch (IOException | RuntimeException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        if (!mDiskDir.exists() && !mDiskDir.mkdirs()) {
+            return;
+        }
+        File file = new File(mDiskDir, key);
+        File tmpFile = new File(mDiskDir, key + ".tmp." + Thread.currentThread().getId());
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(entry.imageUrls.size());
+            for (String url : entry.imageUrls) {
+                output.writeUTF(url);
+            }
+            byte[] html = entry.html.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(html.length);
+            output.write(html);
+        } catch (IOException e) {
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            return;
+        }
+        if (getDiskBytes() + file.length() > MAX_DISK_BYTES) {
+            trimDisk();
+        } else {
+            mDiskBytes.addAndGet(file.length());
+        }
+    }
+
+    private long getDiskBytes() {
+        if (mDiskBytes.get() < 0) {
+            synchronized (mDiskDir) {
+                if (mDiskBytes.get() < 0) {
+                    mDiskBytes.set(sumLength(mDiskDir.listFiles()));
+                }
+            }
+        }
+        return mDiskBytes.get();
+    }
+
+    /**
+     * 删除最久没有访问的文件, 直到占用不超过上限的 3/4
+     */
+    private void trimDisk() {
+        synchronized (mDiskDir) {
+            File[] files = mDiskDir.listFiles();
+            if (files == null) {
+                return;
+            }
+            long size = sumLength(files);
+            Arrays.sort(files, (lhs, rhs) -> Long.compare(lhs.lastModified(), rhs.lastModified()));
+            for (File file : files) {
+                if (size <= MAX_DISK_BYTES * 3 / 4) {
+                    break;
+                }
+                long length = file.length();
+                if (file.delete()) {
+                    size -= length;
+                }
+            }
+            mDiskBytes.set(size);
+        }
+    }
+
+    private static long sumLength(File[] files) {
+        long size = 0;
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,166 @@
+package sp.phone.mvp.model.convert;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.List;
+import java.util.Locale;
+
+import gov.anzong.androidnga.R;
+import gov.anzong.androidnga.core.HtmlConvertFactory;
+import sp.phone.common.PhoneConfiguration;
+import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.theme.ThemeManager;
+import sp.phone.util.FunctionUtils;
+
+/**
+ * 单页模式下把一页的回复拼成一个网页, 回复内容取自 {@link ThreadRowInfo#getFormattedHtmlData()}
+ * <p>
+ * 头像, 昵称和底部按钮也在网页中, 点击后由 page.js 回调 {@link sp.phone.view.webview.ArticlePageWebView}
+ */
+public class ArticlePageHtmlBuilder {
+
+    public static final String ACTION_PROFILE = "profile";
+
+    public static final String ACTION_AVATAR = "avatar";
+
+    public static final String ACTION_CLIENT = "client";
+
+    public static final String ACTION_SUPPORT = "support";
+
+    public static final String ACTION_OPPOSE = "oppose";
+
+    public static final String ACTION_REPLY = "reply";
+
+    public static final String ACTION_MENU = "menu";
+
+    private static final String DEFAULT_AVATAR = "file:///android_asset/default_avatar.png";
+
+    private final Context mContext;
+
+    private final ThemeManager mThemeManager = ThemeManager.getInstance();
+
+    private final PhoneConfiguration mConfig = PhoneConfiguration.getInstance();
+
+    private final String mSecondaryColor;
+
+    private final int mAvatarSize;
+
+    public ArticlePageHtmlBuilder(Context context) {
+        mContext = context;
+        mSecondaryColor = toCssColor(ContextCompat.getColor(context, R.color.text_color_disabled));
+        // 页面没有设置 viewport, 1 css px 等于 1 dp
+        mAvatarSize = Math.round(mConfig.getAvatarSize() / context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * 所有回复都转换完成后调用, 还没有转换的回复显示原文
+     */
+    public String build(List<ThreadRowInfo> rows, String topicOwner) {
+        StringBuilder builder = new StringBuilder(4096);
+        builder.append("<!DOCTYPE html><html><head><meta charset='utf-8'>")
+                .append("<script type='text/javascript' src='file:///android_asset/html/script.js'></script>")
+                .append("<script type='text/javascript' src='file:///android_asset/page/page.js'></script>")
+                .append("<link rel='stylesheet' type='text/css' href='file:///android_asset/html/style.css'/>")
+                .append("<link rel='stylesheet' type='text/css' href='file:///android_asset/html/")
+                .append(mThemeManager.isNightMode() ? "style_dark.css" : "style_light.css").append("'/>")
+                .append("<link rel='stylesheet' type='text/css' href='file:///android_asset/page/page.css'/>")
+                .append("</head><body onload='javascript:modifyEmotionSize()'>");
+        boolean solidColor = mConfig.useSolidColorBackground();
+        int accentColor = mThemeManager.getAccentColor(mContext);
+        for (int i = 0; i < rows.size(); i++) {
+            ThreadRowInfo row = rows.get(i);
+            if (row != null) {
+                appendRow(builder, row, i, solidColor, accentColor, topicOwner);
+            }
+        }
+        return builder.append("</body></html>").toString();
+    }
+
+    private void appendRow(StringBuilder builder, ThreadRowInfo row, int index, boolean solidColor, int accentColor, String topicOwner) {
+        builder.append("<div class='post");
+        if (solidColor && index > 0) {
+            builder.append(" divider");
+        }
+        builder.append("' id='row_").append(index).append("' data-index='").append(index).append('\'');
+        if (!solidColor) {
+            builder.append(" style='background-color:")
+                    .append(toCssColor(ContextCompat.getColor(mContext, mThemeManager.getBackgroundColor(index)))).append('\'');
+        }
+        builder.append('>');
+
+        // 头像和作者信息
+        String avatarUrl = FunctionUtils.parseAvatarUrl(row.getJs_escap_avatar());
+        if (avatarUrl == null || !mConfig.isAvatarLoadEnabled()) {
+            avatarUrl = DEFAULT_AVATAR;
+        }
+        int nickNameColorRes = FunctionUtils.getNickNameColorRes(row);
+        int nickNameColor = nickNameColorRes != 0 ? ContextCompat.getColor(mContext, nickNameColorRes) : accentColor;
+        builder.append("<div class='post_header'>")
+                .append("<img class='avatar' src='").append(TextUtils.htmlEncode(avatarUrl))
+                .append("' style='width:").append(mAvatarSize).append("px;height:").append(mAvatarSize).append("px'")
+                .append(onClick(ACTION_AVATAR)).append("/>")
+                .append("<div class='post_info'><div class='post_info_line'>")
+                .append("<span class='nickname' style='color:").append(toCssColor(nickNameColor)).append('\'').append(onClick(ACTION_PROFILE)).append('>')
+                .append(TextUtils.htmlEncode(FunctionUtils.getNickName(row, topicOwner, mContext))).append("</span>")
+                .append(secondary()).append(TextUtils.htmlEncode(String.valueOf(row.getPostdate()))).append("</span></div>")
+                .append("<div class='post_info_line'>").append(secondary())
+                .append(TextUtils.htmlEncode(String.format("级别：%s   威望：%s   发帖：%s", row.getMemberGroup(), row.getReputation(), row.getPostCount()))
+                        .replace(" ", "&nbsp;"))
+                .append("</span>").append(secondary());
+        String client = getClientName(row.getFromClientModel());
+        if (client != null) {
+            builder.append("<span class='action'").append(onClick(ACTION_CLIENT)).append('>').append(client).append("</span>");
+        }
+        builder.append("[").append(row.getLou()).append(" 楼]</span></div></div></div>");
+
+        // 回复内容
+        builder.append("<div class='post_content'>");
+        String body = HtmlConvertFactory.getBody(row.getFormattedHtmlData());
+        if (body != null) {
+            builder.append(body);
+        } else if (row.getContent() != null) {
+            builder.append(TextUtils.htmlEncode(row.getContent()));
+        }
+        builder.append("</div>");
+
+        // 底部按钮
+        builder.append("<div class='post_footer'>")
+                .append("<span class='action'").append(onClick(ACTION_SUPPORT)).append(">支持</span>")
+                .append("<span>").append(row.getScore()).append("</span>")
+                .append("<span class='action'").append(onClick(ACTION_OPPOSE)).append(">反对</span>")
+                .append("<span class='action'").append(onClick(ACTION_REPLY)).append(">回复</span>")
+                .append("<span class='action'").append(onClick(ACTION_MENU)).append(">更多</span>")
+                .append("</div></div>");
+    }
+
+    private String secondary() {
+        return "<span style='color:" + mSecondaryColor + "'>";
+    }
+
+    private static String onClick(String action) {
+        return " onclick=\"onRowAction(this, '" + action + "')\"";
+    }
+
+    private static String getClientName(String deviceType) {
+        if (TextUtils.isEmpty(deviceType)) {
+            return null;
+        }
+        switch (deviceType) {
+            case "ios":
+                return "iOS ";
+            case "wp":
+                return "WP ";
+            case "android":
+                return "Android ";
+            default:
+                return "手机 ";
+        }
+    }
+
+    private static String toCssColor(int color) {
+        return String.format(Locale.US, "#%06x", color & 0xffffff);
+    }
+}
@@ -0,0 +1,146 @@
+package sp.phone.mvp.model.convert;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.anzong.androidnga.base.util.ThreadUtils;
+import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.util.NLog;
+
+/**
+ * 回复内容的后台转换队列, 由列表绑定数据时驱动
+ * <p>
+ * 屏幕上的回复优先转换, 预取的回复排在后面, 同一优先级按提交顺序; 翻页后可以取消其它页还没开始的任务
+ */
+public class ArticleRenderQueue {
+
+    private static final String TAG = ArticleRenderQueue.class.getSimpleName();
+
+    public static final int PRIORITY_VISIBLE = 0;
+
+    public static final int PRIORITY_PREFETCH = 1;
+
+    private final ThreadPoolExecutor mExecutor;
+
+    private final Map<ThreadRowInfo, RenderTask> mTasks = new ConcurrentHashMap<>();
+
+    private final AtomicLong mSequence = new AtomicLong();
+
+    public interface Callback {
+
+        /**
+         * 在主线程回调
+         */
+        void onRendered(ThreadRowInfo row);
+    }
+
+    private static class SingletonHolder {
+
+        private static ArticleRenderQueue sInstance = new ArticleRenderQueue();
+    }
+
+    public static ArticleRenderQueue getInstance() {
+        return SingletonHolder.sInstance;
+    }
+
+    private ArticleRenderQueue() {
+        mExecutor = new ThreadPoolExecutor(ArticleConvertFactory.CONVERT_THREAD_COUNT, ArticleConvertFactory.CONVERT_THREAD_COUNT,
+                30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, "ArticleRender"));
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 请求转换一行, 已经在队列中的任务只会提高优先级, 不会重复转换
+     *
+     * @param page 所在的页, 用于翻页后取消
+     */
+    public void render(ThreadRowInfo row, int page, int priority, Callback callback) {
+        if (!row.isRenderPending()) {
+            return;
+        }
+        RenderTask task = mTasks.get(row);
+        if (task != null) {
+            task.mCallback = callback;
+            if (task.mPriority <= priority || !mExecutor.remove(task)) {
+                return;
+            }
+        }
+        task = new RenderTask(row, page, priority, mSequence.getAndIncrement(), callback);
+        mTasks.put(row, task);
+        mExecutor.execute(task);
+    }
+
+    /**
+     * 取消这个帖子中其它页还没开始的任务
+     * <p>
+     * 正在转换的任务照常回调, 相邻页的列表还在, 对应的回复已经绑定了空白的 WebView, 需要回调刷新
+     */
+    public void cancelOtherPages(int tid, int page) {
+        Iterator<RenderTask> iterator = mTasks.values().iterator();
+        while (iterator.hasNext()) {
+            RenderTask task = iterator.next();
+            if (task.mRow.getTid() == tid && task.mPage != page && mExecutor.remove(task)) {
+                task.mCancelled = true;
+                iterator.remove();
+            }
+        }
+    }
+
+    private class RenderTask implements Runnable, Comparable<RenderTask> {
+
+        private final ThreadRowInfo mRow;
+
+        private final int mPage;
+
+        private final int mPriority;
+
+        private final long mSequence;
+
+        private volatile Callback mCallback;
+
+        private volatile boolean mCancelled;
+
+        RenderTask(ThreadRowInfo row, int page, int priority, long sequence, Callback callback) {
+            mRow = row;
+            mPage = page;
+            mPriority = priority;
+            mSequence = sequence;
+            mCallback = callback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ArticleConvertFactory.renderRowContent(mRow);
+            } catch (Exception e) {
+                // 转换失败时按没有 html 处理, 列表直接显示原文
+                NLog.e(TAG, "can not render pid = " + mRow.getPid());
+                e.printStackTrace();
+                mRow.setRenderPending(false);
+            } finally {
+                mTasks.remove(mRow, this);
+            }
+            if (!mCancelled && !mRow.isRenderPending()) {
+                ThreadUtils.postOnMainThread(() -> {
+                    Callback callback = mCallback;
+                    if (!mCancelled && callback != null) {
+                        callback.onRendered(mRow);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public int compareTo(RenderTask other) {
+            if (mPriority != other.mPriority) {
+                return Integer.compare(mPriority, other.mPriority);
+            }
+            return Long.compare(mSequence, other.mSequence);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package sp.phone.mvp.model.convert;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.style.StrikethroughSpan;
+import android.text.style.StyleSpan;
+import android.text.style.UnderlineSpan;
+
+import gov.anzong.androidnga.Utils;
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.bbcode.BBCodeNode;
+import gov.anzong.androidnga.core.bbcode.BBCodeToken;
+import gov.anzong.androidnga.core.bbcode.EmoticonNode;
+import gov.anzong.androidnga.core.bbcode.LinkNode;
+import gov.anzong.androidnga.core.bbcode.SimpleContentChecker;
+import gov.anzong.androidnga.core.bbcode.TagNode;
+import gov.anzong.androidnga.core.decode.ForumEmoticonDecoder;
+import sp.phone.common.PhoneConfiguration;
+import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.theme.ThemeManager;
+import sp.phone.util.StringUtils;
+import sp.phone.view.span.EmoticonSpan;
+import sp.phone.view.span.LinkSpan;
+import sp.phone.view.span.QuoteSpan;
+
+/**
+ * 把只有简单内容的回复直接转换成 Spannable, 由 TextView 显示, 不需要 WebView
+ * <p>
+ * 哪些内容算简单见 {@link SimpleContentChecker}, 显示效果尽量和 ForumBasicDecoder 生成的 html 一致
+ */
+public class ArticleSpanBuilder {
+
+    private static final String TAG_DICE = "[dice]";
+
+    private final String mSource;
+
+    private final BBCodeDocument mDocument;
+
+    private final SpannableStringBuilder mBuilder = new SpannableStringBuilder();
+
+    private final int mQuoteBackgroundColor;
+
+    private final int mQuotePadding;
+
+    private final int mEmoticonSize;
+
+    private final float mDensity;
+
+    private final boolean mDarkMode;
+
+    private final String mHost;
+
+    private int mQuoteLevel;
+
+    private ArticleSpanBuilder(Context context, BBCodeDocument document) {
+        mDocument = document;
+        mSource = document.getSource();
+        mQuoteBackgroundColor = ThemeManager.getInstance().getWebQuoteBackgroundColor();
+        mDensity = context.getResources().getDisplayMetrics().density;
+        // 和网页中 div.quote 的 padding: 10px 一致
+        mQuotePadding = Math.round(10 * mDensity);
+        mEmoticonSize = Math.round(PhoneConfiguration.getInstance().getEmoticonSize() * mDensity);
+        mDarkMode = ThemeManager.getInstance().isNightMode();
+        mHost = Utils.getNGAHost();
+    }
+
+    /**
+     * 回复是否可以不用 WebView 显示: 没有屏蔽, 正文只有简单内容, 也没有签名, 投票, 附件和贴条
+     */
+    public static boolean isSupported(ThreadRowInfo row) {
+        if (row.get_isInBlackList() || StringUtils.isEmpty(row.getContent()) || row.getVoteData() != null
+                || row.getAttachs() != null && !row.getAttachs().isEmpty()
+                || row.getComments() != null && !row.getComments().isEmpty()) {
+            return false;
+        }
+        if (PhoneConfiguration.getInstance().isShowSignature() && !StringUtils.isEmpty(row.getSignature())) {
+            return false;
+        }
+        if (row.getSubject() != null && row.getSubject().contains(TAG_DICE)) {
+            return false;
+        }
+        return SimpleContentChecker.isSimple(row.getDocument());
+    }
+
+    /**
+     * 在转换线程中调用, 表情图片在显示时由 {@link EmoticonSpan#load} 加载
+     */
+    public static CharSequence build(Context context, ThreadRowInfo row) {
+        ArticleSpanBuilder builder = new ArticleSpanBuilder(context, row.getDocument());
+        if (!StringUtils.isEmpty(row.getSubject())) {
+            int start = builder.mBuilder.length();
+            builder.appendText(row.getSubject(), 0, row.getSubject().length());
+            builder.setSpan(new StyleSpan(Typeface.BOLD), start);
+            builder.newLine();
+            builder.mBuilder.append('\n');
+        }
+        builder.appendChildren(row.getDocument().getRoot());
+        // 去掉结尾的换行, 和网页一样不留空行
+        int end = builder.mBuilder.length();
+        while (end > 0 && builder.mBuilder.charAt(end - 1) == '\n') {
+            end--;
+        }
+        builder.mBuilder.delete(end, builder.mBuilder.length());
+        return builder.mBuilder;
+    }
+
+    private void appendChildren(BBCodeNode node) {
+        for (BBCodeNode child : node.getChildren()) {
+            appendNode(child);
+        }
+    }
+
+    private void appendNode(BBCodeNode node) {
+        switch (node.getType()) {
+            case BBCodeNode.TYPE_TEXT:
+                appendText(mSource, node.getStart(), node.getEnd());
+                break;
+            case BBCodeNode.TYPE_QUOTE:
+                appendQuote(node);
+                break;
+            case BBCodeNode.TYPE_EMOTICON:
+                appendEmoticon((EmoticonNode) node);
+                break;
+            case BBCodeNode.TYPE_LINK:
+                appendLink((LinkNode) node);
+                break;
+            default:
+                appendTag((TagNode) node);
+                break;
+        }
+    }
+
+    private void appendTag(TagNode node) {
+        if (!node.isClosed()) {
+            if (node.getName().equals("@")) {
+                BBCodeToken token = node.getOpenToken();
+                String name = mSource.substring(token.getAttrStart(), token.getAttrEnd());
+                appendLink("[@" + name + "]", mHost + "nuke.php?func=ucp&username=" + name, true);
+            } else {
+                mBuilder.append(node.getText(mSource));
+            }
+            return;
+        }
+        if (mDocument.isReplyHeader(node)) {
+            // 和网页一样, 回复头显示在引用中
+            appendQuote(node);
+            return;
+        }
+        int start = mBuilder.length();
+        switch (node.getName()) {
+            case "b":
+                appendChildren(node);
+                setSpan(new StyleSpan(Typeface.BOLD), start);
+                break;
+            case "i":
+                appendChildren(node);
+                setSpan(new StyleSpan(Typeface.ITALIC), start);
+                break;
+            case "u":
+                appendChildren(node);
+                setSpan(new UnderlineSpan(), start);
+                break;
+            case "del":
+                appendChildren(node);
+                setSpan(new StrikethroughSpan(), start);
+                break;
+            case "pid":
+                String value = node.getOpenToken().getAttr(mSource).substring(1);
+                String[] pid = SimpleContentChecker.getReplyPid(value);
+                appendLink("[Reply]", mHost + "read.php?searchpost=1&pid=" + pid[0] + "&tid=" + pid[1], true);
+                break;
+            default:
+                // [uid] 只显示用户名
+                appendChildren(node);
+                break;
+        }
+    }
+
+    private void appendQuote(BBCodeNode node) {
+        newLine();
+        int start = mBuilder.length();
+        mQuoteLevel++;
+        appendChildren(node);
+        if (node.getType() != BBCodeNode.TYPE_QUOTE) {
+            setSpan(new StyleSpan(Typeface.BOLD), start);
+        }
+        mQuoteLevel--;
+        newLine();
+        if (mBuilder.length() > start) {
+            mBuilder.setSpan(new QuoteSpan(mQuoteBackgroundColor, mQuotePadding, mQuoteLevel), start, mBuilder.length(),
+                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    private void appendEmoticon(EmoticonNode node) {
+        String url = ForumEmoticonDecoder.getEmoticonUrl(node.getCategory(), node.getEmoticonName());
+        if (url == null) {
+            // 不认识的表情按原文显示
+            mBuilder.append(node.getText(mSource));
+            return;
+        }
+        boolean acEmoticon = ForumEmoticonDecoder.isInvertInDarkMode(node.getCategory());
+        int start = mBuilder.length();
+        mBuilder.append('\uFFFC');
+        // 网页中只有 AC 娘表情按设置的大小显示
+        setSpan(new EmoticonSpan(url, acEmoticon ? mEmoticonSize : 0, mDensity, acEmoticon && mDarkMode), start);
+    }
+
+    private void appendLink(LinkNode node) {
+        String href = node.getHref();
+        if (href.startsWith("/")) {
+            href = mHost + href.substring(1);
+        }
+        if (node.getOpenToken().hasAttr()) {
+            int start = mBuilder.length();
+            appendChildren(node);
+            trimEnd(start);
+            setSpan(new LinkSpan(href, false), start);
+        } else {
+            // [url]...[/url] 显示完整地址
+            appendLink(href, href, false);
+        }
+    }
+
+    private void appendLink(String text, String url, boolean bold) {
+        int start = mBuilder.length();
+        mBuilder.append(text);
+        setSpan(new LinkSpan(url, bold), start);
+    }
+
+    private void setSpan(Object span, int start) {
+        if (mBuilder.length() > start) {
+            mBuilder.setSpan(span, start, mBuilder.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    private void newLine() {
+        int length = mBuilder.length();
+        if (length > 0 && mBuilder.charAt(length - 1) != '\n') {
+            mBuilder.append('\n');
+        }
+    }
+
+    private void trimEnd(int start) {
+        int end = mBuilder.length();
+        while (end > start && mBuilder.charAt(end - 1) == ' ') {
+            end--;
+        }
+        mBuilder.delete(end, mBuilder.length());
+    }
+
+    /**
+     * 按网页的规则显示原文中的文字: &lt;br/&gt; 换行, 连续的空白合并成一个空格, 行首的空白忽略, 还原转义字符
+     */
+    private void appendText(String text, int start, int end) {
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                int breakEnd = matchBreak(text, i, end);
+                if (breakEnd > 0) {
+                    mBuilder.append('\n');
+                    i = breakEnd;
+                    continue;
+                }
+                mBuilder.append(c);
+            } else if (c == '&') {
+                int semicolon = text.indexOf(';', i);
+                if (semicolon > i && semicolon < end && semicolon - i <= 10) {
+                    String decoded = decodeEntity(text.substring(i + 1, semicolon));
+                    if (decoded != null) {
+                        mBuilder.append(decoded);
+                        i = semicolon + 1;
+                        continue;
+                    }
+                }
+                mBuilder.append(c);
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                int length = mBuilder.length();
+                if (length > 0 && mBuilder.charAt(length - 1) != ' ' && mBuilder.charAt(length - 1) != '\n') {
+                    mBuilder.append(' ');
+                }
+            } else {
+                mBuilder.append(c);
+            }
+            i++;
+        }
+    }
+
+    private static int matchBreak(String text, int start, int end) {
+        if (text.startsWith("<br/>", start) && start + 5 <= end) {
+            return start + 5;
+        } else if (text.startsWith("<br>", start) && start + 4 <= end) {
+            return start + 4;
+        }
+        return -1;
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "nbsp":
+                return " ";
+            default:
+                break;
+        }
+        if (entity.length() < 2 || entity.charAt(0) != '#') {
+            return null;
+        }
+        try {
+            int codePoint = entity.charAt(1) == 'x' || entity.charAt(1) == 'X'
+                    ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1));
+            return new String(Character.toChars(codePoint));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package sp.phone.mvp.model.convert;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 帖子和主题列表转换时各阶段的累计耗时和分配字节数, 多个转换线程可以同时累加
+ * <p>
+ * 分配字节数需要通过 {@link #setAllocationCounter} 提供当前线程的计数, App 中没有设置, 只统计耗时
+ */
+public class ConvertStats {
+
+    /**
+     * 预处理的正则替换
+     */
+    public static final int STAGE_CLEAN = 0;
+
+    /**
+     * fastjson 解析
+     */
+    public static final int STAGE_JSON = 1;
+
+    /**
+     * 把 json 绑定到回复和主题
+     */
+    public static final int STAGE_BIND = 2;
+
+    /**
+     * 回复内容预处理, 包括 bbcode 解析和查缓存
+     */
+    public static final int STAGE_CONTENT = 3;
+
+    /**
+     * bbcode 转换成 html, 不包括掷骰子
+     */
+    public static final int STAGE_DECODE = 4;
+
+    /**
+     * 掷骰子, 分配的字节数算在 {@link #STAGE_DECODE} 中
+     */
+    public static final int STAGE_DICE = 5;
+
+    private static final String[] STAGE_NAMES = {"clean", "json", "bind", "content", "decode", "dice"};
+
+    public static final int STAGE_COUNT = STAGE_NAMES.length;
+
+    private static volatile LongSupplier sAllocationCounter;
+
+    private final AtomicLongArray mNanos = new AtomicLongArray(STAGE_NAMES.length);
+
+    private final AtomicLongArray mBytes = new AtomicLongArray(STAGE_NAMES.length);
+
+    private final AtomicLong mSignatureHits = new AtomicLong();
+
+    /**
+     * @param counter 返回当前线程已经分配的字节数, null 时不统计
+     */
+    public static void setAllocationCounter(LongSupplier counter) {
+        sAllocationCounter = counter;
+    }
+
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    public static long allocatedBytes() {
+        LongSupplier counter = sAllocationCounter;
+        return counter == null ? 0 : counter.getAsLong();
+    }
+
+    /**
+     * 在同一个线程中调用, startBytes 来自 {@link #allocatedBytes()}
+     */
+    public void add(int stage, long startNanos, long startBytes) {
+        mNanos.addAndGet(stage, System.nanoTime() - startNanos);
+        mBytes.addAndGet(stage, allocatedBytes() - startBytes);
+    }
+
+    /**
+     * 只累加耗时, 用于在其他阶段中单独计时的部分
+     */
+    public void addNanos(int stage, long nanos) {
+        mNanos.addAndGet(stage, nanos);
+    }
+
+    /**
+     * 签名命中缓存省去的解析次数
+     */
+    public void addSignatureHits(int hits) {
+        mSignatureHits.addAndGet(hits);
+    }
+
+    public long getSignatureHits() {
+        return mSignatureHits.get();
+    }
+
+    public long getNanos(int stage) {
+        return mNanos.get(stage);
+    }
+
+    public long getBytes(int stage) {
+        return mBytes.get(stage);
+    }
+
+    public void reset() {
+        for (int i = 0; i < STAGE_NAMES.length; i++) {
+            mNanos.set(i, 0);
+            mBytes.set(i, 0);
+        }
+        mSignatureHits.set(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < STAGE_NAMES.length; i++) {
+            if (mNanos.get(i) == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(Locale.getDefault(), "%s %d ms", STAGE_NAMES[i], TimeUnit.NANOSECONDS.toMillis(mNanos.get(i))));
+            if (mBytes.get(i) > 0) {
+                builder.append(String.format(Locale.getDefault(), " %d KB", mBytes.get(i) / 1024));
+            }
+        }
+        if (mSignatureHits.get() > 0) {
+            builder.append(String.format(Locale.getDefault(), ", signature saved %d", mSignatureHits.get()));
+        }
+        return builder.toString();
+    }
+}
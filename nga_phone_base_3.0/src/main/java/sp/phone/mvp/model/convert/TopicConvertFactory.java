@@ -33,12 +33,30 @@ public class TopicConvertFactory {
     private static final String TAG = TopicConvertFactory.class.getSimpleName();
 
     public TopicListInfo getTopicListInfo(String js, int page) {
+        return getTopicListInfo(js, page, null);
+    }
 
+    /**
+     * @param stats 累计各阶段耗时, 可以为 null
+     */
+    public TopicListInfo getTopicListInfo(String js, int page, ConvertStats stats) {
+        long start = System.nanoTime();
+        long startBytes = ConvertStats.allocatedBytes();
         if (js.startsWith("window.script_muti_get_var_store=")) {
             js = js.substring("window.script_muti_get_var_store=".length());
         }
         js = js.replace(",\"parent\":\"\"", "");
+        if (stats != null) {
+            stats.add(ConvertStats.STAGE_CLEAN, start, startBytes);
+            start = System.nanoTime();
+            startBytes = ConvertStats.allocatedBytes();
+        }
         TopicListBean topicListBean = JSON.parseObject(js, TopicListBean.class);
+        if (stats != null) {
+            stats.add(ConvertStats.STAGE_JSON, start, startBytes);
+            start = System.nanoTime();
+            startBytes = ConvertStats.allocatedBytes();
+        }
 
         try {
             TopicListInfo listInfo = new TopicListInfo();
@@ -48,6 +66,9 @@ public class TopicConvertFactory {
             listInfo.setName(topicListBean.getData().get__F().name);
             sort(listInfo);
             filter(listInfo);
+            if (stats != null) {
+                stats.add(ConvertStats.STAGE_BIND, start, startBytes);
+            }
             return listInfo;
         } catch (NullPointerException e) {
             NLog.e(TAG, "can not parse :\n" + js);
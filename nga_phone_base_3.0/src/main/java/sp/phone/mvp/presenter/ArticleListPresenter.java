@@ -164,15 +164,9 @@ public class ArticleListPresenter extends BasePresenter<ArticleListFragment, Art
 
     @Override
     public void postComment(ArticleListParam param, ThreadRowInfo row) {
-        final String quoteRegex = "\\[quote\\]([\\s\\S])*\\[/quote\\]";
-        final String replayRegex = "\\[b\\]Reply to \\[pid=\\d+,\\d+,\\d+\\]Reply\\[/pid\\] Post by .+?\\[/b\\]";
         StringBuilder postPrefix = new StringBuilder();
-        String content = row.getContent()
-                .replaceAll(quoteRegex, "")
-                .replaceAll(replayRegex, "");
+        String content = FunctionUtils.getQuoteContent(row);
         final String postTime = row.getPostdate();
-        content = FunctionUtils.checkContent(content);
-        content = StringUtils.unEscapeHtml(content);
         final String name = row.getAuthor();
         final String uid = String.valueOf(row.getAuthorid());
         String tidStr = String.valueOf(param.tid);
@@ -238,18 +232,12 @@ public class ArticleListPresenter extends BasePresenter<ArticleListFragment, Art
 
     @Override
     public void quote(ArticleListParam param, ThreadRowInfo row) {
-        final String quoteRegex = "\\[quote\\]([\\s\\S])*\\[/quote\\]";
-        final String replayRegex = "\\[b\\]Reply to \\[pid=\\d+,\\d+,\\d+\\]Reply\\[/pid\\] Post by .+?\\[/b\\]";
         StringBuilder postPrefix = new StringBuilder();
-        String content = row.getContent()
-                .replaceAll(quoteRegex, "")
-                .replaceAll(replayRegex, "");
+        String content = FunctionUtils.getQuoteContent(row);
         final String postTime = row.getPostdate();
         String mention = null;
         final String name = row.getAuthor();
         final String uid = String.valueOf(row.getAuthorid());
-        content = FunctionUtils.checkContent(content);
-        content = StringUtils.unEscapeHtml(content);
         String tidStr = String.valueOf(param.tid);
         if (row.getPid() != 0) {
             mention = name;
@@ -1,15 +1,19 @@
 package sp.phone.param;
 
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
 
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import sp.phone.http.retrofit.RetrofitHelper;
 import sp.phone.util.NLog;
 
 public class HttpPostClient {
     private static final String LOG_TAG = HttpPostClient.class
             .getSimpleName();
+    private static final MediaType FORM_TYPE = MediaType.parse("application/x-www-form-urlencoded");
     private String urlString;
     private String cookie;
     public HttpPostClient(String urlString) {
@@ -35,42 +39,32 @@ public class HttpPostClient {
         this.cookie = cookie;
     }
 
-    public HttpURLConnection post_body(String body) {
-        HttpURLConnection conn;
-
-        try {
-
-
-            URL url = new URL(this.urlString);
-            conn = (HttpURLConnection) url.openConnection();
-            if (cookie != null)
-                conn.setRequestProperty("Cookie", cookie);
-            conn.setInstanceFollowRedirects(false);
-
-            conn.setRequestProperty("User-Agent", RetrofitHelper.getInstance().getUserAgent());
-            conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            conn.setRequestProperty("Content-Length", String.valueOf(body.length()));
-            conn.setRequestProperty("Accept-Charset", "GBK");
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);
-
-            conn.connect();
-
-            OutputStreamWriter out = new OutputStreamWriter(conn
-                    .getOutputStream());
-            out.write(body);
-            out.flush();
-            out.close();
-
-
-            NLog.i(LOG_TAG, conn.getResponseMessage());
-
-        } catch (Exception e) {
-            //sb.append(e.toString());
-            conn = null;
-            NLog.e(LOG_TAG, NLog.getStackTraceString(e));
+    /**
+     * 使用 {@link RetrofitHelper#getNoRedirectClient()}, 和其他请求共用连接; 调用者需要关闭返回的 Response
+     *
+     * @param body 已经编码好的表单
+     * @throws IOException 网络错误
+     */
+    public Response post(String body) throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(urlString)
+                .header("Accept-Charset", "GBK")
+                // 使用 byte[], 否则 OkHttp 会在 Content-Type 后面加上 charset=utf-8
+                .post(RequestBody.create(FORM_TYPE, body.getBytes()));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
         }
-        return conn;
+        Response response = RetrofitHelper.getInstance().getNoRedirectClient().newCall(builder.build()).execute();
+        NLog.i(LOG_TAG, response.message());
+        return response;
+    }
+
+    /**
+     * 论坛返回的内容都是 GBK 编码
+     */
+    public static String readBody(Response response) throws IOException {
+        ResponseBody body = response.body();
+        return body != null ? new String(body.bytes(), "gbk") : null;
     }
 
 }
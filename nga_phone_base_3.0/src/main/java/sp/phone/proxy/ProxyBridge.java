@@ -1,23 +1,26 @@
 package sp.phone.proxy;
 
 import android.content.Context;
-import android.os.AsyncTask;
 import android.webkit.JavascriptInterface;
 import android.widget.Toast;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 
 import gov.anzong.androidnga.R;
 import gov.anzong.androidnga.Utils;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Response;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.param.HttpPostClient;
+import sp.phone.rxjava.BaseSubscriber;
 import sp.phone.util.ActivityUtils;
 import sp.phone.util.NLog;
 import sp.phone.util.StringUtils;
@@ -26,6 +29,7 @@ public final class ProxyBridge {
 
     Context context;
     Toast toast;
+    private final CompositeDisposable mDisposables = new CompositeDisposable();
 
     public ProxyBridge(Context ccontext, Toast mtoast) {
         // TODO Auto-generated constructor stub
@@ -36,88 +40,105 @@ public final class ProxyBridge {
     @JavascriptInterface
     public void postURL(String url) {
         ActivityUtils.getInstance().noticeSaying("正在提交...", context);
-        (new AsyncTask<String, Integer, String>() {
-            @Override
-            protected void onPostExecute(String result) {
-                ActivityUtils.getInstance().dismiss();
-                if (StringUtils.isEmpty(result))
-                    result = "未知错误,请重试";
-                if (result.startsWith("操作成功"))
-                    result = "操作成功";
-                if (toast != null) {
-                    toast.setText(result);
-                    toast.setDuration(Toast.LENGTH_SHORT);
-                    toast.show();
-                } else {
-                    toast = Toast.makeText(context,
-                            result,
-                            Toast.LENGTH_SHORT);
-                    toast.show();
-                }
-            }
+        Observable.fromCallable(() -> post(url))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new BaseSubscriber<String>() {
 
-            @Override
-            protected String doInBackground(String... params) {
-                if (StringUtils.isEmpty(params[0]))
-                    return "选择错误";
-                String url = Utils.getNGAHost() + "nuke.php?" + params[0];
-                HttpPostClient c = new HttpPostClient(url);
-                String cookie = PhoneConfiguration.getInstance().getCookie();
-                c.setCookie(cookie);
-                try {
-                    InputStream input = null;
-                    HttpURLConnection conn = c.post_body(params[0]);
-                    if (conn != null) {
-                        if (conn.getResponseCode() >= 500) {
-                            input = null;
-                        } else {
-                            if (conn.getResponseCode() >= 400) {
-                                input = conn.getErrorStream();
-                            } else
-                                input = conn.getInputStream();
-                        }
-                    } else {
-                        return "网络错误";
+                    private Disposable mDisposable;
+
+                    @Override
+                    public void onSubscribe(@NonNull Disposable disposable) {
+                        mDisposable = disposable;
+                        mDisposables.add(disposable);
                     }
 
-                    if (input != null) {
-                        String js = IOUtils.toString(input, "gbk");
-                        if (null == js) {
-                            return context.getString(R.string.network_error);
-                        }
-                        js = js.replaceAll("window.script_muti_get_var_store=", "");
-                        JSONObject o = null, oerror = null;
-                        try {
-                            o = (JSONObject) JSON.parseObject(js).get("data");
-                            oerror = (JSONObject) JSON.parseObject(js).get("error");
-                        } catch (Exception e) {
-                            NLog.e("ProxyBridge", "can not parse :\n" + js);
-                        }
-                        if (o == null) {
-                            if (oerror == null) {
-                                return "请重新登录";
-                            } else {
-                                if (!StringUtils.isEmpty(oerror.getString("0"))) {
-                                    return oerror.getString("0");
-                                } else {
-                                    return "二哥又开始乱搞了";
-                                }
-                            }
-                        } else {
-                            if (!StringUtils.isEmpty(o.getString("0"))) {
-                                return o.getString("0");
-                            } else {
-                                return "二哥又开始乱搞了";
-                            }
-                        }
+                    @Override
+                    public void onNext(@NonNull String result) {
+                        mDisposables.delete(mDisposable);
+                        showResult(result);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable throwable) {
+                        super.onError(throwable);
+                        mDisposables.delete(mDisposable);
+                        showResult(null);
+                    }
+                });
+    }
+
+    /**
+     * 对话框关闭时调用, 不再显示提交结果
+     */
+    public void cancel() {
+        if (mDisposables.size() > 0) {
+            ActivityUtils.getInstance().dismiss();
+        }
+        mDisposables.clear();
+    }
+
+    private void showResult(String result) {
+        ActivityUtils.getInstance().dismiss();
+        if (StringUtils.isEmpty(result))
+            result = "未知错误,请重试";
+        if (result.startsWith("操作成功"))
+            result = "操作成功";
+        if (toast != null) {
+            toast.setText(result);
+            toast.setDuration(Toast.LENGTH_SHORT);
+            toast.show();
+        } else {
+            toast = Toast.makeText(context,
+                    result,
+                    Toast.LENGTH_SHORT);
+            toast.show();
+        }
+    }
+
+    private String post(String param) {
+        if (StringUtils.isEmpty(param))
+            return "选择错误";
+        String url = Utils.getNGAHost() + "nuke.php?" + param;
+        HttpPostClient c = new HttpPostClient(url);
+        String cookie = PhoneConfiguration.getInstance().getCookie();
+        c.setCookie(cookie);
+        try (Response response = c.post(param)) {
+            if (response.code() >= 500) {
+                return "二哥在用服务器下毛片";
+            }
+            String js = HttpPostClient.readBody(response);
+            if (null == js) {
+                return context.getString(R.string.network_error);
+            }
+            js = js.replaceAll("window.script_muti_get_var_store=", "");
+            JSONObject o = null, oerror = null;
+            try {
+                o = (JSONObject) JSON.parseObject(js).get("data");
+                oerror = (JSONObject) JSON.parseObject(js).get("error");
+            } catch (Exception e) {
+                NLog.e("ProxyBridge", "can not parse :\n" + js);
+            }
+            if (o == null) {
+                if (oerror == null) {
+                    return "请重新登录";
+                } else {
+                    if (!StringUtils.isEmpty(oerror.getString("0"))) {
+                        return oerror.getString("0");
                     } else {
-                        return "二哥在用服务器下毛片";
+                        return "二哥又开始乱搞了";
                     }
-                } catch (IOException e) {
                 }
-                return "";
+            } else {
+                if (!StringUtils.isEmpty(o.getString("0"))) {
+                    return o.getString("0");
+                } else {
+                    return "二哥又开始乱搞了";
+                }
             }
-        }).execute(url);
+        } catch (IOException e) {
+            return "网络错误";
+        }
     }
 
 }
@@ -1,14 +1,19 @@
 package sp.phone.task;
 
 import android.content.Context;
-import android.os.AsyncTask;
 
 import com.alibaba.fastjson.JSON;
 
 import gov.anzong.androidnga.Utils;
 import gov.anzong.androidnga.activity.ForumListActivity;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.mvp.model.ForumsListModel;
+import sp.phone.rxjava.BaseSubscriber;
 import sp.phone.util.ActivityUtils;
 import sp.phone.util.HttpUtil;
 
@@ -17,50 +22,61 @@ import sp.phone.util.HttpUtil;
  * Created by elrond on 2017/9/28.
  */
 
-public class GetAllForumsTask extends AsyncTask<String, Integer, ForumsListModel> {
+public class GetAllForumsTask {
     private static final String URL = "app_api.php?__lib=home&__act=category";
     private Context context;
     private String mUrl;
+    private Disposable mDisposable;
 
     public GetAllForumsTask(Context context) {
         this.context = context;
         mUrl = Utils.getNGAHost() + URL;
     }
 
-    @Override
-    protected ForumsListModel doInBackground(String... params) {
-        String json = HttpUtil.getHtml(mUrl, PhoneConfiguration.getInstance().getCookie());
-        ForumsListModel listModel = null;
-        try {
-            listModel = JSON.parseObject(json, ForumsListModel.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return listModel;
-    }
-
-    @Override
-    protected void onPreExecute() {
+    /**
+     * 在 io 线程中加载, 结果在主线程通知 {@link ForumListActivity}
+     */
+    public void execute() {
         ActivityUtils.getInstance().noticeSaying(context);
-    }
+        Observable.fromCallable(() -> {
+            String json = HttpUtil.getHtml(mUrl, PhoneConfiguration.getInstance().getCookie());
+            return JSON.parseObject(json, ForumsListModel.class);
+        })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new BaseSubscriber<ForumsListModel>() {
+                    @Override
+                    public void onSubscribe(@NonNull Disposable disposable) {
+                        mDisposable = disposable;
+                    }
 
-    @Override
-    protected void onPostExecute(ForumsListModel result) {
-        ActivityUtils.getInstance().dismiss();
-        if (result == null) {
-            ActivityUtils.getInstance().noticeError("", context);
-        } else if (context instanceof ForumListActivity) {
-            ((ForumListActivity) context).notifyResult(result);
-        }
-    }
+                    @Override
+                    public void onNext(@NonNull ForumsListModel result) {
+                        mDisposable = null;
+                        ActivityUtils.getInstance().dismiss();
+                        if (context instanceof ForumListActivity) {
+                            ((ForumListActivity) context).notifyResult(result);
+                        }
+                    }
 
-    @Override
-    protected void onCancelled(ForumsListModel result) {
-        this.onCancelled();
+                    @Override
+                    public void onError(@NonNull Throwable throwable) {
+                        super.onError(throwable);
+                        mDisposable = null;
+                        ActivityUtils.getInstance().dismiss();
+                        ActivityUtils.getInstance().noticeError("", context);
+                    }
+                });
     }
 
-    @Override
-    protected void onCancelled() {
-        ActivityUtils.getInstance().dismiss();
+    /**
+     * 在 {@link ForumListActivity#onDestroy()} 中调用, 不再回调已经关闭的界面
+     */
+    public void cancel() {
+        if (mDisposable != null) {
+            mDisposable.dispose();
+            mDisposable = null;
+            ActivityUtils.getInstance().dismiss();
+        }
     }
 }
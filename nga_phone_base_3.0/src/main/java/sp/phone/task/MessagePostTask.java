@@ -6,13 +6,10 @@ import android.os.AsyncTask;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 
 import gov.anzong.androidnga.Utils;
+import okhttp3.Response;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.param.HttpPostClient;
 import sp.phone.util.ActivityUtils;
@@ -76,29 +73,20 @@ public class MessagePostTask extends AsyncTask<String, Integer, String> {
         HttpPostClient c = new HttpPostClient(mReplyUrl);
         String cookie = PhoneConfiguration.getInstance().getCookie();
         c.setCookie(cookie);
-        try {
-            InputStream input = null;
-            HttpURLConnection conn = c.post_body(body);
-            if (conn != null) {
-                if (conn.getResponseCode() >= 500) {
-                    input = null;
+        try (Response response = c.post(body)) {
+            if (response.code() >= 500) {
+                mSuccess = false;
+                ret = "二哥在用服务器下毛片";
+            } else {
+                if (response.code() >= 400) {
                     mSuccess = false;
-                    ret = "二哥在用服务器下毛片";
-                } else {
-                    if (conn.getResponseCode() >= 400) {
-                        input = conn.getErrorStream();
-                        mSuccess = false;
-                    } else
-                        input = conn.getInputStream();
                 }
-            } else
-                mSuccess = false;
-
-            if (input != null) {
-                String html = IOUtils.toString(input, "gbk");
-                ret = getReplyResult(html);
-            } else
-                mSuccess = false;
+                String html = HttpPostClient.readBody(response);
+                if (html != null) {
+                    ret = getReplyResult(html);
+                } else
+                    mSuccess = false;
+            }
         } catch (IOException e) {
             mSuccess = false;
             NLog.e(LOG_TAG, NLog.getStackTraceString(e));
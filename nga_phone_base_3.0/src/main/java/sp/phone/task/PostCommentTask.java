@@ -7,13 +7,10 @@ import androidx.fragment.app.FragmentActivity;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 
-import org.apache.commons.io.IOUtils;
-
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 
 import gov.anzong.androidnga.Utils;
+import okhttp3.Response;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.param.HttpPostClient;
 import sp.phone.util.NLog;
@@ -58,20 +55,15 @@ public class PostCommentTask extends AsyncTask<String, Integer, String> {
         c.setCookie(cookie);
         final String body = this.buildBody(comment);
         String ret = null;
-        try {
-            InputStream input = null;
-            HttpURLConnection conn = c.post_body(body);
-            if (conn != null)
-                input = conn.getInputStream();
-
-            if (input != null) {
-                String html = IOUtils.toString(input, "gbk");
-                ret = getPostResult(html);
-
+        try (Response response = c.post(body)) {
+            if (response.isSuccessful()) {
+                String html = HttpPostClient.readBody(response);
+                if (html != null) {
+                    ret = getPostResult(html);
+                }
             }
-
         } catch (IOException e) {
-
+            NLog.e(NLog.getStackTraceString(e));
         }
         return ret;
     }
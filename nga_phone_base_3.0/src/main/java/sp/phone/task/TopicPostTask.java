@@ -1,24 +1,26 @@
 package sp.phone.task;
 
 import android.content.Context;
-import android.os.AsyncTask;
-
-import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 
 import gov.anzong.androidnga.Utils;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Response;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.param.HttpPostClient;
+import sp.phone.rxjava.BaseSubscriber;
 import sp.phone.util.NLog;
 
 /**
  * Created by Justwen on 2017/6/6.
  */
 
-public class TopicPostTask extends AsyncTask<String, Integer, String> {
+public class TopicPostTask {
 
     private final Context mContext;
 
@@ -34,6 +36,8 @@ public class TopicPostTask extends AsyncTask<String, Integer, String> {
 
     private CallBack mCallBack;
 
+    private Disposable mDisposable;
+
 
     public interface CallBack {
 
@@ -46,52 +50,61 @@ public class TopicPostTask extends AsyncTask<String, Integer, String> {
         mCallBack = callBack;
     }
 
-    @Override
-    protected void onCancelled() {
-        mCallBack.onArticlePostFinished(false, null);
-        super.onCancelled();
+    /**
+     * 在 io 线程中发送, 结果在主线程回调
+     */
+    public void execute(String body) {
+        Observable.fromCallable(() -> post(body))
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new BaseSubscriber<String>() {
+                    @Override
+                    public void onSubscribe(@NonNull Disposable disposable) {
+                        mDisposable = disposable;
+                    }
+
+                    @Override
+                    public void onNext(@NonNull String result) {
+                        onPostExecute(result);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable throwable) {
+                        super.onError(throwable);
+                        mCallBack.onArticlePostFinished(false, null);
+                    }
+                });
     }
 
-    @Override
-    protected void onCancelled(String result) {
-        mCallBack.onArticlePostFinished(false, null);
-        super.onCancelled();
+    /**
+     * 界面关闭时调用, 请求仍可能已经发出, 但不再回调
+     */
+    public void cancel() {
+        if (mDisposable != null) {
+            mDisposable.dispose();
+        }
     }
 
-    @Override
-    protected String doInBackground(String... params) {
-        if (params.length < 1)
-            return "parameter error";
+    private String post(String body) {
         String ret = "网络错误";
-        String url = mReplyUrl;
-        String body = params[0];
-
-        HttpPostClient c = new HttpPostClient(url);
+        HttpPostClient c = new HttpPostClient(mReplyUrl);
         String cookie = PhoneConfiguration.getInstance().getCookie();
         c.setCookie(cookie);
-        try {
-            InputStream input = null;
-            HttpURLConnection conn = c.post_body(body);
-            if (conn != null) {
-                if (conn.getResponseCode() >= 500) {
-                    input = null;
+        try (Response response = c.post(body)) {
+            if (response.code() >= 500) {
+                mHasError = true;
+                ret = "二哥在用服务器下毛片";
+            } else {
+                if (response.code() >= 400) {
                     mHasError = true;
-                    ret = "二哥在用服务器下毛片";
+                }
+                String html = HttpPostClient.readBody(response);
+                if (html != null) {
+                    ret = getReplyResult(html);
                 } else {
-                    if (conn.getResponseCode() >= 400) {
-                        input = conn.getErrorStream();
-                        mHasError = true;
-                    } else
-                        input = conn.getInputStream();
+                    mHasError = true;
                 }
-            } else
-                mHasError = true;
-
-            if (input != null) {
-                String html = IOUtils.toString(input, "gbk");
-                ret = getReplyResult(html);
-            } else
-                mHasError = true;
+            }
         } catch (IOException e) {
             mHasError = true;
             NLog.e(LOG_TAG, NLog.getStackTraceString(e));
@@ -110,8 +123,7 @@ public class TopicPostTask extends AsyncTask<String, Integer, String> {
         return html.substring(start, end);
     }
 
-    @Override
-    protected void onPostExecute(String result) {
+    private void onPostExecute(String result) {
         String success_results[] = {"发贴完毕", "@提醒每24小时不能超过50个"};
         if (!mHasError) {
             boolean success = false;
@@ -126,6 +138,5 @@ public class TopicPostTask extends AsyncTask<String, Integer, String> {
                 mHasError = true;
         }
         mCallBack.onArticlePostFinished(!mHasError, result);
-        super.onPostExecute(result);
     }
 }
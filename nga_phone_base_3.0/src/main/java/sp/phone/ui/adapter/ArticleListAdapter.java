@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.text.method.LinkMovementMethod;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,6 +21,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.alibaba.android.arouter.launcher.ARouter;
 
 import java.text.MessageFormat;
+import java.util.List;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
@@ -34,6 +36,8 @@ import sp.phone.common.PhoneConfiguration;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.http.bean.ThreadData;
 import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.mvp.model.convert.ArticlePageHtmlBuilder;
+import sp.phone.mvp.model.convert.ArticleRenderQueue;
 import sp.phone.rxjava.BaseSubscriber;
 import sp.phone.rxjava.RxUtils;
 import sp.phone.theme.ThemeManager;
@@ -43,14 +47,19 @@ import sp.phone.util.ActivityUtils;
 import sp.phone.util.FunctionUtils;
 import sp.phone.util.HtmlUtils;
 import sp.phone.util.ImageUtils;
+import sp.phone.util.NLog;
 import sp.phone.util.StringUtils;
+import sp.phone.view.span.EmoticonSpan;
 import sp.phone.view.webview.LocalWebView;
+import sp.phone.view.webview.WebViewPool;
 
 /**
  * 帖子详情列表Adapter
  */
 public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.ArticleViewHolder> {
 
+    private static final String TAG = ArticleListAdapter.class.getSimpleName();
+
     private static final String DEVICE_TYPE_IOS = "ios";
 
     private static final String DEVICE_TYPE_ANDROID = "android";
@@ -61,6 +70,11 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
 
     private static final int VIEW_TYPE_NATIVE_VIEW = 1;
 
+    /**
+     * 绑定一行时预先转换后面几行
+     */
+    private static final int PREFETCH_COUNT = 3;
+
     private Context mContext;
 
     private FragmentManager mFragmentManager;
@@ -75,6 +89,18 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
 
     private String mTopicOwner;
 
+    private int mPage;
+
+    private ArticleRenderQueue.Callback mRenderCallback = row -> {
+        if (mData == null || mData.getRowList() == null) {
+            return;
+        }
+        int position = mData.getRowList().indexOf(row);
+        if (position >= 0) {
+            notifyItemChanged(position);
+        }
+    };
+
     private View.OnClickListener mOnClientClickListener = new View.OnClickListener() {
         @Override
         public void onClick(View v) {
@@ -189,18 +215,12 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
             StringBuilder postPrefix = new StringBuilder();
             String mention = null;
 
-            final String quote_regex = "\\[quote\\]([\\s\\S])*\\[/quote\\]";
-            final String replay_regex = "\\[b\\]Reply to \\[pid=\\d+,\\d+,\\d+\\]Reply\\[/pid\\] Post by .+?\\[/b\\]";
-            String content = row.getContent();
+            String content = FunctionUtils.getQuoteContent(row);
             final String name = row.getAuthor();
             final String uid = String.valueOf(row.getAuthorid());
             int page = (row.getLou() + 20) / 20;// 以楼数计算page
-            content = content.replaceAll(quote_regex, "");
-            content = content.replaceAll(replay_regex, "");
             final String postTime = row.getPostdate();
             final String tidStr = String.valueOf(row.getTid());
-            content = FunctionUtils.checkContent(content);
-            content = StringUtils.unEscapeHtml(content);
             if (row.getPid() != 0 || row.getLou() == 0) {
                 mention = name;
                 postPrefix.append("[quote][pid=");
@@ -380,10 +400,36 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
         mTopicOwner = topicOwner;
     }
 
+    public String getTopicOwner() {
+        return mTopicOwner;
+    }
+
     public void setData(ThreadData data) {
         mData = data;
     }
 
+    public void setPage(int page) {
+        mPage = page;
+    }
+
+    /**
+     * 转换 first 到 last 之间还没有转换的行, 并预取后面几行
+     */
+    public void requestRender(int first, int last) {
+        if (mData == null || mData.getRowList() == null || first < 0) {
+            return;
+        }
+        List<ThreadRowInfo> rowList = mData.getRowList();
+        ArticleRenderQueue queue = ArticleRenderQueue.getInstance();
+        for (int i = first; i < rowList.size() && i <= last + PREFETCH_COUNT; i++) {
+            ThreadRowInfo row = rowList.get(i);
+            if (row != null && row.isRenderPending() && row.getNativeContent() == null) {
+                int priority = i <= last ? ArticleRenderQueue.PRIORITY_VISIBLE : ArticleRenderQueue.PRIORITY_PREFETCH;
+                queue.render(row, mPage, priority, mRenderCallback);
+            }
+        }
+    }
+
     public void setSupportListener(View.OnClickListener listener) {
         mSupportListener = listener;
     }
@@ -396,10 +442,53 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
         mMenuTogglerListener = menuTogglerListener;
     }
 
+    /**
+     * 单页模式下由网页中的按钮触发, 和点击列表中对应的控件效果相同
+     *
+     * @param action {@link ArticlePageHtmlBuilder} 中的 ACTION_*
+     * @param anchor 弹出菜单的位置, tag 会被设置成 row
+     */
+    public void performRowAction(String action, View anchor, ThreadRowInfo row) {
+        View.OnClickListener listener;
+        switch (action) {
+            case ArticlePageHtmlBuilder.ACTION_PROFILE:
+                listener = mOnProfileClickListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_AVATAR:
+                listener = mOnAvatarClickListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_CLIENT:
+                listener = mOnClientClickListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_SUPPORT:
+                listener = mSupportListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_OPPOSE:
+                listener = mOpposeListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_REPLY:
+                listener = mOnReplyClickListener;
+                break;
+            case ArticlePageHtmlBuilder.ACTION_MENU:
+                listener = mMenuTogglerListener;
+                break;
+            default:
+                listener = null;
+                break;
+        }
+        if (listener != null) {
+            anchor.setTag(row);
+            listener.onClick(anchor);
+        }
+    }
+
     @Override
     public int getItemViewType(int position) {
         ThreadRowInfo row = mData.getRowList().get(position);
-        return TextUtils.isEmpty(row.getFormattedHtmlData()) ? VIEW_TYPE_NATIVE_VIEW : VIEW_TYPE_WEB_VIEW;
+        if (row.getNativeContent() != null) {
+            return VIEW_TYPE_NATIVE_VIEW;
+        }
+        return row.isRenderPending() || !TextUtils.isEmpty(row.getFormattedHtmlData()) ? VIEW_TYPE_WEB_VIEW : VIEW_TYPE_NATIVE_VIEW;
     }
 
     @Override
@@ -413,6 +502,7 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
             // viewHolder.contentTV.setVisibility(View.VISIBLE);
         } else {
             viewHolder.contentTextView.setVisibility(View.VISIBLE);
+            viewHolder.contentTextView.setMovementMethod(LinkMovementMethod.getInstance());
             //  viewHolder.contentTV.setVisibility(View.GONE);
         }
         RxUtils.clicks(viewHolder.nickNameTV, mOnProfileClickListener);
@@ -463,7 +553,7 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
     }
 
     private LocalWebView createLocalWebView() {
-        LocalWebView localWebView = new LocalWebView(mContext);
+        LocalWebView localWebView = WebViewPool.getInstance().acquire(mContext);
         FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
         lp.setMarginStart(mContext.getResources().getDimensionPixelSize(R.dimen.material_standard_half));
         lp.setMarginEnd(mContext.getResources().getDimensionPixelSize(R.dimen.material_standard_half));
@@ -473,7 +563,10 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
 
     private void onBindContentView(ArticleViewHolder holder, ThreadRowInfo row, int position) {
         String html = row.getFormattedHtmlData();
-        if (html != null) {
+        if (row.getNativeContent() != null) {
+            holder.contentTextView.setText(row.getNativeContent());
+            EmoticonSpan.load(holder.contentTextView);
+        } else if (html != null || row.isRenderPending()) {
             if (mLocalWebViews != null) {
                 LocalWebView localWebView = mLocalWebViews[position];
                 if (localWebView == null) {
@@ -492,6 +585,11 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
                 holder.contentTV = createLocalWebView();
                 holder.contentContainer.addView(holder.contentTV);
             }
+            if (html == null) {
+                // 转换完成后会刷新这一行
+                requestRender(position, position);
+                return;
+            }
             holder.contentTV.getWebViewClientEx().setImgUrls(row.getImageUrls());
             holder.contentTV.loadDataWithBaseURL(null, html, "text/html", "utf-8", null);
         } else {
@@ -499,6 +597,21 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
         }
     }
 
+    /**
+     * 页面销毁时把 WebView 放回 {@link WebViewPool}, 之后不能再使用这个 Adapter 显示 WebView
+     */
+    public void releaseWebViews() {
+        WebViewPool pool = WebViewPool.getInstance();
+        for (int i = 0; i < mLocalWebViews.length; i++) {
+            if (mLocalWebViews[i] != null) {
+                pool.release(mLocalWebViews[i]);
+                mLocalWebViews[i] = null;
+            }
+        }
+        mLocalWebViews = null;
+        NLog.d(TAG, "release WebViews, pool: " + pool.getStats());
+    }
+
     private void onBindDeviceType(ImageView clientBtn, ThreadRowInfo row) {
         String deviceType = row.getFromClientModel();
 
@@ -41,14 +41,14 @@ public class ArticlePagerAdapter extends FragmentStatePagerAdapter {
 
     private ArticleListParam getRequestParam(int position) {
         ArticleListParam param = (ArticleListParam) mRequestParam.clone();
-        if (mPageIndexList != null) {
-            param.page = Integer.parseInt(mPageIndexList.get(position));
-        } else {
-            param.page = position + 1;
-        }
+        param.page = getPage(position);
         return param;
     }
 
+    public int getPage(int position) {
+        return mPageIndexList != null ? Integer.parseInt(mPageIndexList.get(position)) : position + 1;
+    }
+
     @Override
     public int getCount() {
         return mCount;
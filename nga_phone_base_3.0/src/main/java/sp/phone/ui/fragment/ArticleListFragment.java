@@ -8,11 +8,13 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.PopupMenu;
 import android.widget.TextView;
 
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.alibaba.android.arouter.launcher.ARouter;
@@ -43,6 +45,7 @@ import sp.phone.util.FunctionUtils;
 import sp.phone.util.NLog;
 import sp.phone.util.StringUtils;
 import sp.phone.view.RecyclerViewEx;
+import sp.phone.view.webview.ArticlePageWebView;
 
 /*
  * MD 帖子详情每一页
@@ -62,6 +65,11 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
 
     private ArticleListAdapter mArticleAdapter;
 
+    /**
+     * 单页模式下代替 mListView 显示整页回复, 否则为 null
+     */
+    private ArticlePageWebView mPageView;
+
     protected ArticleListParam mRequestParam;
 
     private OnTopicMenuItemClickListener mMenuItemClickListener = new OnTopicMenuItemClickListener() {
@@ -189,7 +197,7 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
             }
 
             item = menu.findItem(R.id.menu_vote);
-            if (item != null && StringUtils.isEmpty(row.getVote())) {
+            if (item != null && row.getVoteData() == null) {
                 item.setVisible(false);
             }
 
@@ -250,6 +258,10 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
     }
 
     public void scrollToTop() {
+        if (mPageView != null) {
+            mPageView.pageUp(true);
+            return;
+        }
         RecyclerViewEx recyclerView = mListView.findViewById(R.id.list);
         recyclerView.smoothScrollToPosition(0);
     }
@@ -259,7 +271,11 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
         if (rxEvent.what == RxEvent.EVENT_ARTICLE_GO_FLOOR
                 && rxEvent.arg + 1 == mRequestParam.page
                 && rxEvent.obj != null) {
-            mListView.scrollToPosition((Integer) rxEvent.obj);
+            if (mPageView != null) {
+                mPageView.scrollToRow((Integer) rxEvent.obj);
+            } else {
+                mListView.scrollToPosition((Integer) rxEvent.obj);
+            }
         }
     }
 
@@ -282,12 +298,17 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
         mArticleAdapter.setSupportListener(mSupportListener);
         mArticleAdapter.setOpposeListener(mOpposeListener);
         mArticleAdapter.setMenuTogglerListener(mMenuTogglerListener);
-        mListView.setLayoutManager(new LinearLayoutManager(getContext()));
-        mListView.setItemViewCacheSize(20);
-        mListView.setAdapter(mArticleAdapter);
-        mListView.setEmptyView(view.findViewById(R.id.empty_view));
-        if (PhoneConfiguration.getInstance().useSolidColorBackground()) {
-            mListView.addItemDecoration(new DividerItemDecoration(view.getContext(), DividerItemDecoration.VERTICAL));
+        mArticleAdapter.setPage(mRequestParam.page);
+        if (PhoneConfiguration.getInstance().isArticlePageRenderEnabled()) {
+            setupPageView(view);
+        } else {
+            mListView.setLayoutManager(new LinearLayoutManager(getContext()));
+            mListView.setItemViewCacheSize(20);
+            mListView.setAdapter(mArticleAdapter);
+            mListView.setEmptyView(view.findViewById(R.id.empty_view));
+            if (PhoneConfiguration.getInstance().useSolidColorBackground()) {
+                mListView.addItemDecoration(new DividerItemDecoration(view.getContext(), DividerItemDecoration.VERTICAL));
+            }
         }
 
         TextView sayingView = (TextView) mLoadingView.findViewById(R.id.saying);
@@ -302,6 +323,44 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
         super.onViewCreated(view, savedInstanceState);
     }
 
+    /**
+     * 单页模式不给列表设置 Adapter, 按钮点击交给 Adapter 中和列表相同的处理
+     */
+    private void setupPageView(View view) {
+        mListView.setVisibility(View.GONE);
+        mPageView = (ArticlePageWebView) ((ViewStub) view.findViewById(R.id.page_stub)).inflate();
+        mPageView.setPage(mRequestParam.page);
+        mPageView.setOnRowActionListener((action, row, anchor) -> mArticleAdapter.performRowAction(action, anchor, row));
+        // WebView 不支持嵌套滚动, 需要告诉 SwipeRefreshLayout 能否继续向上滚动
+        mSwipeRefreshLayout.setOnChildScrollUpCallback((parent, child) -> mPageView.canScrollVertically(-1));
+    }
+
+    @Override
+    public void onDestroyView() {
+        // 翻页后 WebView 交给下一页使用
+        mListView.setAdapter(null);
+        mArticleAdapter.releaseWebViews();
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (mPageView != null) {
+            mPageView.requestRender();
+            return;
+        }
+        // 切回这一页时屏幕上的回复优先转换
+        LinearLayoutManager layoutManager = (LinearLayoutManager) mListView.getLayoutManager();
+        if (layoutManager != null) {
+            int first = layoutManager.findFirstVisibleItemPosition();
+            int last = layoutManager.findLastVisibleItemPosition();
+            if (first != RecyclerView.NO_POSITION && last != RecyclerView.NO_POSITION) {
+                mArticleAdapter.requestRender(first, last);
+            }
+        }
+    }
+
     public void loadPage() {
         mPresenter.loadPage(mRequestParam);
     }
@@ -327,7 +386,15 @@ public class ArticleListFragment extends BaseMvpFragment<ArticleListPresenter> i
             mArticleAdapter.setTopicOwner(viewModel.getTopicOwner().getValue());
         }
         mArticleAdapter.setData(data);
-        mArticleAdapter.notifyDataSetChanged();
+        if (mPageView != null) {
+            boolean empty = data == null || data.getRowList() == null || data.getRowList().isEmpty();
+            getView().findViewById(R.id.empty_view).setVisibility(empty ? View.VISIBLE : View.GONE);
+            if (!empty) {
+                mPageView.setData(data.getRowList(), mArticleAdapter.getTopicOwner());
+            }
+        } else {
+            mArticleAdapter.notifyDataSetChanged();
+        }
 
     }
 
@@ -36,6 +36,7 @@ import gov.anzong.androidnga.arouter.ARouterConstants;
 import gov.anzong.androidnga.base.widget.TabLayoutEx;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.common.UserManagerImpl;
+import sp.phone.mvp.model.convert.ArticleRenderQueue;
 import sp.phone.mvp.viewmodel.ArticleShareViewModel;
 import sp.phone.param.ArticleListParam;
 import sp.phone.param.ParamKey;
@@ -123,6 +124,7 @@ public class ArticleTabFragment extends BaseRxFragment {
             @Override
             public void onPageSelected(int position) {
                 mBehavior.animateIn(mFam);
+                ArticleRenderQueue.getInstance().cancelOtherPages(mRequestParam.tid, mPagerAdapter.getPage(position));
                 super.onPageSelected(position);
             }
         });
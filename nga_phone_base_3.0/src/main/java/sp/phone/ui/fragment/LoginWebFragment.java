@@ -19,7 +19,7 @@ import gov.anzong.androidnga.R;
 import gov.anzong.androidnga.base.util.PreferenceUtils;
 import gov.anzong.androidnga.base.util.ToastUtils;
 import gov.anzong.androidnga.common.PreferenceKey;
-import sp.phone.http.cookie.CookieHeaderUtil;
+import sp.phone.http.cookie.NgaCookieJar;
 import sp.phone.mvp.presenter.LoginPresenter;
 import sp.phone.util.ForumUtils;
 import sp.phone.util.StringUtils;
@@ -169,9 +169,7 @@ public class LoginWebFragment extends BaseFragment {
         }
         if (!StringUtils.isEmpty(cookieStr)) {
             if (cookieStr.contains("ngaPassportUid") && cookieStr.contains("ngaPassportCid")) {
-                String existing = PreferenceUtils.getData(PreferenceKey.KEY_WEBVIEW_COOKIE, "");
-                String merged = CookieHeaderUtil.mergeCookieHeaders(existing, cookieStr);
-                PreferenceUtils.putData(PreferenceKey.KEY_WEBVIEW_COOKIE, merged);
+                NgaCookieJar.getInstance().saveWebViewCookie(cookieStr);
             }
             mLoginPresenter.parseCookie(cookieStr);
 //            Toast.makeText(mActivity, "登陆成功", Toast.LENGTH_SHORT).show();
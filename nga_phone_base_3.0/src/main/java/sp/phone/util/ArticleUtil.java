@@ -9,6 +9,7 @@ import com.alibaba.fastjson.JSONObject;
 import java.util.ArrayList;
 import java.util.List;
 
+import gov.anzong.androidnga.core.data.VoteData;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.http.bean.ThreadData;
 import sp.phone.http.bean.ThreadRowInfo;
@@ -138,6 +139,7 @@ public class ArticleUtil {
             String vote = rowObj.getString("vote");
             if (!StringUtils.isEmpty(vote)) {
                 row.setVote(vote);
+                row.setVoteData(VoteData.parse(vote));
             }
             fillUserInfo(row, userInfoMap);
             FunctionUtils.fillFormatedHtmlData(row, i, context);
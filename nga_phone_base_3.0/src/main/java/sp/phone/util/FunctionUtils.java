@@ -38,10 +38,9 @@ import java.util.Objects;
 
 import gov.anzong.androidnga.BuildConfig;
 import gov.anzong.androidnga.R;
-import gov.anzong.androidnga.Utils;
 import gov.anzong.androidnga.base.util.ToastUtils;
-import gov.anzong.androidnga.core.data.HtmlData;
-import gov.anzong.androidnga.core.decode.ForumDecoder;
+import gov.anzong.androidnga.core.bbcode.BBCodeDocument;
+import gov.anzong.androidnga.core.data.VoteData;
 import sp.phone.common.PhoneConfiguration;
 import sp.phone.common.UserManagerImpl;
 import sp.phone.http.bean.MessageArticlePageInfo;
@@ -141,23 +140,16 @@ public class FunctionUtils {
     }
 
     public static String signatureToHtmlText_Message(final MessageArticlePageInfo row,
-                                                     boolean showImage, int imageQuality, final String fgColorStr,
+                                                     boolean showImage, final String fgColorStr,
                                                      final String bgcolorStr, Context context) {
         initStaticStrings(context);
-        String ngaHtml = StringUtils.decodeForumTag(row.getSignature(),
-                showImage, imageQuality, null);
+        // 私信中没有作者 id
+        String ngaHtml = StringUtils.decodeSignature(0, row.getSignature(), showImage);
         if (StringUtils.isEmpty(ngaHtml)) {
             ngaHtml = "<font color='red'>[" + context.getString(R.string.hide)
                     + "]</font>";
         }
-        ngaHtml = "<HTML> <HEAD><META   http-equiv=Content-Type   content= \"text/html;   charset=utf-8 \">"
-                + "<body bgcolor= '#"
-                + bgcolorStr
-                + "'>"
-                + "<font color='#"
-                + fgColorStr + "' size='2'>" + ngaHtml + "</font></body>";
-
-        return ngaHtml;
+        return StringUtils.wrapForumHtml(ngaHtml, fgColorStr, bgcolorStr);
     }
 
     public static void Create_Signature_Dialog(ThreadRowInfo row, final Context context, final View scrollview) {
@@ -195,8 +187,7 @@ public class FunctionUtils {
                 .loadDataWithBaseURL(
                         null,
                         FunctionUtils.signatureToHtmlText(row, showImage,
-                                ArticleUtil.showImageQuality(), fgColorStr,
-                                bgcolorStr, context), "text/html", "utf-8", null);
+                                fgColorStr, bgcolorStr, context), "text/html", "utf-8", null);
         alert.setPositiveButton("关闭", new DialogInterface.OnClickListener() {
             @Override
             public void onClick(DialogInterface dialog, int which) {
@@ -250,7 +241,8 @@ public class FunctionUtils {
                 .getWebSize());
         setting.setJavaScriptEnabled(true);
         setting.setJavaScriptCanOpenWindowsAutomatically(true);
-        contentTV.addJavascriptInterface(new ProxyBridge(context, toast), "ProxyBridge");
+        final ProxyBridge proxyBridge = new ProxyBridge(context, toast);
+        contentTV.addJavascriptInterface(proxyBridge, "ProxyBridge");
         contentTV.setFocusableInTouchMode(true);
         contentTV.setFocusable(true);
         contentTV.setHapticFeedbackEnabled(true);
@@ -352,6 +344,7 @@ public class FunctionUtils {
         dialog.setOnDismissListener(new AlertDialog.OnDismissListener() {
             @Override
             public void onDismiss(DialogInterface arg0) {
+                proxyBridge.cancel();
                 dialog.dismiss();
             }
         });
@@ -380,25 +373,34 @@ public class FunctionUtils {
 
     public static void handleNickName(ThreadRowInfo row, int fgColor,
                                       TextView nickNameTV, String topicOwner, Context context) {
+        int colorRes = getNickNameColorRes(row);
+        if (colorRes != 0) {
+            fgColor = nickNameTV.getResources().getColor(colorRes);
+        }
+        nickNameTV.setText(getNickName(row, topicOwner, context));
+        TextPaint tp = nickNameTV.getPaint();
+        tp.setFakeBoldText(true);// bold for Chinese character
+        nickNameTV.setTextColor(fgColor);
+    }
+
+    /**
+     * 昵称后面加上 VIP, 禁言, 屏蔽, 匿名, 楼主和备注等标记
+     */
+    public static String getNickName(ThreadRowInfo row, String topicOwner, Context context) {
         initStaticStrings(context);
         String nickName = row.getAuthor();
-        // int now = 0;
         if ("-1".equals(row.getYz()))// nuked
         {
-            fgColor = nickNameTV.getResources().getColor(R.color.title_red);
             nickName += "(VIP)";
         } else if (!StringUtils.isEmpty(row.getMuteTime())
                 && !"0".equals(row.getMuteTime()) || row.isMuted()) {
-            fgColor = nickNameTV.getResources().getColor(R.color.title_orange);
             nickName += "(" + legend + ")";
         }
         if (row.get_isInBlackList()) {
-            fgColor = nickNameTV.getResources().getColor(R.color.title_orange);
             nickName += "(" + blacklistban + ")";
         }
 
         if (row.getISANONYMOUS()) {
-            fgColor = nickNameTV.getResources().getColor(R.color.title_red);
             nickName += "(匿名)";
         }
 
@@ -410,11 +412,27 @@ public class FunctionUtils {
             String userNote = row.getUserNote();
             nickName += "(" + userNote + ")";
         }
+        return nickName;
+    }
 
-        nickNameTV.setText(nickName);
-        TextPaint tp = nickNameTV.getPaint();
-        tp.setFakeBoldText(true);// bold for Chinese character
-        nickNameTV.setTextColor(fgColor);
+    /**
+     * @return 需要突出显示时的颜色资源, 否则返回 0
+     */
+    public static int getNickNameColorRes(ThreadRowInfo row) {
+        int colorRes = 0;
+        if ("-1".equals(row.getYz())) {
+            colorRes = R.color.title_red;
+        } else if (!StringUtils.isEmpty(row.getMuteTime())
+                && !"0".equals(row.getMuteTime()) || row.isMuted()) {
+            colorRes = R.color.title_orange;
+        }
+        if (row.get_isInBlackList()) {
+            colorRes = R.color.title_orange;
+        }
+        if (row.getISANONYMOUS()) {
+            colorRes = R.color.title_red;
+        }
+        return colorRes;
     }
 
     public static void fillFormatedHtmlData(ThreadRowInfo row, int i, Context context) {
@@ -451,10 +469,10 @@ public class FunctionUtils {
     }
 
     public static String signatureToHtmlText(final ThreadRowInfo row,
-                                             boolean showImage, int imageQuality, final String fgColorStr,
+                                             boolean showImage, final String fgColorStr,
                                              final String bgcolorStr, Context context) {
         initStaticStrings(context);
-        String ngaHtml = ForumDecoder.decode(row.getSignature(), HtmlData.create(row.getSignature(), Utils.getNGAHost()));
+        String ngaHtml = StringUtils.decodeSignature(row.getAuthorid(), row.getSignature(), showImage);
         if (StringUtils.isEmpty(ngaHtml)) {
             ngaHtml = row.getAlterinfo();
         }
@@ -462,22 +480,15 @@ public class FunctionUtils {
             ngaHtml = "<font color='red'>[" + context.getString(R.string.hide)
                     + "]</font>";
         }
-        ngaHtml = "<HTML> <HEAD><META   http-equiv=Content-Type   content= \"text/html;   charset=utf-8 \">"
-                + "<body bgcolor= '#"
-                + bgcolorStr
-                + "'>"
-                + "<font color='#"
-                + fgColorStr + "' size='2'>" + ngaHtml + "</font></body>"
-                + "<script type=\"text/javascript\" src=\"file:///android_asset/html/script.js\"></script>";
-
-        return ngaHtml;
+        return StringUtils.wrapForumHtml(ngaHtml, fgColorStr, bgcolorStr);
     }
 
     public static String VoteToHtmlText(final ThreadRowInfo row, boolean showImage,
                                         int imageQuality, final String fgColorStr, final String bgcolorStr) {
-        if (StringUtils.isEmpty(row.getVote()))
+        VoteData voteData = row.getVoteData();
+        if (voteData == null)
             return "本楼没有投票/投注内容";
-        String ngaHtml = String.valueOf(row.getTid()) + ",'" + row.getVote()
+        String ngaHtml = String.valueOf(row.getTid()) + ",'" + voteData.getRawData()
                 + "'";
         ngaHtml = "<!DOCTYPE html><html><head><meta http-equiv=Content-Type content=\"text/html;charset=utf-8\">"
                 + "<script type=\"text/javascript\" src=\"file:///android_asset/vote/vote.js\"></script><link rel=\"stylesheet\" type=\"text/css\" href=\"file:///android_asset/vote/vote.css\" />"
@@ -515,46 +526,39 @@ public class FunctionUtils {
 //	}
 
     public static String avatarToHtmlText_Message(final MessageArticlePageInfo row, boolean showImage,
-                                                  int imageQuality, final String fgColorStr, final String bgcolorStr, Context context) {
+                                                  final String fgColorStr, final String bgcolorStr, Context context) {
         String ngaHtml = null;
         initStaticStrings(context);
         if (row.getJs_escap_avatar().equals("")) {
             ngaHtml = StringUtils
                     .decodeForumTag(
                             "这家伙是骷髅党,头像什么的没有啦~<br/><img src='file:///android_asset/default_avatar.png' style= 'max-width:100%;' >",
-                            showImage, imageQuality, null);
+                            showImage, null);
         } else {
             ngaHtml = StringUtils.decodeForumTag(
                     "[img]" + parseAvatarUrl(row.getJs_escap_avatar())
-                            + "[/img]", showImage, imageQuality, null);
+                            + "[/img]", showImage, null);
         }
         if (StringUtils.isEmpty(ngaHtml)) {
             ngaHtml = "<font color='red'>[" + context.getString(R.string.hide)
                     + "]</font>";
         }
-        ngaHtml = "<HTML> <HEAD><META   http-equiv=Content-Type   content= \"text/html;   charset=utf-8 \">"
-                + "<body bgcolor= '#"
-                + bgcolorStr
-                + "'>"
-                + "<font color='#"
-                + fgColorStr + "' size='2'>" + ngaHtml + "</font></body>";
-
-        return ngaHtml;
+        return StringUtils.wrapForumHtml(ngaHtml, fgColorStr, bgcolorStr);
     }
 
     public static String avatarToHtmlText(final ThreadRowInfo row, boolean showImage,
-                                          int imageQuality, final String fgColorStr, final String bgcolorStr, Context context) {
+                                          final String fgColorStr, final String bgcolorStr, Context context) {
         String ngaHtml = null;
         initStaticStrings(context);
         if (row.getJs_escap_avatar().equals("")) {
             ngaHtml = StringUtils
                     .decodeForumTag(
                             "这家伙是骷髅党,头像什么的没有啦~<br/><img src='file:///android_asset/default_avatar.png' style= 'max-width:100%;' >",
-                            showImage, imageQuality, null);
+                            showImage, null);
         } else {
             ngaHtml = StringUtils.decodeForumTag(
                     "[img]" + parseAvatarUrl(row.getJs_escap_avatar())
-                            + "[/img]", showImage, imageQuality, null);
+                            + "[/img]", showImage, null);
         }
         if (StringUtils.isEmpty(ngaHtml)) {
             ngaHtml = row.getAlterinfo();
@@ -563,14 +567,7 @@ public class FunctionUtils {
             ngaHtml = "<font color='red'>[" + context.getString(R.string.hide)
                     + "]</font>";
         }
-        ngaHtml = "<HTML> <HEAD><META   http-equiv=Content-Type   content= \"text/html;   charset=utf-8 \">"
-                + "<body bgcolor= '#"
-                + bgcolorStr
-                + "'>"
-                + "<font color='#"
-                + fgColorStr + "' size='2'>" + ngaHtml + "</font></body>";
-
-        return ngaHtml;
+        return StringUtils.wrapForumHtml(ngaHtml, fgColorStr, bgcolorStr);
     }
 
     public static boolean isComment(ThreadRowInfo row) {
@@ -592,6 +589,23 @@ public class FunctionUtils {
 
     }
 
+    /**
+     * 引用回复时使用的内容, 去掉原文中的引用和回复头
+     */
+    public static String getQuoteContent(ThreadRowInfo row) {
+        String content;
+        BBCodeDocument document = row.getDocument();
+        if (document != null && document.getRawText().equals(row.getContent())) {
+            content = document.getQuoteText();
+        } else {
+            content = row.getContent()
+                    .replaceAll("\\[quote\\]([\\s\\S])*\\[/quote\\]", "")
+                    .replaceAll("\\[b\\]Reply to \\[pid=\\d+,\\d+,\\d+\\]Reply\\[/pid\\] Post by .+?\\[/b\\]", "");
+        }
+        content = checkContent(content);
+        return StringUtils.unEscapeHtml(content);
+    }
+
     public static String checkContent(String content) {
         int i;
         boolean mode = false;
@@ -88,7 +88,7 @@ public class HtmlUtils {
             ngaHtml = ngaHtml
                     + buildComment(row, fgColorStr, showImage, imageQuality)
                     + buildAttachment(row, showImage, imageQuality, imageUrls)
-                    + buildSignature(row, showImage, imageQuality)
+                    + buildSignature(row, showImage)
                     + buildVote(row);
             ngaHtml = "<HTML> <HEAD><META http-equiv=Content-Type content= \"text/html; charset=utf-8 \">"
                     + buildHeader(row, fgColorStr)
@@ -218,8 +218,7 @@ public class HtmlUtils {
         return ret;
     }
 
-    private static String buildSignature(ThreadRowInfo row, boolean showImage,
-                                         int imageQuality) {
+    private static String buildSignature(ThreadRowInfo row, boolean showImage) {
         if (row == null || row.getSignature() == null
                 || row.getSignature().length() == 0
                 || !PhoneConfiguration.getInstance().isShowSignature()) {
@@ -228,12 +227,11 @@ public class HtmlUtils {
         return "<br/></br>"
                 + sig
                 + "<hr/><br/>"
-                + StringUtils.decodeForumTag(row.getSignature(), showImage,
-                imageQuality, null);
+                + StringUtils.decodeSignature(row.getAuthorid(), row.getSignature(), showImage);
     }
 
     private static String buildVote(ThreadRowInfo row) {
-        if (row == null || StringUtils.isEmpty(row.getVote())) {
+        if (row == null || row.getVoteData() == null) {
             return "";
         }
         return "<br/><hr/>" + "本楼有投票/投注内容,长按本楼在菜单中点击投票/投注按钮";
@@ -2,7 +2,6 @@ package sp.phone.util;
 
 
 import android.graphics.Bitmap;
-import android.os.Build;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -15,9 +14,12 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Locale;
-import java.util.zip.GZIPInputStream;
 
 import gov.anzong.androidnga.common.util.AppEnvironment;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import sp.phone.http.retrofit.RetrofitHelper;
 
 public class HttpUtil {
 
@@ -118,11 +120,37 @@ public class HttpUtil {
         }
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * 使用 {@link RetrofitHelper#getOkHttpClient()}, 和接口请求共用连接, gzip 由 OkHttp 处理
+     *
+     * @return 网络错误时返回 null
+     */
     public static String getHtml(String uri, String cookie) {
-        InputStream is = null;
-        String machine = "";
-        if (MODEL.indexOf(MANUFACTURER) >= 0) {
+        Request.Builder builder = new Request.Builder()
+                .url(uri)
+                .header("User-Agent", getClientUserAgent())
+                .header("Accept-Charset", "GBK");
+        if (!StringUtils.isEmpty(cookie)) {
+            builder.header("Cookie", cookie);
+        }
+        try (Response response = RetrofitHelper.getInstance().getOkHttpClient().newCall(builder.build()).execute()) {
+            ResponseBody body = response.body();
+            if (body == null) {
+                return null;
+            }
+            return new String(body.bytes(), getCharset(response.header("Content-Type"), "GBK"));
+        } catch (Exception e) {
+            NLog.e(TAG, "failed to load " + uri + ", " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 官方客户端的 User-Agent, app_api.php 等客户端接口使用
+     */
+    private static String getClientUserAgent() {
+        String machine;
+        if (MODEL.contains(MANUFACTURER)) {
             machine = android.os.Build.MODEL;
         } else {
             machine = android.os.Build.MANUFACTURER + " " + android.os.Build.MODEL;
@@ -130,45 +158,10 @@ public class HttpUtil {
         if (machine.length() < 19) {
             machine = "[" + machine + "]";
         }
-        final String USER_AGENT = new StringBuilder().append("Nga_Official/").append(573).append("(").append(machine).append(";Android").append(android.os.Build.VERSION.RELEASE).append(")").toString();
-        try {
-            URL url = new URL(uri);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            if (!StringUtils.isEmpty(cookie))
-                conn.setRequestProperty("Cookie", cookie);
-            conn.setRequestProperty("User-Agent", USER_AGENT);
-            conn.setRequestProperty("Accept-Charset", "GBK");
-            if (Integer.parseInt(Build.VERSION.SDK) < Build.VERSION_CODES.FROYO) {
-                System.setProperty("http.keepAlive", "false");
-            } else {
-                conn.setRequestProperty("Connection", "close");
-            }
-            conn.setRequestProperty("Accept-Encoding", "gzip,deflate");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(10000);
-            conn.connect();
-            if (conn.getResponseCode() == 200)
-                is = conn.getInputStream();
-            else
-                is = conn.getErrorStream();
-            if ("gzip".equals(conn.getHeaderField("Content-Encoding")))
-                is = new GZIPInputStream(is);
-            String encoding = getCharset(conn, "GBK");
-            return IOUtils.toString(is, encoding);
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            IOUtils.closeQuietly(is);
-        }
-        return null;
+        return "Nga_Official/573(" + machine + ";Android" + android.os.Build.VERSION.RELEASE + ")";
     }
 
-    public static String getCharset(HttpURLConnection conn, String defaultValue) {
-        if (conn == null)
-            return defaultValue;
-        String contentType = conn.getHeaderField("Content-Type");
+    public static String getCharset(String contentType, String defaultValue) {
         if (StringUtils.isEmpty(contentType))
             return defaultValue;
         String startTag = "charset=";
@@ -36,15 +36,6 @@ public class MessageUtil {
         return wifi == State.CONNECTED;
     }
 
-    public static int showImageQuality() {
-        return 0;
-//        if (isInWifi()) {
-//            return 0;
-//        } else {
-//            return PhoneConfiguration.getInstance().imageQuality;
-//        }
-    }
-
     private boolean isShowImage() {
         return PhoneConfiguration.getInstance().isImageLoadEnabled();
     }
@@ -179,7 +170,7 @@ public class MessageUtil {
         final String fgColorStr = String.format("%06x", htmlfgColor);
 
         String formated_html_data = convertToHtmlText(row,
-                isShowImage(), showImageQuality(), fgColorStr, bgcolorStr);
+                isShowImage(), fgColorStr, bgcolorStr);
 
         row.setFormated_html_data(formated_html_data);
     }
@@ -189,30 +180,18 @@ public class MessageUtil {
      *
      * @param row
      * @param showImage
-     * @param imageQuality
      * @param fgColorStr
      * @param bgcolorStr
      * @return
      */
     public static String convertToHtmlText(final MessageArticlePageInfo row,
-                                           boolean showImage, int imageQuality, final String fgColorStr,
+                                           boolean showImage, final String fgColorStr,
                                            final String bgcolorStr) {
-        String ngaHtml = StringUtils.decodeForumTag(row.getContent(), showImage, imageQuality, null);
+        String ngaHtml = StringUtils.decodeForumTag(row.getContent(), showImage, null);
         if (StringUtils.isEmpty(ngaHtml)) {
             ngaHtml = "<font color='red'>[" + ContextUtils.getString(R.string.hide) + "]</font>";
         }
-        ngaHtml = "<HTML> <HEAD><META   http-equiv=Content-Type   content= \"text/html;   charset=utf-8 \">"
-                + buildHeader(row, fgColorStr)
-                + "<body bgcolor= '#"
-                + bgcolorStr
-                + "'>"
-                + "<font color='#"
-                + fgColorStr
-                + "' size='2'>"
-                + ngaHtml
-                + "</font></body>";
-
-        return ngaHtml;
+        return StringUtils.wrapForumHtml(buildHeader(row, fgColorStr) + ngaHtml, fgColorStr, bgcolorStr);
     }
 
     private static String buildHeader(MessageArticlePageInfo row, String fgColorStr) {
@@ -0,0 +1,150 @@
+package sp.phone.view.span;
+
+import android.graphics.Canvas;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.text.Spannable;
+import android.text.style.ReplacementSpan;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+
+/**
+ * TextView 中的表情, 图片由 Glide 加载, 加载完成前留出空白
+ */
+public class EmoticonSpan extends ReplacementSpan {
+
+    private static final ColorMatrixColorFilter INVERT_FILTER = new ColorMatrixColorFilter(new ColorMatrix(new float[]{
+            -1, 0, 0, 0, 255,
+            0, -1, 0, 0, 255,
+            0, 0, -1, 0, 255,
+            0, 0, 0, 1, 0
+    }));
+
+    private final String mUrl;
+
+    private final int mSize;
+
+    private final float mDensity;
+
+    private final boolean mInvert;
+
+    private Drawable mDrawable;
+
+    private boolean mLoading;
+
+    /**
+     * @param size    显示的宽度, 为 0 时按图片原始大小显示
+     * @param density 图片原始大小按 dp 换算
+     * @param invert  夜间模式下反色
+     */
+    public EmoticonSpan(String url, int size, float density, boolean invert) {
+        mUrl = url;
+        mSize = size;
+        mDensity = density;
+        mInvert = invert;
+    }
+
+    /**
+     * 加载 text 中还没有加载的表情, 在主线程调用
+     */
+    public static void load(TextView textView) {
+        if (!(textView.getText() instanceof Spannable)) {
+            return;
+        }
+        Spannable text = (Spannable) textView.getText();
+        for (EmoticonSpan span : text.getSpans(0, text.length(), EmoticonSpan.class)) {
+            span.load(textView, text);
+        }
+    }
+
+    private void load(TextView textView, Spannable text) {
+        if (mDrawable != null || mLoading) {
+            return;
+        }
+        mLoading = true;
+        Glide.with(textView).load(mUrl).into(new CustomTarget<Drawable>() {
+            @Override
+            public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+                mLoading = false;
+                setDrawable(resource.mutate());
+                // 大小可能变化, 重新设置 span 让 TextView 重新排版
+                if (textView.getText() == text) {
+                    int start = text.getSpanStart(EmoticonSpan.this);
+                    int end = text.getSpanEnd(EmoticonSpan.this);
+                    if (start >= 0) {
+                        int flags = text.getSpanFlags(EmoticonSpan.this);
+                        text.removeSpan(EmoticonSpan.this);
+                        text.setSpan(EmoticonSpan.this, start, end, flags);
+                    }
+                }
+            }
+
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                mLoading = false;
+            }
+
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                mLoading = false;
+            }
+        });
+    }
+
+    private void setDrawable(Drawable drawable) {
+        int width;
+        int height;
+        if (mSize > 0) {
+            width = mSize;
+            height = drawable.getIntrinsicWidth() > 0 ? mSize * drawable.getIntrinsicHeight() / drawable.getIntrinsicWidth() : mSize;
+        } else {
+            width = Math.round(drawable.getIntrinsicWidth() * mDensity);
+            height = Math.round(drawable.getIntrinsicHeight() * mDensity);
+        }
+        drawable.setBounds(0, 0, width, height);
+        if (mInvert) {
+            drawable.setColorFilter(INVERT_FILTER);
+        }
+        mDrawable = drawable;
+    }
+
+    @Override
+    public int getSize(@NonNull Paint paint, CharSequence text, int start, int end, @Nullable Paint.FontMetricsInt fm) {
+        int width;
+        int height;
+        if (mDrawable != null) {
+            width = mDrawable.getBounds().width();
+            height = mDrawable.getBounds().height();
+        } else {
+            width = height = mSize > 0 ? mSize : Math.round(paint.getTextSize());
+        }
+        if (fm != null) {
+            // 图片底部和文字基线对齐, 超出文字高度的部分向上扩展
+            Paint.FontMetricsInt textMetrics = paint.getFontMetricsInt();
+            fm.ascent = Math.min(textMetrics.ascent, -height);
+            fm.top = Math.min(textMetrics.top, fm.ascent);
+            fm.descent = textMetrics.descent;
+            fm.bottom = textMetrics.bottom;
+        }
+        return width;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas, CharSequence text, int start, int end, float x, int top, int y, int bottom, @NonNull Paint paint) {
+        if (mDrawable == null) {
+            return;
+        }
+        canvas.save();
+        canvas.translate(x, y - mDrawable.getBounds().height());
+        mDrawable.draw(canvas);
+        canvas.restore();
+    }
+}
@@ -0,0 +1,44 @@
+package sp.phone.view.span;
+
+import android.text.TextPaint;
+import android.text.style.ClickableSpan;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import sp.phone.view.webview.WebViewClientEx;
+
+/**
+ * TextView 中的链接, 点击后和网页中的链接一样由 {@link WebViewClientEx} 处理
+ */
+public class LinkSpan extends ClickableSpan {
+
+    private static final int LINK_COLOR = 0xff3181f4;
+
+    private final String mUrl;
+
+    private final boolean mBold;
+
+    public LinkSpan(String url, boolean bold) {
+        mUrl = url;
+        mBold = bold;
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    @Override
+    public void onClick(@NonNull View widget) {
+        new WebViewClientEx().overrideUrlLoading(widget.getContext(), mUrl);
+    }
+
+    @Override
+    public void updateDrawState(@NonNull TextPaint ds) {
+        super.updateDrawState(ds);
+        ds.setColor(LINK_COLOR);
+        if (mBold) {
+            ds.setFakeBoldText(true);
+        }
+    }
+}
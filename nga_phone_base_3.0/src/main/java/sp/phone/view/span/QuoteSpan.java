@@ -0,0 +1,72 @@
+package sp.phone.view.span;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.style.LeadingMarginSpan;
+import android.text.style.LineBackgroundSpan;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 引用的背景和边框, 和网页中的 div.quote 一致; 嵌套的引用按层级缩进
+ */
+public class QuoteSpan implements LineBackgroundSpan, LeadingMarginSpan {
+
+    private static final int BORDER_COLOR = 0xff888888;
+
+    private final int mBackgroundColor;
+
+    private final int mPadding;
+
+    private final int mLevel;
+
+    /**
+     * @param level 嵌套层级, 最外层为 0
+     */
+    public QuoteSpan(int backgroundColor, int padding, int level) {
+        mBackgroundColor = backgroundColor;
+        mPadding = padding;
+        mLevel = level;
+    }
+
+    @Override
+    public int getLeadingMargin(boolean first) {
+        return mPadding;
+    }
+
+    @Override
+    public void drawLeadingMargin(Canvas c, Paint p, int x, int dir, int top, int baseline, int bottom,
+                                  CharSequence text, int start, int end, boolean first, Layout layout) {
+    }
+
+    @Override
+    public void drawBackground(@NonNull Canvas canvas, @NonNull Paint paint, int left, int right, int top, int baseline, int bottom,
+                               @NonNull CharSequence text, int start, int end, int lineNumber) {
+        int color = paint.getColor();
+        Paint.Style style = paint.getStyle();
+        int inset = mPadding * mLevel;
+        left += inset;
+        right -= inset;
+
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(mBackgroundColor);
+        canvas.drawRect(left, top, right, bottom, paint);
+
+        paint.setColor(BORDER_COLOR);
+        canvas.drawRect(left, top, left + 1, bottom, paint);
+        canvas.drawRect(right - 1, top, right, bottom, paint);
+        if (text instanceof Spanned) {
+            Spanned spanned = (Spanned) text;
+            if (start <= spanned.getSpanStart(this)) {
+                canvas.drawRect(left, top, right, top + 1, paint);
+            }
+            if (end >= spanned.getSpanEnd(this)) {
+                canvas.drawRect(left, bottom - 1, right, bottom, paint);
+            }
+        }
+        paint.setColor(color);
+        paint.setStyle(style);
+    }
+}
@@ -0,0 +1,187 @@
+package sp.phone.view.webview;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.webkit.JavascriptInterface;
+import android.widget.AbsoluteLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.anzong.androidnga.base.util.ThreadUtils;
+import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.mvp.model.convert.ArticlePageHtmlBuilder;
+import sp.phone.mvp.model.convert.ArticleRenderQueue;
+
+/**
+ * 单页模式: 一页的回复显示在同一个网页中, 代替列表中每条回复一个 WebView
+ * <p>
+ * 所有回复转换完成后才加载网页, 网页中的按钮通过 {@link OnRowActionListener} 回调
+ */
+public class ArticlePageWebView extends LocalWebView {
+
+    private List<ThreadRowInfo> mRows;
+
+    private List<ThreadRowInfo> mLoadedRows;
+
+    private String mTopicOwner;
+
+    private int mPage;
+
+    private int mPendingScrollRow = -1;
+
+    private boolean mPageLoaded;
+
+    private OnRowActionListener mOnRowActionListener;
+
+    /**
+     * 弹出菜单的锚点, 移动到被点击的按钮下方
+     */
+    private View mAnchorView;
+
+    private ArticleRenderQueue.Callback mRenderCallback = row -> {
+        if (mRows != null && mRows.contains(row)) {
+            requestRender();
+        }
+    };
+
+    public interface OnRowActionListener {
+
+        /**
+         * 在主线程回调
+         *
+         * @param action {@link ArticlePageHtmlBuilder} 中的 ACTION_*
+         */
+        void onRowAction(String action, ThreadRowInfo row, View anchor);
+    }
+
+    public ArticlePageWebView(Context context) {
+        this(context, null);
+    }
+
+    public ArticlePageWebView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setVerticalScrollBarEnabled(true);
+        addJavascriptInterface(new PageBridge(), "page");
+        mAnchorView = new View(context);
+        addView(mAnchorView, new AbsoluteLayout.LayoutParams(1, 1, 0, 0));
+    }
+
+    public void setOnRowActionListener(OnRowActionListener listener) {
+        mOnRowActionListener = listener;
+    }
+
+    /**
+     * @param page 所在的页, 用于翻页后取消转换
+     */
+    public void setPage(int page) {
+        mPage = page;
+    }
+
+    public void setData(List<ThreadRowInfo> rows, String topicOwner) {
+        mRows = rows;
+        mTopicOwner = topicOwner;
+        requestRender();
+    }
+
+    /**
+     * 转换还没有转换的回复, 全部完成后加载网页; 切回这一页时需要再次调用, 翻页时被取消的任务会重新提交
+     */
+    public void requestRender() {
+        List<ThreadRowInfo> rows = mRows;
+        if (rows == null || rows == mLoadedRows) {
+            return;
+        }
+        boolean pending = false;
+        ArticleRenderQueue queue = ArticleRenderQueue.getInstance();
+        for (ThreadRowInfo row : rows) {
+            if (row != null && row.isRenderPending()) {
+                pending = true;
+                queue.render(row, mPage, ArticleRenderQueue.PRIORITY_VISIBLE, mRenderCallback);
+            }
+        }
+        if (!pending) {
+            loadPage(rows);
+        }
+    }
+
+    private void loadPage(List<ThreadRowInfo> rows) {
+        mLoadedRows = rows;
+        // 新的网页加载完成前, 滚动请求先保存起来, 不能滚动正在被替换的网页
+        mPageLoaded = false;
+        String topicOwner = mTopicOwner;
+        ArticlePageHtmlBuilder builder = new ArticlePageHtmlBuilder(getContext());
+        ThreadUtils.postOnSubThread(() -> {
+            String html = builder.build(rows, topicOwner);
+            List<String> imageUrls = new ArrayList<>();
+            for (ThreadRowInfo row : rows) {
+                if (row != null) {
+                    imageUrls.addAll(row.getImageUrls());
+                }
+            }
+            ThreadUtils.postOnMainThread(() -> {
+                if (rows != mRows) {
+                    return;
+                }
+                getWebViewClientEx().setImgUrls(imageUrls);
+                if (html.equals(getContentData())) {
+                    // 内容没有变化时不会重新加载, 也不会再收到加载完成的回调
+                    onPageLoaded();
+                    return;
+                }
+                loadDataWithBaseURL(null, html, "text/html", "utf-8", null);
+            });
+        });
+    }
+
+    /**
+     * 网页还没有加载完成时等加载完成后再滚动
+     */
+    public void scrollToRow(int index) {
+        if (mPageLoaded) {
+            evaluateJavascript("scrollToRow(" + index + ")", null);
+        } else {
+            mPendingScrollRow = index;
+        }
+    }
+
+    private void onRowAction(String action, int index, float left, float bottom) {
+        List<ThreadRowInfo> rows = mLoadedRows;
+        if (mOnRowActionListener == null || rows == null || index < 0 || index >= rows.size() || rows.get(index) == null) {
+            return;
+        }
+        // 页面没有设置 viewport, 1 css px 等于 1 dp
+        float density = getResources().getDisplayMetrics().density;
+        int x = Math.round(left * density) + getScrollX();
+        int y = Math.round(bottom * density) + getScrollY();
+        mAnchorView.setLayoutParams(new AbsoluteLayout.LayoutParams(1, 1, x, y));
+        // 弹出菜单时还没有重新布局, 先直接移动过去
+        mAnchorView.layout(x, y, x + 1, y + 1);
+        mOnRowActionListener.onRowAction(action, rows.get(index), mAnchorView);
+    }
+
+    private void onPageLoaded() {
+        mPageLoaded = true;
+        if (mPendingScrollRow >= 0) {
+            scrollToRow(mPendingScrollRow);
+            mPendingScrollRow = -1;
+        }
+    }
+
+    /**
+     * 在 JavaBridge 线程中调用, 转到主线程处理
+     */
+    private class PageBridge {
+
+        @JavascriptInterface
+        public void onRowAction(String action, int index, float left, float bottom) {
+            ThreadUtils.postOnMainThread(() -> ArticlePageWebView.this.onRowAction(action, index, left, bottom));
+        }
+
+        @JavascriptInterface
+        public void onPageLoaded() {
+            ThreadUtils.postOnMainThread(ArticlePageWebView.this::onPageLoaded);
+        }
+    }
+}
@@ -13,7 +13,9 @@ import androidx.annotation.Nullable;
 
 import gov.anzong.androidnga.common.util.LogUtils;
 import gov.anzong.androidnga.common.view.WebViewEx;
+import gov.anzong.androidnga.core.HtmlConvertFactory;
 import sp.phone.common.PhoneConfiguration;
+import sp.phone.theme.ThemeManager;
 
 /**
  * @author Justwen
@@ -73,6 +75,36 @@ public class LocalWebView extends WebViewEx implements DownloadListener {
         return mWebViewClientEx;
     }
 
+    /**
+     * 加载只有样式的空白网页, 创建后提前加载模板, 回收时清空内容, 不销毁
+     */
+    public void reset() {
+        stopLoading();
+        scrollTo(0, 0);
+        mContentData = null;
+        if (mWebViewClientEx != null) {
+            mWebViewClientEx.setImgUrls(null);
+        }
+        applyConfiguration();
+        loadDataWithBaseURL(null, HtmlConvertFactory.getEmptyHtml(ThemeManager.getInstance().isNightMode()), "text/html", "utf-8", null);
+        clearHistory();
+    }
+
+    /**
+     * 重新读取字体缩放和表情大小, 从回收池取出时设置可能已经改变
+     */
+    public void applyConfiguration() {
+        mEmotionSize = PhoneConfiguration.getInstance().getEmoticonSize() + "px";
+        getSettings().setTextZoom(PhoneConfiguration.getInstance().getWebViewTextZoom());
+    }
+
+    /**
+     * 当前加载的网页, 没有加载或者已经回收时为 null
+     */
+    protected String getContentData() {
+        return mContentData;
+    }
+
     @Override
     public void onDownloadStart(String url, String userAgent, String contentDisposition, String mimeType, long contentLength) {
         downloadByBrowser(url);
@@ -0,0 +1,253 @@
+package sp.phone.view.webview;
+
+import android.net.Uri;
+import android.text.TextUtils;
+import android.webkit.MimeTypeMap;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.FutureTarget;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.anzong.androidnga.base.util.ContextUtils;
+import gov.anzong.androidnga.common.util.EmoticonUtils;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import sp.phone.http.retrofit.RetrofitHelper;
+import sp.phone.util.NLog;
+
+/**
+ * 网页中的资源不走 WebView 自己的网络请求: 内置表情和 assets 直接读取, 图片从 Glide 的磁盘缓存读取, 论坛的其他资源使用应用的 OkHttpClient
+ * <p>
+ * 在 WebView 的 IO 线程中调用, 返回 null 时仍由 WebView 自己加载
+ */
+public class WebResourceInterceptor {
+
+    private static final String TAG = WebResourceInterceptor.class.getSimpleName();
+
+    private static final String ASSET_PREFIX = "file:///android_asset/";
+
+    private static final String ASSET_PATH = "/android_asset/";
+
+    private static final String[] NGA_HOSTS = {
+            "nga.178.com", "ngacn.cc", "nga.cn", "nga.donews.com", "ngabbs.com"
+    };
+
+    private static final String[] SUFFIX_IMAGE = {
+            ".gif", ".jpg", ".png", ".jpeg", ".bmp", ".webp"
+    };
+
+    /**
+     * WebView 的资源请求共用一个线程, 等待时间不能太长, 超时后交给 WebView 自己加载
+     */
+    private static final long CACHE_TIMEOUT_MILLIS = 500;
+
+    private static final long IMAGE_TIMEOUT_MILLIS = 3000;
+
+    private final AtomicInteger mAssetCount = new AtomicInteger();
+
+    private final AtomicInteger mCacheHits = new AtomicInteger();
+
+    private final AtomicInteger mCacheMisses = new AtomicInteger();
+
+    private final AtomicInteger mNetworkCount = new AtomicInteger();
+
+    private final AtomicInteger mFallbackCount = new AtomicInteger();
+
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) || request.isForMainFrame()) {
+            return null;
+        }
+        String url = request.getUrl().toString();
+        if (url.startsWith(ASSET_PREFIX)) {
+            return openAsset(request.getUrl().getPath().substring(ASSET_PATH.length()));
+        }
+        String scheme = request.getUrl().getScheme();
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            return null;
+        }
+        String assetPath = EmoticonUtils.getAssetPathBySmileUrl(url);
+        if (assetPath != null) {
+            return openAsset(assetPath);
+        }
+        WebResourceResponse response;
+        if (isImage(request)) {
+            response = loadImage(url);
+        } else if (isNgaHost(request.getUrl().getHost()) && !request.getRequestHeaders().containsKey("Range")) {
+            // 音视频需要分段加载, 仍由 WebView 处理
+            response = loadFromNetwork(request);
+        } else {
+            response = null;
+        }
+        if (response == null) {
+            mFallbackCount.incrementAndGet();
+        }
+        return response;
+    }
+
+    private WebResourceResponse openAsset(String path) {
+        try {
+            InputStream is = ContextUtils.getContext().getAssets().open(path);
+            mAssetCount.incrementAndGet();
+            return new WebResourceResponse(getMimeType(path, null), null, is);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 先只查磁盘缓存用于统计命中, 没有时再由 Glide 下载, 下载的图片查看大图时也能直接使用
+     */
+    private WebResourceResponse loadImage(String url) {
+        RequestManager requestManager = Glide.with(ContextUtils.getApplication());
+        InputStream is = openFile(requestManager, requestManager.asFile().load(url).onlyRetrieveFromCache(true).submit(), CACHE_TIMEOUT_MILLIS);
+        if (is != null) {
+            mCacheHits.incrementAndGet();
+        } else {
+            is = openFile(requestManager, requestManager.asFile().load(url).submit(), IMAGE_TIMEOUT_MILLIS);
+            if (is == null) {
+                NLog.d(TAG, "image not ready, fallback to WebView: " + url);
+                return null;
+            }
+            mCacheMisses.incrementAndGet();
+        }
+        return new WebResourceResponse(getMimeType(url, "image/*"), null, is);
+    }
+
+    /**
+     * 等待不超过 timeoutMillis, 超时或失败时返回 null, 结束后释放 FutureTarget
+     */
+    private static InputStream openFile(RequestManager requestManager, FutureTarget<File> target, long timeoutMillis) {
+        try {
+            return new FileInputStream(target.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            return null;
+        } finally {
+            requestManager.clear(target);
+        }
+    }
+
+    private WebResourceResponse loadFromNetwork(WebResourceRequest webRequest) {
+        Request.Builder builder = new Request.Builder().url(webRequest.getUrl().toString());
+        for (Map.Entry<String, String> entry : webRequest.getRequestHeaders().entrySet()) {
+            // 由 OkHttp 自己添加, 否则不会自动解压
+            if (!"Accept-Encoding".equalsIgnoreCase(entry.getKey())) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
+        }
+        Response response = null;
+        try {
+            response = RetrofitHelper.getInstance().getOkHttpClient().newCall(builder.build()).execute();
+            ResponseBody body = response.body();
+            if (body == null || response.code() >= 300 && response.code() < 400) {
+                // 跳转交给 WebView 处理, 否则网页中的相对地址会出错
+                response.close();
+                return null;
+            }
+            mNetworkCount.incrementAndGet();
+            MediaType contentType = body.contentType();
+            String mimeType = contentType != null ? contentType.type() + "/" + contentType.subtype() : getMimeType(webRequest.getUrl().getPath(), null);
+            String charset = contentType != null && contentType.charset() != null ? contentType.charset().name() : null;
+            String reason = TextUtils.isEmpty(response.message()) ? "OK" : response.message();
+            return new WebResourceResponse(mimeType, charset, response.code(), reason, toMap(response.headers()), body.byteStream());
+        } catch (Exception e) {
+            if (response != null) {
+                response.close();
+            }
+            NLog.e(TAG, "failed to load " + webRequest.getUrl() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, String> toMap(Headers headers) {
+        Map<String, String> map = new HashMap<>();
+        for (String name : headers.names()) {
+            map.put(name, headers.get(name));
+        }
+        return map;
+    }
+
+    private static boolean isImage(WebResourceRequest request) {
+        String accept = request.getRequestHeaders().get("Accept");
+        if (accept != null && accept.startsWith("image/")) {
+            return true;
+        }
+        String path = request.getUrl().getPath();
+        if (path == null) {
+            return false;
+        }
+        path = path.toLowerCase(Locale.US);
+        for (String suffix : SUFFIX_IMAGE) {
+            if (path.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNgaHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        for (String ngaHost : NGA_HOSTS) {
+            if (host.equals(ngaHost) || host.endsWith("." + ngaHost)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getMimeType(String path, String defaultType) {
+        String extension = MimeTypeMap.getFileExtensionFromUrl(Uri.encode(path, "/"));
+        String mimeType = null;
+        if (!TextUtils.isEmpty(extension)) {
+            mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase(Locale.US));
+        }
+        if (mimeType == null && "js".equalsIgnoreCase(extension)) {
+            mimeType = "text/javascript";
+        }
+        return mimeType != null ? mimeType : defaultType;
+    }
+
+    /**
+     * 加载新的网页时输出上一个网页的统计并清零
+     */
+    public void onPageStarted() {
+        int total = mAssetCount.get() + mCacheHits.get() + mCacheMisses.get() + mNetworkCount.get() + mFallbackCount.get();
+        if (total > 0) {
+            NLog.d(TAG, getStats());
+        }
+        mAssetCount.set(0);
+        mCacheHits.set(0);
+        mCacheMisses.set(0);
+        mNetworkCount.set(0);
+        mFallbackCount.set(0);
+    }
+
+    public int getCacheHitCount() {
+        return mCacheHits.get();
+    }
+
+    public int getCacheMissCount() {
+        return mCacheMisses.get();
+    }
+
+    public String getStats() {
+        return String.format(Locale.getDefault(), "asset %d, image cache hit %d, miss %d, network %d, fallback %d",
+                mAssetCount.get(), mCacheHits.get(), mCacheMisses.get(), mNetworkCount.get(), mFallbackCount.get());
+    }
+}
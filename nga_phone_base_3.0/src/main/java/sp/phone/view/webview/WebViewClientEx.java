@@ -3,7 +3,10 @@ package sp.phone.view.webview;
 import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 
@@ -26,6 +29,7 @@ public class WebViewClientEx extends WebViewClient {
 
     private List<String> mImgUrlList;
 
+    private final WebResourceInterceptor mInterceptor = new WebResourceInterceptor();
 
     private static final String NGA_USER_PROFILE_END = "&";
 
@@ -94,8 +98,13 @@ public class WebViewClientEx extends WebViewClient {
 
     @Override
     public boolean shouldOverrideUrlLoading(WebView view, String url) {
-        Context context = view.getContext();
+        return overrideUrlLoading(view.getContext(), url);
+    }
 
+    /**
+     * 帖子, 版面, 图片和用户链接在应用内打开, 其他链接交给浏览器; TextView 中的链接也走这里
+     */
+    public boolean overrideUrlLoading(Context context, String url) {
         if (!url.startsWith("http") && !url.startsWith("market")) {
             url = "http://" + url;
         }
@@ -154,6 +163,22 @@ public class WebViewClientEx extends WebViewClient {
         return true;
     }
 
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        WebResourceResponse response = mInterceptor.intercept(request);
+        return response != null ? response : super.shouldInterceptRequest(view, request);
+    }
+
+    public WebResourceInterceptor getInterceptor() {
+        return mInterceptor;
+    }
+
+    @Override
+    public void onPageStarted(WebView view, String url, Bitmap favicon) {
+        mInterceptor.onPageStarted();
+        super.onPageStarted(view, url, favicon);
+    }
+
     @Override
     public void onPageFinished(WebView view, String url) {
         view.getSettings().setBlockNetworkImage(false);
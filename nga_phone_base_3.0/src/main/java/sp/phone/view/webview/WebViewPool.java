@@ -0,0 +1,152 @@
+package sp.phone.view.webview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Looper;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import gov.anzong.androidnga.base.util.ContextUtils;
+import sp.phone.util.NLog;
+
+/**
+ * 进程内共享的 LocalWebView, 翻页时回收再利用, 不再每页重新创建
+ * <p>
+ * WebView 使用 {@link MutableContextWrapper} 创建, 取出时切换到所在的 Activity, 回收时切回 Application; 只能在主线程调用
+ */
+public class WebViewPool {
+
+    private static final String TAG = WebViewPool.class.getSimpleName();
+
+    /**
+     * 最多保留的空闲 WebView, 超过的直接销毁
+     */
+    private static final int MAX_POOL_SIZE = 8;
+
+    /**
+     * 启动后空闲时提前创建的个数, 第一个 WebView 需要初始化 chromium, 耗时最长
+     */
+    private static final int PREWARM_COUNT = 2;
+
+    private final ArrayDeque<LocalWebView> mPool = new ArrayDeque<>();
+
+    private int mHits;
+
+    private int mMisses;
+
+    private int mCreateCount;
+
+    private long mCreateNanos;
+
+    private long mMaxCreateNanos;
+
+    private static class SingletonHolder {
+
+        private static WebViewPool sInstance = new WebViewPool();
+    }
+
+    public static WebViewPool getInstance() {
+        return SingletonHolder.sInstance;
+    }
+
+    private WebViewPool() {
+    }
+
+    /**
+     * 主线程空闲时每次创建一个, 直到有 {@link #PREWARM_COUNT} 个
+     */
+    public void prewarm() {
+        Looper.myQueue().addIdleHandler(() -> {
+            if (mPool.size() < PREWARM_COUNT) {
+                mPool.push(create());
+            }
+            return mPool.size() < PREWARM_COUNT;
+        });
+    }
+
+    /**
+     * @param context 所在的 Activity, 弹出菜单和打开链接时需要
+     */
+    public LocalWebView acquire(Context context) {
+        LocalWebView webView = mPool.poll();
+        if (webView != null) {
+            mHits++;
+        } else {
+            mMisses++;
+            webView = create();
+        }
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(context);
+        webView.applyConfiguration();
+        return webView;
+    }
+
+    /**
+     * 清空内容后放回, 不再使用这个 WebView
+     */
+    public void release(LocalWebView webView) {
+        if (webView.getParent() != null) {
+            ((ViewGroup) webView.getParent()).removeView(webView);
+        }
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(ContextUtils.getApplication());
+        if (mPool.size() >= MAX_POOL_SIZE) {
+            webView.destroy();
+            return;
+        }
+        webView.reset();
+        mPool.push(webView);
+    }
+
+    /**
+     * 由 Application.onTrimMemory 调用, 切到后台时只保留预创建的个数, 内存紧张时全部销毁
+     */
+    public void trimMemory(int level) {
+        int maxSize;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            maxSize = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            maxSize = Math.min(PREWARM_COUNT, mPool.size());
+        } else {
+            return;
+        }
+        while (mPool.size() > maxSize) {
+            mPool.pollLast().destroy();
+        }
+    }
+
+    private LocalWebView create() {
+        long start = System.nanoTime();
+        LocalWebView webView = new LocalWebView(new MutableContextWrapper(ContextUtils.getApplication()));
+        webView.reset();
+        long nanos = System.nanoTime() - start;
+        mCreateCount++;
+        mCreateNanos += nanos;
+        mMaxCreateNanos = Math.max(mMaxCreateNanos, nanos);
+        NLog.d(TAG, String.format(Locale.getDefault(), "create WebView in %d ms, %s", TimeUnit.NANOSECONDS.toMillis(nanos), getStats()));
+        return webView;
+    }
+
+    public int getHitCount() {
+        return mHits;
+    }
+
+    public int getMissCount() {
+        return mMisses;
+    }
+
+    /**
+     * 平均创建耗时, 没有创建过时为 0
+     */
+    public long getAverageCreateNanos() {
+        return mCreateCount == 0 ? 0 : mCreateNanos / mCreateCount;
+    }
+
+    public String getStats() {
+        return String.format(Locale.getDefault(), "hit %d, miss %d, created %d, avg %d ms, max %d ms, idle %d",
+                mHits, mMisses, mCreateCount, TimeUnit.NANOSECONDS.toMillis(getAverageCreateNanos()),
+                TimeUnit.NANOSECONDS.toMillis(mMaxCreateNanos), mPool.size());
+    }
+}
@@ -0,0 +1,140 @@
+package sp.phone.mvp.model.convert;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+
+import com.sun.management.ThreadMXBean;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import gov.anzong.androidnga.base.util.ContextUtils;
+import gov.anzong.androidnga.common.util.FileUtils;
+import gov.anzong.androidnga.core.util.AssetUtils;
+import gov.anzong.androidnga.db.AppDatabase;
+import sp.phone.common.FilterKeywordsManagerImpl;
+import sp.phone.common.NoteManangerImpl;
+import sp.phone.common.UserManagerImpl;
+import sp.phone.http.bean.ThreadData;
+import sp.phone.http.bean.ThreadRowInfo;
+import sp.phone.mvp.model.entity.TopicListInfo;
+
+/**
+ * 用 src/test/resources/fixtures 中的 read.php?__output=8 和 thread.php?lite=js 返回内容重放转换过程,
+ * 输出每次转换各阶段的平均耗时和分配字节数
+ * <p>
+ * 默认的单元测试不包括这个类, 运行: ./gradlew :nga_phone_base_3.0:testDebugUnitTest -PconvertBenchmark --tests '*ConvertFactoryBenchmark' -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 28)
+public class ConvertFactoryBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 50;
+
+    private static final String[] ARTICLE_FIXTURES = {"read_mixed.json", "read_dice.json"};
+
+    private static final String TOPIC_FIXTURE = "thread_list.js";
+
+    @Before
+    public void setUp() {
+        Application application = RuntimeEnvironment.getApplication();
+        ContextUtils.setApplication(application);
+        AppDatabase.init(application);
+        AssetUtils.setReader(FileUtils::readAssetToString);
+        UserManagerImpl.getInstance().initialize(application);
+        NoteManangerImpl.Companion.getInstance().initialize(application);
+        FilterKeywordsManagerImpl.getInstance().initialize(application);
+        ArticleHtmlCache.getInstance().setEnabled(false);
+
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        ConvertStats.setAllocationCounter(() -> threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+
+    @After
+    public void tearDown() {
+        ConvertStats.setAllocationCounter(null);
+        ArticleHtmlCache.getInstance().setEnabled(true);
+    }
+
+    @Test
+    public void benchmarkArticle() throws IOException {
+        for (String fixture : ARTICLE_FIXTURES) {
+            String js = readFixture(fixture);
+            ConvertStats stats = new ConvertStats();
+            for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+                if (i == WARMUP_ITERATIONS) {
+                    stats.reset();
+                }
+                ThreadData data = ArticleConvertFactory.getArticleInfo(js, stats);
+                assertNotNull(fixture, data);
+                assertEquals(fixture, 20, data.getRowList().size());
+                for (ThreadRowInfo row : data.getRowList()) {
+                    ArticleConvertFactory.renderRowContent(row, stats);
+                    assertNotNull(fixture, row.getFormattedHtmlData());
+                }
+                if (fixture.contains("dice")) {
+                    assertTrue(data.getRowList().get(0).getFormattedHtmlData().contains("ROLL:"));
+                }
+            }
+            report(fixture, stats);
+        }
+    }
+
+    @Test
+    public void benchmarkTopicList() throws IOException {
+        String js = readFixture(TOPIC_FIXTURE);
+        TopicConvertFactory factory = new TopicConvertFactory();
+        ConvertStats stats = new ConvertStats();
+        for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+            if (i == WARMUP_ITERATIONS) {
+                stats.reset();
+            }
+            TopicListInfo listInfo = factory.getTopicListInfo(js, 1, stats);
+            assertNotNull(listInfo);
+            assertEquals(35, listInfo.getThreadPageList().size());
+        }
+        report(TOPIC_FIXTURE, stats);
+    }
+
+    private static void report(String fixture, ConvertStats stats) {
+        StringBuilder builder = new StringBuilder(fixture).append(", per iteration:");
+        for (int stage = 0; stage < ConvertStats.STAGE_COUNT; stage++) {
+            if (stats.getNanos(stage) == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.US, "\n  %-8s %10.1f us %10d KB", ConvertStats.getStageName(stage),
+                    TimeUnit.NANOSECONDS.toMicros(stats.getNanos(stage)) / (double) ITERATIONS,
+                    stats.getBytes(stage) / ITERATIONS / 1024));
+        }
+        if (stats.getSignatureHits() > 0) {
+            builder.append(String.format(Locale.US, "\n  signature decodes saved %d", stats.getSignatureHits() / ITERATIONS));
+        }
+        System.out.println(builder);
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream input = ConvertFactoryBenchmark.class.getClassLoader().getResourceAsStream("fixtures/" + name)) {
+            assertNotNull(name, input);
+            return IOUtils.toString(input, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1 @@
+window.script_muti_get_var_store={"data":{"__CU":{"uid":0,"group_bit":0,"admincheck":"","rvrc":0},"__GLOBAL":"","__F":{"topped_topic":"","sub_forums":"{\"0\":{\"0\":-7,\"1\":\"子版面\",\"2\":\"描述\"},\"t1\":{\"0\":123,\"1\":\"合集\",\"2\":\"\",\"3\":\"456\"}}","fid":-7,"name":"网事杂谈"},"__ROWS":"3500","__T":{"0":{"tid":30000000,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"#anony_00000000000000000000000000000000","authorid":"#anony_00000000000000000000000000000000","subject":"[讨论] 主题 0 关于某个话题的一些看法","type":1024,"postdate":1646100000,"lastpost":1646200000,"lastposter":"回复者0","replies":672,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000000","__P":{"tid":30000000,"pid":700000000,"authorid":"200000","type":0,"postdate":1646200000,"subject":"","content":"回复内容 0"},"parent":""},"1":{"tid":30000001,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者1","authorid":"200001","subject":"[讨论] 主题 1 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100037,"lastpost":1646199989,"lastposter":"回复者1","replies":843,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000001"},"2":{"tid":30000002,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者2","authorid":"200002","subject":"[讨论] 主题 2 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100074,"lastpost":1646199978,"lastposter":"回复者2","replies":570,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000002"},"3":{"tid":30000003,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者3","authorid":"200003","subject":"[讨论] 主题 3 关于某个话题的一些看法","type":0,"postdate":1646100111,"lastpost":1646199967,"lastposter":"回复者3","replies":720,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000003"},"4":{"tid":30000004,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者4","authorid":"200004","subject":"[讨论] 主题 4 关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646100148,"lastpost":1646199956,"lastposter":"回复者4","replies":47,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000004"},"5":{"tid":30000005,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者5","authorid":"200005","subject":"[讨论] 主题 5 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100185,"lastpost":1646199945,"lastposter":"回复者5","replies":591,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000005","__P":{"tid":30000005,"pid":700000005,"authorid":"200005","type":0,"postdate":1646200000,"subject":"","content":"回复内容 5"}},"6":{"tid":30000006,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者6","authorid":"200006","subject":"[讨论] 主题 6 关于某个话题的一些看法","type":0,"postdate":1646100222,"lastpost":1646199934,"lastposter":"回复者6","replies":416,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000006"},"7":{"tid":30000007,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者7","authorid":"200007","subject":"[讨论] 主题 7 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100259,"lastpost":1646199923,"lastposter":"回复者7","replies":479,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000007","parent":""},"8":{"tid":30000008,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者8","authorid":"200008","subject":"[讨论] 主题 8 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646100296,"lastpost":1646199912,"lastposter":"回复者8","replies":272,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000008"},"9":{"tid":30000009,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"#anony_00000000000000000000000000011667","authorid":"#anony_00000000000000000000000000011667","subject":"[讨论] 主题 9 关于某个话题的一些看法","type":0,"postdate":1646100333,"lastpost":1646199901,"lastposter":"回复者9","replies":481,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000009"},"10":{"tid":30000010,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者10","authorid":"200010","subject":"[讨论] 主题 10 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100370,"lastpost":1646199890,"lastposter":"回复者10","replies":330,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000010","__P":{"tid":30000010,"pid":700000010,"authorid":"200010","type":0,"postdate":1646200000,"subject":"","content":"回复内容 10"}},"11":{"tid":30000011,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者11","authorid":"200011","subject":"[讨论] 主题 11 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100407,"lastpost":1646199879,"lastposter":"回复者11","replies":78,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000011"},"12":{"tid":30000012,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者12","authorid":"200012","subject":"[讨论] 主题 12 关于某个话题的一些看法","type":1024,"postdate":1646100444,"lastpost":1646199868,"lastposter":"回复者12","replies":884,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000012"},"13":{"tid":30000013,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者13","authorid":"200013","subject":"[讨论] 主题 13 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100481,"lastpost":1646199857,"lastposter":"回复者13","replies":374,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000013"},"14":{"tid":30000014,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者14","authorid":"200014","subject":"[讨论] 主题 14 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100518,"lastpost":1646199846,"lastposter":"回复者14","replies":63,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000014","parent":""},"15":{"tid":30000015,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者15","authorid":"200015","subject":"[讨论] 主题 15 关于某个话题的一些看法","type":0,"postdate":1646100555,"lastpost":1646199835,"lastposter":"回复者15","replies":696,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000015","__P":{"tid":30000015,"pid":700000015,"authorid":"200015","type":0,"postdate":1646200000,"subject":"","content":"回复内容 15"}},"16":{"tid":30000016,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者16","authorid":"200016","subject":"[讨论] 主题 16 关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646100592,"lastpost":1646199824,"lastposter":"回复者16","replies":657,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000016"},"17":{"tid":30000017,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者17","authorid":"200017","subject":"[讨论] 主题 17 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100629,"lastpost":1646199813,"lastposter":"回复者17","replies":663,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000017"},"18":{"tid":30000018,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"#anony_00000000000000000000000000022cce","authorid":"#anony_00000000000000000000000000022cce","subject":"[讨论] 主题 18 关于某个话题的一些看法","type":0,"postdate":1646100666,"lastpost":1646199802,"lastposter":"回复者18","replies":555,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000018"},"19":{"tid":30000019,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者19","authorid":"200019","subject":"[讨论] 主题 19 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100703,"lastpost":1646199791,"lastposter":"回复者19","replies":842,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000019"},"20":{"tid":30000020,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者20","authorid":"200020","subject":"[讨论] 主题 20 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646100740,"lastpost":1646199780,"lastposter":"回复者20","replies":99,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000020","__P":{"tid":30000020,"pid":700000020,"authorid":"200020","type":0,"postdate":1646200000,"subject":"","content":"回复内容 20"}},"21":{"tid":30000021,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者21","authorid":"200021","subject":"[讨论] 主题 21 关于某个话题的一些看法","type":0,"postdate":1646100777,"lastpost":1646199769,"lastposter":"回复者21","replies":887,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000021","parent":""},"22":{"tid":30000022,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者22","authorid":"200022","subject":"[讨论] 主题 22 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100814,"lastpost":1646199758,"lastposter":"回复者22","replies":70,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000022"},"23":{"tid":30000023,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者23","authorid":"200023","subject":"[讨论] 主题 23 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100851,"lastpost":1646199747,"lastposter":"回复者23","replies":436,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000023"},"24":{"tid":30000024,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者24","authorid":"200024","subject":"[讨论] 主题 24 关于某个话题的一些看法","type":1024,"postdate":1646100888,"lastpost":1646199736,"lastposter":"回复者24","replies":859,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000024"},"25":{"tid":30000025,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者25","authorid":"200025","subject":"[讨论] 主题 25 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100925,"lastpost":1646199725,"lastposter":"回复者25","replies":117,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000025","__P":{"tid":30000025,"pid":700000025,"authorid":"200025","type":0,"postdate":1646200000,"subject":"","content":"回复内容 25"}},"26":{"tid":30000026,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者26","authorid":"200026","subject":"[讨论] 主题 26 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646100962,"lastpost":1646199714,"lastposter":"回复者26","replies":895,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000026"},"27":{"tid":30000027,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"#anony_00000000000000000000000000034335","authorid":"#anony_00000000000000000000000000034335","subject":"[讨论] 主题 27 关于某个话题的一些看法","type":0,"postdate":1646100999,"lastpost":1646199703,"lastposter":"回复者27","replies":52,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000027"},"28":{"tid":30000028,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者28","authorid":"200028","subject":"[讨论] 主题 28 关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646101036,"lastpost":1646199692,"lastposter":"回复者28","replies":848,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000028","parent":""},"29":{"tid":30000029,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者29","authorid":"200029","subject":"[讨论] 主题 29 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646101073,"lastpost":1646199681,"lastposter":"回复者29","replies":660,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000029"},"30":{"tid":30000030,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者30","authorid":"200030","subject":"[讨论] 主题 30 关于某个话题的一些看法","type":0,"postdate":1646101110,"lastpost":1646199670,"lastposter":"回复者30","replies":174,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000030","__P":{"tid":30000030,"pid":700000030,"authorid":"200030","type":0,"postdate":1646200000,"subject":"","content":"回复内容 30"}},"31":{"tid":30000031,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者31","authorid":"200031","subject":"[讨论] 主题 31 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646101147,"lastpost":1646199659,"lastposter":"回复者31","replies":69,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000031"},"32":{"tid":30000032,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者32","authorid":"200032","subject":"[讨论] 主题 32 关于某个话题的一些看法关于某个话题的一些看法关于某个话题的一些看法","type":1024,"postdate":1646101184,"lastpost":1646199648,"lastposter":"回复者32","replies":0,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000032"},"33":{"tid":30000033,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者33","authorid":"200033","subject":"[讨论] 主题 33 关于某个话题的一些看法","type":0,"postdate":1646101221,"lastpost":1646199637,"lastposter":"回复者33","replies":812,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000033"},"34":{"tid":30000034,"fid":-7,"quote_from":0,"quote_to":"","topic_misc":"","author":"作者34","authorid":"200034","subject":"[讨论] 主题 34 关于某个话题的一些看法关于某个话题的一些看法","type":0,"postdate":1646101258,"lastpost":1646199626,"lastposter":"回复者34","replies":692,"lastmodify":1646200000,"recommend":0,"titlefont":"","admin_ui":0,"tpcurl":"/read.php?tid=30000034"}},"__T__ROWS":35,"__T__ROWS_PAGE":35,"__R__ROWS_PAGE":20},"encode":"gbk","time":1646200000}
\ No newline at end of file